@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Replays a metric access trace against cache policies, sizes and TTLs (see CachePolicySimulator).
+#
+#   scripts/cache-policy-simulator.sh data/access-trace.bin [--sizes 100k,1m] [--ttls PT6H,adaptive] ...
+#   scripts/cache-policy-simulator.sh generate /tmp/synthetic.bin [--events 10m] [--keys 1m] ...
+#
+# Record a trace by running the service with CACHE_TRACE_ENABLED=true; it is written to
+# CACHE_TRACE_PATH when the service stops or max-events is reached. Compiles the classes if
+# needed; the simulator needs nothing else on the classpath. JVM options go in SIM_OPTS.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+if [[ ! -f "$ROOT/target/classes/com/example/insights/simulator/CachePolicySimulator.class" ]]; then
+    (cd "$ROOT" && mvn -B -q compile)
+fi
+# shellcheck disable=SC2086
+exec java ${SIM_OPTS:--Xmx4g} -cp "$ROOT/target/classes" com.example.insights.simulator.CachePolicySimulator "$@"
@@ -0,0 +1,21 @@
+#!/usr/bin/env bash
+# Compares the JDBC and HTTP ClickHouse repositories under concurrent lookups, after checking that
+# the HTTP repositories return what the JDBC driver returns (see ClickHouseClientBenchmark).
+#
+#   scripts/clickhouse-client-benchmark.sh [--url jdbc:clickhouse://localhost:8123/shopstream] [--tenant t1] ...
+#
+# Only reads. The benchmark lives with the tests, so this compiles them and resolves the runtime
+# classpath if needed. JVM options go in BENCH_OPTS.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CLASSPATH_FILE="$ROOT/target/benchmark.classpath"
+if [[ ! -f "$ROOT/target/test-classes/com/example/insights/benchmark/ClickHouseClientBenchmark.class" ]]; then
+    (cd "$ROOT" && mvn -B -q test-compile)
+fi
+if [[ ! -f "$CLASSPATH_FILE" ]]; then
+    (cd "$ROOT" && mvn -B -q dependency:build-classpath -Dmdep.includeScope=runtime -Dmdep.outputFile="$CLASSPATH_FILE")
+fi
+# shellcheck disable=SC2086
+exec java ${BENCH_OPTS:--Xmx2g} -cp "$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$CLASSPATH_FILE")" \
+    com.example.insights.benchmark.ClickHouseClientBenchmark "$@"
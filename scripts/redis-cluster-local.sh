@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Starts a local 6-process Redis Cluster (3 primaries, 3 replicas) for exercising
+# redis.topology=cluster. Requires redis-server and redis-cli on the PATH.
+#
+#   scripts/redis-cluster-local.sh start   # ports 7000-7005, data under target/redis-cluster
+#   scripts/redis-cluster-local.sh stop
+#
+# Then run the service with:
+#   REDIS_TOPOLOGY=cluster REDIS_CLUSTER_NODES=127.0.0.1:7000,127.0.0.1:7001,127.0.0.1:7002 \
+#   REDIS_READ_FROM=replicaPreferred java -jar target/insights-1.0.0.jar
+set -euo pipefail
+
+PORTS=(7000 7001 7002 7003 7004 7005)
+BASE_DIR="$(cd "$(dirname "$0")/.." && pwd)/target/redis-cluster"
+
+start() {
+    mkdir -p "$BASE_DIR"
+    for port in "${PORTS[@]}"; do
+        mkdir -p "$BASE_DIR/$port"
+        redis-server --port "$port" \
+            --cluster-enabled yes \
+            --cluster-config-file "$BASE_DIR/$port/nodes.conf" \
+            --cluster-node-timeout 5000 \
+            --dir "$BASE_DIR/$port" \
+            --appendonly no \
+            --daemonize yes \
+            --pidfile "$BASE_DIR/$port/redis.pid" \
+            --logfile "$BASE_DIR/$port/redis.log"
+    done
+
+    local nodes=()
+    for port in "${PORTS[@]}"; do
+        nodes+=("127.0.0.1:$port")
+    done
+    redis-cli --cluster create "${nodes[@]}" --cluster-replicas 1 --cluster-yes
+}
+
+stop() {
+    for port in "${PORTS[@]}"; do
+        redis-cli -p "$port" shutdown nosave >/dev/null 2>&1 || true
+    done
+    rm -rf "$BASE_DIR"
+}
+
+case "${1:-}" in
+    start) start ;;
+    stop) stop ;;
+    *) echo "Usage: $0 {start|stop}" >&2; exit 1 ;;
+esac
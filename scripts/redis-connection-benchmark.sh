@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# Compares the multiplexed and pooled Redis connection modes under concurrent load
+# (see RedisConnectionBenchmark).
+#
+#   scripts/redis-connection-benchmark.sh [--host localhost] [--port 6379] [--threads 8,64,256] [--pool-sizes 8,32] ...
+#
+# Runs against a live Redis and writes keys under bench: there, so point it at a test instance.
+# The benchmark lives with the tests, so this compiles them and resolves the runtime classpath if
+# needed. JVM options go in BENCH_OPTS.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+CLASSPATH_FILE="$ROOT/target/benchmark.classpath"
+if [[ ! -f "$ROOT/target/test-classes/com/example/insights/benchmark/RedisConnectionBenchmark.class" ]]; then
+    (cd "$ROOT" && mvn -B -q test-compile)
+fi
+if [[ ! -f "$CLASSPATH_FILE" ]]; then
+    (cd "$ROOT" && mvn -B -q dependency:build-classpath -Dmdep.includeScope=runtime -Dmdep.outputFile="$CLASSPATH_FILE")
+fi
+# shellcheck disable=SC2086
+exec java ${BENCH_OPTS:--Xmx2g} -cp "$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$CLASSPATH_FILE")" \
+    com.example.insights.benchmark.RedisConnectionBenchmark "$@"
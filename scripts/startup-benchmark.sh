@@ -0,0 +1,98 @@
+#!/usr/bin/env bash
+# Measures time-to-first-successful-request for each startup mode of the service:
+#
+#   default        fat jar, eager context
+#   lazy           fat jar, spring.main.lazy-initialization=true
+#   aot            thin jar with Spring AOT-generated context
+#   aot-cds        aot plus the AppCDS archive from the training run
+#   aot-cds-lazy   aot-cds plus lazy initialization
+#
+#   scripts/startup-benchmark.sh [runs]    # default 5 runs per mode, reports median and min
+#
+# Builds both variants first (clean, tests skipped). The first request is a metrics read,
+# GET /api/v1/ad/{campaignId}/clicks with a token from POST /api/v1/auth/token, so it goes through
+# the JWT filter, the cache and ClickHouse. Redis and ClickHouse must be reachable (REDIS_HOST,
+# CLICKHOUSE_URL, ...). Each run reads a campaign of its own unless BENCH_CAMPAIGN is set, so every
+# run misses the cache and queries ClickHouse; a 404 for a campaign without data counts as
+# answered, since it took the same path. The build-time backend selection applies to the AOT modes
+# (see the fast-start profile in pom.xml). Extra JVM or application options for every run can be
+# passed in BENCH_OPTS.
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${BENCH_PORT:-18080}"
+BASE="http://localhost:$PORT/api/v1"
+TENANT="${BENCH_TENANT:-bench}"
+OPTS="${BENCH_OPTS:-}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+# Outside target/, which each build cleans
+WORK="${TMPDIR:-/tmp}/insights-startup-benchmark"
+
+build() {
+    cd "$ROOT"
+    # Clean between the two, AOT-generated classes must not leak into the default build
+    mvn -B -q clean package -DskipTests
+    mkdir -p "$WORK"
+    cp target/insights-1.0.0.jar "$WORK/insights-fat.jar"
+    mvn -B -q clean -Pfast-start package -DskipTests
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+# Fetches a token, then reads one metric; succeeds once the read is answered (200, or 404 for no data)
+read_metric() {
+    local campaign=$1 token status
+    token=$(curl -sf -X POST -H 'Content-Type: application/json' \
+        -d "{\"tenantId\":\"$TENANT\",\"username\":\"bench@example.com\"}" "$BASE/auth/token" |
+        sed -n 's/.*"token":"\([^"]*\)".*/\1/p') || return 1
+    [[ -n "$token" ]] || return 1
+    status=$(curl -s -o /dev/null -w '%{http_code}' -H "Authorization: Bearer $token" "$BASE/ad/$campaign/clicks")
+    [[ "$status" == 200 || "$status" == 404 ]]
+}
+
+# Prints milliseconds from JVM launch until the first answered metrics read
+time_to_first_request() {
+    local start pid elapsed campaign
+    campaign="${BENCH_CAMPAIGN:-startup-bench-$(now_ms)}"
+    start=$(now_ms)
+    # shellcheck disable=SC2086
+    java $OPTS "$@" --server.port="$PORT" >"$WORK/last-run.log" 2>&1 &
+    pid=$!
+    until read_metric "$campaign"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "service exited before answering, see $WORK/last-run.log" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    elapsed=$(( $(now_ms) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+bench() {
+    local mode=$1
+    shift
+    local samples=()
+    for _ in $(seq "$RUNS"); do
+        samples+=("$(time_to_first_request "$@")")
+    done
+    printf '%s\n' "${samples[@]}" | sort -n | awk -v mode="$mode" '
+        { v[NR] = $1 }
+        END { printf "%-14s median %6d ms   min %6d ms   (%d runs)\n", mode, v[int((NR + 1) / 2)], v[1], NR }'
+}
+
+build
+cd "$ROOT"
+THIN=target/insights-1.0.0.jar
+CDS=target/insights.jsa
+
+bench default      -jar "$WORK/insights-fat.jar"
+bench lazy         -Dspring.main.lazy-initialization=true -jar "$WORK/insights-fat.jar"
+bench aot          -Dspring.aot.enabled=true -jar "$THIN"
+bench aot-cds      -XX:SharedArchiveFile="$CDS" -Xlog:cds=off -Dspring.aot.enabled=true -jar "$THIN"
+bench aot-cds-lazy -XX:SharedArchiveFile="$CDS" -Xlog:cds=off -Dspring.aot.enabled=true \
+                   -Dspring.main.lazy-initialization=true -jar "$THIN"
@@ -0,0 +1,197 @@
+package com.example.insights.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-key cache TTLs derived from how often a key is read and how often its value changes.
+ *
+ * Every reload of a key is compared with the value of its previous reload, which gives a decayed
+ * estimate of the key's change rate (changes per millisecond observed). Treating changes as a
+ * Poisson process, the TTL is the longest one for which the value changes before expiry with at
+ * most the staleness tolerance: {@code ttl = -ln(1 - p) / rate}. Hot keys, by their
+ * {@link FrequencySketch} estimate, get a tolerance up to {@code hotKeyFactor} times smaller. The
+ * result is clamped to [min, max], so dormant campaigns drift to the maximum and live ones to the
+ * minimum.
+ *
+ * A key seen for the first time has no reload history; its version (the source row's update time)
+ * stands in for one, assuming one change since the value was last written. Unversioned keys start
+ * at the initial TTL. History is kept locally for a bounded number of keys in independently locked
+ * stripes; keys evicted from it start over.
+ */
+public final class AdaptiveTtlPolicy {
+
+    private static final int STRIPES = 16;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final Stripe[] stripes;
+    private final long minTtlMillis;
+    private final long maxTtlMillis;
+    private final long initialTtlMillis;
+    private final double stalenessTolerance;
+    private final double hotKeyFactor;
+    private final double historyDecay;
+
+    /**
+     * @param minTtlMillis shortest TTL handed out
+     * @param maxTtlMillis longest TTL handed out
+     * @param initialTtlMillis TTL of a key with neither reload history nor version
+     * @param stalenessTolerance accepted probability, in (0, 1), that a cold key changes before it expires
+     * @param hotKeyFactor how many times smaller the tolerance is for the hottest keys, at least 1
+     * @param historyDecay weight, in [0, 1), kept by earlier reloads each time a key is reloaded
+     * @param trackedKeys how many keys' history is kept
+     */
+    public AdaptiveTtlPolicy(long minTtlMillis, long maxTtlMillis, long initialTtlMillis, double stalenessTolerance,
+                             double hotKeyFactor, double historyDecay, int trackedKeys) {
+        if (minTtlMillis <= 0 || maxTtlMillis < minTtlMillis) {
+            throw new IllegalArgumentException("TTL bounds must satisfy 0 < min <= max");
+        }
+        if (stalenessTolerance <= 0 || stalenessTolerance >= 1) {
+            throw new IllegalArgumentException("Staleness tolerance must be in (0, 1)");
+        }
+        if (hotKeyFactor < 1) {
+            throw new IllegalArgumentException("Hot key factor must be at least 1");
+        }
+        if (historyDecay < 0 || historyDecay >= 1) {
+            throw new IllegalArgumentException("History decay must be in [0, 1)");
+        }
+        this.minTtlMillis = minTtlMillis;
+        this.maxTtlMillis = maxTtlMillis;
+        this.initialTtlMillis = clamp(initialTtlMillis);
+        this.stalenessTolerance = stalenessTolerance;
+        this.hotKeyFactor = hotKeyFactor;
+        this.historyDecay = historyDecay;
+        int perStripe = Math.max(1, trackedKeys / STRIPES);
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Counts one read of the key toward its popularity.
+     */
+    public void recordAccess(String key) {
+        long hash = FrequencySketch.spread(key.hashCode());
+        Stripe stripe = stripe(hash);
+        synchronized (stripe) {
+            stripe.sketch.increment(hash);
+        }
+    }
+
+    /**
+     * Returns the TTL to cache a freshly loaded value with. The key's reload history is left
+     * unchanged; call {@link #recordReload} once the value has actually been written, so that a
+     * stale write the cache rejects does not count as a reload.
+     *
+     * @param key the cache key
+     * @param value the value just loaded from the source
+     * @param version the source row's update time in epoch millis, or 0 when unknown
+     * @param now the current time in epoch millis
+     * @return the TTL in milliseconds, within [min, max]
+     */
+    public long ttlMillis(String key, long value, long version, long now) {
+        long hash = FrequencySketch.spread(key.hashCode());
+        Stripe stripe = stripe(hash);
+        History next;
+        int frequency;
+        synchronized (stripe) {
+            frequency = stripe.sketch.frequency(hash);
+            History history = stripe.histories.get(key);
+            if (history == null && !isVersioned(version, now)) {
+                return initialTtlMillis;
+            }
+            next = advance(history, value, version, now);
+        }
+
+        double changeRate = next.observedMillis > 0 ? next.changes / next.observedMillis : Double.POSITIVE_INFINITY;
+        if (changeRate <= 0) {
+            return maxTtlMillis;
+        }
+        double tolerance = stalenessTolerance / (1 + (hotKeyFactor - 1) * frequency / MAX_FREQUENCY);
+        double ttl = -Math.log1p(-tolerance) / changeRate;
+        return clamp(ttl >= maxTtlMillis ? maxTtlMillis : (long) ttl);
+    }
+
+    /**
+     * Records a reload of the key whose value was written to the cache.
+     *
+     * @param key the cache key
+     * @param value the value written
+     * @param version the source row's update time in epoch millis, or 0 when unknown
+     * @param now the current time in epoch millis
+     */
+    public void recordReload(String key, long value, long version, long now) {
+        Stripe stripe = stripe(FrequencySketch.spread(key.hashCode()));
+        synchronized (stripe) {
+            stripe.histories.put(key, advance(stripe.histories.get(key), value, version, now));
+        }
+    }
+
+    /**
+     * The key's history after one more reload, without modifying {@code history}.
+     */
+    private History advance(History history, long value, long version, long now) {
+        History next = new History();
+        if (history == null) {
+            // One change is assumed over the version's age, or over the initial TTL without a version
+            next.changes = 1;
+            next.observedMillis = isVersioned(version, now) ? now - version : initialTtlMillis;
+        } else {
+            long elapsed = Math.max(0, now - history.reloadedAt);
+            next.changes = history.changes * historyDecay + (value != history.value ? 1 : 0);
+            next.observedMillis = history.observedMillis * historyDecay + elapsed;
+        }
+        next.value = value;
+        next.reloadedAt = now;
+        return next;
+    }
+
+    private static boolean isVersioned(long version, long now) {
+        return version > 0 && version < now;
+    }
+
+    /**
+     * Number of keys whose reload history is currently kept.
+     */
+    public int trackedKeys() {
+        int tracked = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                tracked += stripe.histories.size();
+            }
+        }
+        return tracked;
+    }
+
+    private long clamp(long ttlMillis) {
+        return Math.max(minTtlMillis, Math.min(maxTtlMillis, ttlMillis));
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+        final FrequencySketch sketch;
+        final LinkedHashMap<String, History> histories;
+
+        Stripe(int capacity) {
+            this.sketch = new FrequencySketch(capacity);
+            this.histories = new LinkedHashMap<>(Math.min(capacity, 1 << 12), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, History> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    private static final class History {
+        long value;
+        long reloadedAt;
+        // Decayed number of reloads that saw a changed value, and decayed time observed across them
+        double changes;
+        double observedMillis;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.insights.cache;
+
+/**
+ * Count-min sketch of 4-bit counters used as a TinyLFU popularity estimate.
+ *
+ * Each key hash touches one counter in each of four rows; the estimate is the minimum of the four.
+ * After {@code 10 x width} increments every counter is halved, so the sketch tracks recent rather
+ * than all-time popularity. Not thread-safe: callers synchronize externally.
+ */
+public final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedEntries the number of entries the owning cache holds; sizes the sketch
+     */
+    public FrequencySketch(long expectedEntries) {
+        int width = (int) Math.min(1 << 30, Math.max(16, Long.highestOneBit(Math.max(1, expectedEntries) - 1) << 1));
+        this.table = new long[width];
+        this.tableMask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Estimated recent access count of the key, in [0, 15].
+     */
+    public int frequency(long hash) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long h = rehash(hash, row);
+            int count = (int) ((table[index(h)] >>> offset(h)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records one access of the key.
+     */
+    public void increment(long hash) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long h = rehash(hash, row);
+            int index = index(h);
+            int offset = offset(h);
+            if (((table[index] >>> offset) & 0xF) < MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int index(long h) {
+        return (int) (h >>> 32) & tableMask;
+    }
+
+    private static int offset(long h) {
+        // 16 counters of 4 bits per long
+        return ((int) h & 15) << 2;
+    }
+
+    private static long rehash(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Spreads a 32-bit hash code over 64 bits before it is fed to the sketch.
+     */
+    public static long spread(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,537 @@
+package com.example.insights.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Off-heap, open-addressing hash table mapping (tenant, campaign, metric) to a long value with expiry.
+ *
+ * Keys are reduced to a 128-bit fingerprint (two independent 64-bit hashes), so each entry is a
+ * fixed 32-byte slot in a direct buffer: [hi][lo][value][expiresAt]. Nothing per entry lives on the
+ * Java heap, which keeps tens of millions of entries invisible to the garbage collector.
+ *
+ * The table is split into independently locked segments. Writes take the segment's write lock;
+ * reads are optimistic (StampedLock) and only fall back to a read lock when they race a writer.
+ * Collisions are resolved with linear probing and deletions use backward-shift, so there are no
+ * tombstones. Expired entries are treated as misses on read and physically removed by {@link #sweep()}.
+ * A segment at its entry limit makes room for a new key by evicting the entry closest to expiry among
+ * the first few occupied slots from the key's home position, so a full store keeps accepting writes
+ * without scanning the whole table under the write lock.
+ */
+public final class OffHeapMetricStore {
+
+    /**
+     * Sentinel returned by {@link #get} when there is no live entry for a key.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * Expiry value for entries that never expire.
+     */
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    static final int SLOT_BYTES = 32;
+    private static final int HI_OFFSET = 0;
+    private static final int LO_OFFSET = 8;
+    private static final int VALUE_OFFSET = 16;
+    private static final int EXPIRY_OFFSET = 24;
+
+    // Byte offsets are ints, so a segment's table is capped at 1 GiB (2^25 slots)
+    private static final int MAX_SEGMENT_SLOTS = 1 << 25;
+    private static final double LOAD_FACTOR = 0.7;
+    private static final int OPTIMISTIC_ATTEMPTS = 2;
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long maxEntriesPerSegment;
+
+    /**
+     * @param segmentCount number of independently locked segments, rounded up to a power of two
+     * @param initialSlotsPerSegment initial slot count of each segment, rounded up to a power of two
+     * @param maxEntries upper bound on live entries across all segments
+     */
+    public OffHeapMetricStore(int segmentCount, int initialSlotsPerSegment, long maxEntries) {
+        if (segmentCount <= 0 || initialSlotsPerSegment <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Segment count, initial capacity and max entries must be positive");
+        }
+        int segmentsPow2 = ceilPowerOfTwo(segmentCount);
+        int slots = Math.min(ceilPowerOfTwo(initialSlotsPerSegment), MAX_SEGMENT_SLOTS);
+        this.segments = new Segment[segmentsPow2];
+        for (int i = 0; i < segmentsPow2; i++) {
+            segments[i] = new Segment(slots);
+        }
+        this.segmentMask = segmentsPow2 - 1;
+        this.maxEntriesPerSegment = Math.max(1, maxEntries / segmentsPow2);
+    }
+
+    /**
+     * Returns the live value for a key, or {@link #MISSING} if absent or expired.
+     */
+    public long get(String tenantId, String campaignId, String metricType) {
+        long hi = fingerprintHi(tenantId, campaignId, metricType);
+        long lo = fingerprintLo(tenantId, campaignId, metricType);
+        return get(hi, lo);
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     *
+     * @param expiresAt absolute expiry in epoch millis, or {@link #NO_EXPIRY}
+     * @return false if the segment's table cannot grow any further and the entry was not stored
+     */
+    public boolean put(String tenantId, String campaignId, String metricType, long value, long expiresAt) {
+        long hi = fingerprintHi(tenantId, campaignId, metricType);
+        long lo = fingerprintLo(tenantId, campaignId, metricType);
+        return put(hi, lo, value, expiresAt);
+    }
+
+    /**
+     * Removes a key. Returns true if a live or expired entry was removed.
+     */
+    public boolean remove(String tenantId, String campaignId, String metricType) {
+        long hi = fingerprintHi(tenantId, campaignId, metricType);
+        long lo = fingerprintLo(tenantId, campaignId, metricType);
+        return segmentFor(hi).remove(hi, lo);
+    }
+
+    long get(long hi, long lo) {
+        return segmentFor(hi).get(hi, lo, System.currentTimeMillis());
+    }
+
+    boolean put(long hi, long lo, long value, long expiresAt) {
+        return segmentFor(hi).put(hi, lo, value, expiresAt, maxEntriesPerSegment);
+    }
+
+    /**
+     * Copies the live entries of one segment at a time, in the slot layout and little-endian, into
+     * a buffer and hands it to {@code sink} once the segment's read lock has been released. Only the
+     * copy runs under the lock, so the sink may do slow work such as disk I/O without stalling
+     * writers. The buffer is reused for the next segment, so the sink must consume it in the call.
+     *
+     * @return the number of entries handed over
+     */
+    public long forEachSegment(SegmentSink sink) throws IOException {
+        long now = System.currentTimeMillis();
+        long copied = 0;
+        ByteBuffer buffer = null;
+        for (Segment segment : segments) {
+            buffer = segment.copyLive(buffer, now);
+            copied += buffer.remaining() / SLOT_BYTES;
+            sink.accept(buffer);
+        }
+        return copied;
+    }
+
+    /**
+     * Physically removes expired entries from every segment.
+     *
+     * @return the number of entries removed
+     */
+    public long sweep() {
+        long now = System.currentTimeMillis();
+        long removed = 0;
+        for (Segment segment : segments) {
+            removed += segment.sweep(now);
+        }
+        return removed;
+    }
+
+    /**
+     * Number of stored entries, including expired entries that have not been swept yet.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Number of entries evicted to make room for new keys in full segments.
+     */
+    public long evictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            evictions += segment.evictions;
+        }
+        return evictions;
+    }
+
+    /**
+     * Number of puts that were not stored because a segment's table had reached its maximum size.
+     */
+    public long rejectedPuts() {
+        long rejected = 0;
+        for (Segment segment : segments) {
+            rejected += segment.rejectedPuts;
+        }
+        return rejected;
+    }
+
+    /**
+     * Total off-heap bytes currently reserved by the slot tables.
+     */
+    public long reservedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += (long) segment.table.slots * SLOT_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Receives the copied entries of a segment from {@link #forEachSegment}.
+     */
+    @FunctionalInterface
+    public interface SegmentSink {
+        void accept(ByteBuffer entries) throws IOException;
+    }
+
+    private Segment segmentFor(long hi) {
+        // Slot position is derived from lo, so the segment is picked from hi's upper bits
+        return segments[(int) (hi >>> 40) & segmentMask];
+    }
+
+    static long fingerprintHi(String tenantId, String campaignId, String metricType) {
+        long h = 0x9E3779B97F4A7C15L;
+        h = hash(h, tenantId, 0x100000001B3L);
+        h = hash(h, campaignId, 0x100000001B3L);
+        h = hash(h, metricType, 0x100000001B3L);
+        return fmix64(h);
+    }
+
+    static long fingerprintLo(String tenantId, String campaignId, String metricType) {
+        long h = 0xC2B2AE3D27D4EB4FL;
+        h = hash(h, tenantId, 0xFF51AFD7ED558CCDL);
+        h = hash(h, campaignId, 0xFF51AFD7ED558CCDL);
+        h = hash(h, metricType, 0xFF51AFD7ED558CCDL);
+        // (0, 0) marks an empty slot and must never be produced by a real key
+        long lo = fmix64(h);
+        return lo == 0 ? 1 : lo;
+    }
+
+    private static long hash(long h, String part, long prime) {
+        if (part != null) {
+            for (int i = 0; i < part.length(); i++) {
+                h = (h ^ part.charAt(i)) * prime;
+            }
+        }
+        // Separator so that ("ab", "c") and ("a", "bc") hash differently
+        return (h ^ 0xFFFF) * prime;
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int ceilPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * One independently locked open-addressing table.
+     */
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table;
+        private volatile long size;
+        private volatile long evictions;
+        private volatile long rejectedPuts;
+
+        Segment(int slots) {
+            this.table = new Table(slots);
+        }
+
+        long get(long hi, long lo, long now) {
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long stamp = lock.tryOptimisticRead();
+                if (stamp == 0) {
+                    break;
+                }
+                long value = table.find(hi, lo, now);
+                if (lock.validate(stamp)) {
+                    return value;
+                }
+            }
+            long stamp = lock.readLock();
+            try {
+                return table.find(hi, lo, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean put(long hi, long lo, long value, long expiresAt, long maxEntries) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = t.indexOf(hi, lo);
+                if (slot >= 0) {
+                    t.buffer.putLong(slot + VALUE_OFFSET, value);
+                    t.buffer.putLong(slot + EXPIRY_OFFSET, expiresAt);
+                    return true;
+                }
+                if (size >= maxEntries) {
+                    evictOne(t, lo);
+                }
+                if (size + 1 > t.threshold) {
+                    if (t.slots >= MAX_SEGMENT_SLOTS) {
+                        rejectedPuts++;
+                        return false;
+                    }
+                    t = resize(t);
+                }
+                t.insert(hi, lo, value, expiresAt);
+                size++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long hi, long lo) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = t.indexOf(hi, lo);
+                if (slot < 0) {
+                    return false;
+                }
+                t.removeAt(slot / SLOT_BYTES);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Copies the live entries into {@code buffer}, or into a larger one if it cannot hold them,
+         * and returns the buffer flipped for reading.
+         */
+        ByteBuffer copyLive(ByteBuffer buffer, long now) {
+            // Sized before locking so that allocation rarely happens under the lock
+            buffer = ensureCapacity(buffer, size + size / 8);
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                buffer = ensureCapacity(buffer, size);
+                buffer.clear();
+                for (int i = 0; i < t.slots; i++) {
+                    if (t.isEmpty(i)) {
+                        continue;
+                    }
+                    int base = i * SLOT_BYTES;
+                    long expiresAt = t.buffer.getLong(base + EXPIRY_OFFSET);
+                    if (expiresAt > now) {
+                        buffer.putLong(t.buffer.getLong(base + HI_OFFSET))
+                                .putLong(t.buffer.getLong(base + LO_OFFSET))
+                                .putLong(t.buffer.getLong(base + VALUE_OFFSET))
+                                .putLong(expiresAt);
+                    }
+                }
+                return buffer.flip();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private static ByteBuffer ensureCapacity(ByteBuffer buffer, long entries) {
+            long bytes = Math.max(entries, 1) * SLOT_BYTES;
+            if (buffer != null && buffer.capacity() >= bytes) {
+                return buffer;
+            }
+            return ByteBuffer.allocateDirect((int) Math.min(bytes, (long) MAX_SEGMENT_SLOTS * SLOT_BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        long sweep(long now) {
+            long stamp = lock.writeLock();
+            try {
+                return sweep(now, table);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Caller must hold the write lock
+        private long sweep(long now, Table t) {
+            long removed = 0;
+            for (int i = 0; i < t.slots; i++) {
+                // Backward shift may move another expired entry into slot i, so re-check it
+                while (!t.isEmpty(i) && t.buffer.getLong(i * SLOT_BYTES + EXPIRY_OFFSET) <= now) {
+                    t.removeAt(i);
+                    removed++;
+                }
+            }
+            size -= removed;
+            return removed;
+        }
+
+        /**
+         * Removes the entry expiring soonest among the first {@link #EVICTION_SAMPLE} occupied slots
+         * from the new key's home position. An expired entry always wins, and the scan stays within
+         * a few cache lines instead of sweeping the table. Caller must hold the write lock.
+         */
+        private void evictOne(Table t, long lo) {
+            int index = t.home(lo);
+            int victim = -1;
+            long victimExpiry = Long.MAX_VALUE;
+            int sampled = 0;
+            for (int probes = 0; probes < t.slots && sampled < EVICTION_SAMPLE; probes++) {
+                if (!t.isEmpty(index)) {
+                    long expiresAt = t.buffer.getLong(index * SLOT_BYTES + EXPIRY_OFFSET);
+                    if (victim < 0 || expiresAt < victimExpiry) {
+                        victim = index;
+                        victimExpiry = expiresAt;
+                    }
+                    sampled++;
+                }
+                index = (index + 1) & t.mask;
+            }
+            if (victim >= 0) {
+                t.removeAt(victim);
+                size--;
+                evictions++;
+            }
+        }
+
+        // Caller must hold the write lock; expired entries are dropped while rehashing
+        private Table resize(Table old) {
+            long now = System.currentTimeMillis();
+            Table grown = new Table(Math.min(old.slots << 1, MAX_SEGMENT_SLOTS));
+            long live = 0;
+            for (int i = 0; i < old.slots; i++) {
+                if (old.isEmpty(i)) {
+                    continue;
+                }
+                int base = i * SLOT_BYTES;
+                long expiresAt = old.buffer.getLong(base + EXPIRY_OFFSET);
+                if (expiresAt <= now) {
+                    continue;
+                }
+                grown.insert(old.buffer.getLong(base + HI_OFFSET), old.buffer.getLong(base + LO_OFFSET),
+                        old.buffer.getLong(base + VALUE_OFFSET), expiresAt);
+                live++;
+            }
+            size = live;
+            table = grown;
+            return grown;
+        }
+    }
+
+    /**
+     * Immutable-capacity slot array. Readers capture a Table reference once per probe so that a
+     * concurrent resize can never pair one buffer with another buffer's mask.
+     */
+    private static final class Table {
+
+        final ByteBuffer buffer;
+        final int slots;
+        final int mask;
+        final long threshold;
+
+        Table(int slots) {
+            this.buffer = ByteBuffer.allocateDirect(slots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.slots = slots;
+            this.mask = slots - 1;
+            this.threshold = (long) (slots * LOAD_FACTOR);
+        }
+
+        long find(long hi, long lo, long now) {
+            int slot = indexOf(hi, lo);
+            if (slot < 0 || buffer.getLong(slot + EXPIRY_OFFSET) <= now) {
+                return MISSING;
+            }
+            return buffer.getLong(slot + VALUE_OFFSET);
+        }
+
+        /**
+         * Returns the byte offset of the key's slot, or -1 if absent. Bounded by the slot count so
+         * that an optimistic reader observing a half-written table always terminates.
+         */
+        int indexOf(long hi, long lo) {
+            int index = home(lo);
+            for (int probes = 0; probes < slots; probes++) {
+                int base = index * SLOT_BYTES;
+                long slotHi = buffer.getLong(base + HI_OFFSET);
+                long slotLo = buffer.getLong(base + LO_OFFSET);
+                if (slotHi == hi && slotLo == lo) {
+                    return base;
+                }
+                if (slotHi == 0 && slotLo == 0) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insert(long hi, long lo, long value, long expiresAt) {
+            int index = home(lo);
+            while (!isEmpty(index)) {
+                index = (index + 1) & mask;
+            }
+            int base = index * SLOT_BYTES;
+            buffer.putLong(base + VALUE_OFFSET, value);
+            buffer.putLong(base + EXPIRY_OFFSET, expiresAt);
+            buffer.putLong(base + LO_OFFSET, lo);
+            buffer.putLong(base + HI_OFFSET, hi);
+        }
+
+        /**
+         * Backward-shift deletion: pulls later entries of the probe run into the hole so lookups
+         * never need tombstones.
+         */
+        void removeAt(int hole) {
+            int index = hole;
+            while (true) {
+                index = (index + 1) & mask;
+                if (isEmpty(index)) {
+                    break;
+                }
+                int home = home(buffer.getLong(index * SLOT_BYTES + LO_OFFSET));
+                boolean homeBetween = hole <= index
+                        ? hole < home && home <= index
+                        : hole < home || home <= index;
+                if (!homeBetween) {
+                    copySlot(index, hole);
+                    hole = index;
+                }
+            }
+            int base = hole * SLOT_BYTES;
+            buffer.putLong(base + HI_OFFSET, 0L);
+            buffer.putLong(base + LO_OFFSET, 0L);
+            buffer.putLong(base + VALUE_OFFSET, 0L);
+            buffer.putLong(base + EXPIRY_OFFSET, 0L);
+        }
+
+        boolean isEmpty(int index) {
+            int base = index * SLOT_BYTES;
+            return buffer.getLong(base + HI_OFFSET) == 0 && buffer.getLong(base + LO_OFFSET) == 0;
+        }
+
+        int home(long lo) {
+            return (int) (lo ^ (lo >>> 32)) & mask;
+        }
+
+        private void copySlot(int from, int to) {
+            int src = from * SLOT_BYTES;
+            int dst = to * SLOT_BYTES;
+            buffer.putLong(dst + HI_OFFSET, buffer.getLong(src + HI_OFFSET));
+            buffer.putLong(dst + LO_OFFSET, buffer.getLong(src + LO_OFFSET));
+            buffer.putLong(dst + VALUE_OFFSET, buffer.getLong(src + VALUE_OFFSET));
+            buffer.putLong(dst + EXPIRY_OFFSET, buffer.getLong(src + EXPIRY_OFFSET));
+        }
+    }
+}
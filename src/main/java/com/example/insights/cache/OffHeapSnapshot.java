@@ -0,0 +1,152 @@
+package com.example.insights.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot format for an {@link OffHeapMetricStore}.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header (32 bytes): magic "ISNP" | version | slot bytes | reserved | created-at millis | entry count
+ *   entries (32 bytes each): fingerprint hi | fingerprint lo | value | expires-at millis
+ * </pre>
+ * Entries use the store's own slot layout, so restoring streams longs straight out of the mapped
+ * file into the store without allocating per entry. Bump {@link #VERSION} whenever the layout or
+ * the key fingerprint function changes; files with another version are ignored rather than misread.
+ */
+public final class OffHeapSnapshot {
+
+    static final int MAGIC = 0x49534E50;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private OffHeapSnapshot() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Writes all live entries of the store to {@code target}. The file is written next to the target
+     * and atomically moved into place, so a crash mid-write never leaves a truncated snapshot behind.
+     *
+     * @return the number of entries written
+     */
+    public static long write(OffHeapMetricStore store, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        long count;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Reserve the header, entries follow and the count is filled in once known
+            channel.position(HEADER_BYTES);
+
+            // Each segment is copied under its lock and written after it is released
+            count = store.forEachSegment(entries -> {
+                while (entries.hasRemaining()) {
+                    channel.write(entries);
+                }
+            });
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(OffHeapMetricStore.SLOT_BYTES)
+                    .putInt(0)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(count)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Loads a snapshot into the store, skipping entries that have expired since it was written.
+     *
+     * @return the restore outcome
+     * @throws IOException if the file cannot be read or is not a compatible snapshot
+     */
+    public static RestoreResult load(OffHeapMetricStore store, Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot " + source + " is too short to contain a header");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // Read the full header
+            }
+
+            int magic = header.getInt(0);
+            int version = header.getInt(4);
+            int slotBytes = header.getInt(8);
+            long createdAt = header.getLong(16);
+            long count = header.getLong(24);
+
+            if (magic != MAGIC) {
+                throw new IOException("Snapshot " + source + " has an unknown format");
+            }
+            if (version != VERSION || slotBytes != OffHeapMetricStore.SLOT_BYTES) {
+                throw new IOException("Snapshot " + source + " has unsupported version " + version);
+            }
+            if (size != HEADER_BYTES + count * slotBytes) {
+                throw new IOException("Snapshot " + source + " is truncated: expected " + count + " entries");
+            }
+
+            // MappedByteBuffer offsets are ints; larger snapshots are read in windows
+            long now = System.currentTimeMillis();
+            long restored = 0;
+            long expired = 0;
+            long rejected = 0;
+            long entriesPerWindow = Integer.MAX_VALUE / slotBytes;
+            for (long first = 0; first < count; first += entriesPerWindow) {
+                long windowEntries = Math.min(entriesPerWindow, count - first);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * slotBytes, windowEntries * slotBytes);
+                window.order(ByteOrder.LITTLE_ENDIAN);
+
+                for (int i = 0; i < windowEntries; i++) {
+                    int offset = i * slotBytes;
+                    long expiresAt = window.getLong(offset + 24);
+                    if (expiresAt <= now) {
+                        expired++;
+                        continue;
+                    }
+                    if (store.put(window.getLong(offset), window.getLong(offset + 8),
+                            window.getLong(offset + 16), expiresAt)) {
+                        restored++;
+                    } else {
+                        rejected++;
+                    }
+                }
+            }
+            return new RestoreResult(createdAt, restored, expired, rejected);
+        }
+    }
+
+    /**
+     * Outcome of {@link #load}.
+     *
+     * @param createdAt when the snapshot was written, in epoch millis
+     * @param restored entries loaded into the store
+     * @param expired entries skipped because their TTL elapsed
+     * @param rejected entries dropped because the store was full
+     */
+    public record RestoreResult(long createdAt, long restored, long expired, long rejected) {
+    }
+}
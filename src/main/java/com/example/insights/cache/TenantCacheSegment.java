@@ -0,0 +1,136 @@
+package com.example.insights.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One tenant's bounded slice of the local cache.
+ *
+ * Entries are kept in access order (LRU). When the segment is full a new key is only admitted if
+ * the {@link FrequencySketch} estimates it is accessed more often than the LRU victim (TinyLFU),
+ * so a burst of one-off keys from a scan cannot flush the tenant's hot working set.
+ *
+ * Entries carry the version their value was read at (0 if unknown). Like the shared cache's
+ * compare-and-set, a value never replaces one with a newer version, so a late write-back cannot
+ * put an older value back.
+ */
+public final class TenantCacheSegment {
+
+    /**
+     * Sentinel returned by {@link #get} on a miss.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final FrequencySketch sketch;
+    private final int capacity;
+    private final long ttlMillis;
+
+    /**
+     * @param capacity maximum number of entries this tenant may hold
+     * @param ttlMillis how long an entry stays valid locally
+     */
+    public TenantCacheSegment(int capacity, long ttlMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Segment capacity must be positive");
+        }
+        this.entries = new LinkedHashMap<>(Math.min(capacity, 1 << 16), 0.75f, true);
+        this.sketch = new FrequencySketch(capacity);
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the cached value or {@link #MISSING}, and counts the access toward the key's popularity.
+     */
+    public synchronized long get(String key, long now) {
+        sketch.increment(FrequencySketch.spread(key.hashCode()));
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return MISSING;
+        }
+        if (entry.expiresAt <= now) {
+            entries.remove(key);
+            return MISSING;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Offers a value to the segment.
+     *
+     * @param version the version the value was read at, or 0 if unknown
+     * @return the admission outcome
+     */
+    public synchronized Admission put(String key, long value, long version, long now) {
+        Entry existing = entries.get(key);
+        if (existing != null && existing.expiresAt > now) {
+            if (existing.version > version) {
+                return Admission.STALE;
+            }
+            existing.value = value;
+            existing.version = version;
+            existing.expiresAt = now + ttlMillis;
+            return Admission.ADMITTED;
+        }
+        if (existing != null) {
+            entries.remove(key);
+        }
+
+        Admission admission = Admission.ADMITTED;
+        if (entries.size() >= capacity) {
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            Map.Entry<String, Entry> victim = eldest.next();
+            if (victim.getValue().expiresAt > now) {
+                int candidateFrequency = sketch.frequency(FrequencySketch.spread(key.hashCode()));
+                int victimFrequency = sketch.frequency(FrequencySketch.spread(victim.getKey().hashCode()));
+                if (candidateFrequency <= victimFrequency) {
+                    return Admission.REJECTED;
+                }
+                admission = Admission.ADMITTED_WITH_EVICTION;
+            }
+            eldest.remove();
+        }
+
+        entries.put(key, new Entry(value, version, now + ttlMillis));
+        return admission;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Outcome of offering a key to a full or non-full segment.
+     */
+    public enum Admission {
+        ADMITTED,
+        ADMITTED_WITH_EVICTION,
+        REJECTED,
+        /**
+         * The segment holds a newer version of the key, which was kept.
+         */
+        STALE;
+
+        public boolean isAdmitted() {
+            return this == ADMITTED || this == ADMITTED_WITH_EVICTION;
+        }
+    }
+
+    private static final class Entry {
+        long value;
+        long version;
+        long expiresAt;
+
+        Entry(long value, long version, long expiresAt) {
+            this.value = value;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
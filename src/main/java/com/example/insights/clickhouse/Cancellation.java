@@ -0,0 +1,66 @@
+package com.example.insights.clickhouse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lets a running replica call be aborted from another thread.
+ *
+ * A call registers how to abort the work it has in flight, e.g. cancelling its JDBC statement or
+ * closing its HTTP response, and {@link ClickHouseReplicaRouter} triggers it when the call has lost
+ * a hedge race or timed out. Aborting makes the blocked call fail promptly, which frees the
+ * caller's or hedge pool's thread instead of leaving it busy until the query finishes on its own.
+ * Thread-safe.
+ */
+public final class Cancellation {
+
+    private static final Logger logger = LoggerFactory.getLogger(Cancellation.class);
+
+    private final List<Runnable> actions = new ArrayList<>(2);
+    private boolean cancelled;
+
+    /**
+     * Registers an action that aborts work in flight. Runs it right away if the call has already
+     * been cancelled.
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                actions.add(action);
+                return;
+            }
+        }
+        run(action);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Runs the registered actions once; later calls do nothing.
+     */
+    public void cancel() {
+        List<Runnable> pending;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            pending = new ArrayList<>(actions);
+            actions.clear();
+        }
+        pending.forEach(Cancellation::run);
+    }
+
+    private static void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            logger.debug("Cancelling a ClickHouse call failed: {}", e.toString());
+        }
+    }
+}
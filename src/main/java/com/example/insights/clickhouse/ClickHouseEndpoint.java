@@ -0,0 +1,62 @@
+package com.example.insights.clickhouse;
+
+import java.net.URI;
+
+/**
+ * A ClickHouse HTTP endpoint and the database queries run against.
+ *
+ * @param baseUri the HTTP interface root, e.g. {@code http://localhost:8123/}
+ * @param database the default database for queries, or null for the server default
+ */
+public record ClickHouseEndpoint(URI baseUri, String database) {
+
+    private static final String JDBC_PREFIX = "jdbc:clickhouse:";
+
+    /**
+     * Derives the HTTP endpoint from a JDBC URL such as {@code jdbc:clickhouse://host:8123/db}
+     * or {@code jdbc:clickhouse:https://host:8443/db}.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @return the endpoint
+     */
+    public static ClickHouseEndpoint fromJdbcUrl(String jdbcUrl) {
+        if (jdbcUrl == null || !jdbcUrl.startsWith(JDBC_PREFIX)) {
+            throw new IllegalArgumentException("Not a ClickHouse JDBC URL: " + jdbcUrl);
+        }
+        String remainder = jdbcUrl.substring(JDBC_PREFIX.length());
+        URI uri = URI.create(remainder.startsWith("//") ? "http:" + remainder : remainder);
+
+        String path = uri.getPath();
+        String database = path == null || path.length() <= 1 ? null : path.substring(1);
+        URI base = URI.create(uri.getScheme() + "://" + uri.getAuthority() + "/");
+        return new ClickHouseEndpoint(base, database);
+    }
+
+    /**
+     * The {@code host:port} of a replica's JDBC URL, for logs and meter tags. Unlike the URL it
+     * never carries credentials.
+     *
+     * @param jdbcUrl the JDBC URL
+     * @return the address, or null if the URL cannot be parsed
+     */
+    public static String address(String jdbcUrl) {
+        try {
+            return fromJdbcUrl(jdbcUrl).address();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The {@code host:port} of this endpoint.
+     */
+    public String address() {
+        return baseUri.getPort() == -1 ? baseUri.getHost() : baseUri.getHost() + ":" + baseUri.getPort();
+    }
+
+    @Override
+    public String toString() {
+        // Leaves out user info, which may hold credentials
+        return baseUri.getScheme() + "://" + address() + "/" + (database == null ? "" : database);
+    }
+}
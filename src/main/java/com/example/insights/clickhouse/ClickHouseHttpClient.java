@@ -0,0 +1,267 @@
+package com.example.insights.clickhouse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Minimal client for ClickHouse's HTTP interface.
+ *
+ * Uses one JDK {@link HttpClient}, which pools keep-alive connections per endpoint, and asks the
+ * server for RowBinary output, optionally LZ4-compressed in ClickHouse's native block format.
+ * {@link #stream} hands over the raw response of queries in any other format instead.
+ * Thread-safe.
+ */
+public class ClickHouseHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseHttpClient.class);
+
+    private static final String USER_HEADER = "X-ClickHouse-User";
+    private static final String KEY_HEADER = "X-ClickHouse-Key";
+    private static final String EXCEPTION_CODE_HEADER = "X-ClickHouse-Exception-Code";
+    private static final String GZIP = "gzip";
+    private static final int MAX_ERROR_BODY_BYTES = 4096;
+
+    private static final ClickHouseQuery KILL_QUERY = new ClickHouseQuery("kill-query",
+            "KILL QUERY WHERE query_id = {queryId:String} ASYNC");
+
+    private final HttpClient httpClient;
+    private final String username;
+    private final String password;
+    private final Duration requestTimeout;
+    private final boolean compress;
+
+    public ClickHouseHttpClient(String username, String password, Duration requestTimeout, boolean compress) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(requestTimeout)
+                .build();
+        this.username = username;
+        this.password = password;
+        this.requestTimeout = requestTimeout;
+        this.compress = compress;
+    }
+
+    /**
+     * Handles a successful RowBinary response.
+     */
+    @FunctionalInterface
+    public interface RowBinaryHandler<T> {
+        T handle(RowBinaryInput input) throws IOException;
+    }
+
+    /**
+     * Handles a successful response body in the query's own format.
+     */
+    @FunctionalInterface
+    public interface ResponseBodyHandler<T> {
+        /**
+         * @param body the response body, read as it arrives from the server
+         * @param gzip whether the body is gzip-compressed
+         */
+        T handle(InputStream body, boolean gzip) throws IOException;
+    }
+
+    /**
+     * Executes a prepared query against an endpoint.
+     *
+     * @param endpoint the ClickHouse endpoint
+     * @param query the prepared query
+     * @param parameters values for the query's {@code {name:Type}} placeholders
+     * @param handler reads the RowBinary response
+     * @return the handler's result
+     * @throws IOException on transport failures or a ClickHouse error response
+     */
+    public <T> T execute(ClickHouseEndpoint endpoint, ClickHouseQuery query, Map<String, String> parameters,
+                         RowBinaryHandler<T> handler) throws IOException {
+        return execute(endpoint, query, parameters, null, handler);
+    }
+
+    /**
+     * Executes a prepared query that can be aborted from another thread. Cancelling aborts the
+     * request while waiting for the response and closes the response body while it is being read;
+     * either way this call fails promptly with an {@link IOException}.
+     *
+     * @param endpoint the ClickHouse endpoint
+     * @param query the prepared query
+     * @param parameters values for the query's {@code {name:Type}} placeholders
+     * @param cancellation aborts the request when cancelled, or null
+     * @param handler reads the RowBinary response
+     * @return the handler's result
+     * @throws IOException on transport failures, a ClickHouse error response or cancellation
+     */
+    public <T> T execute(ClickHouseEndpoint endpoint, ClickHouseQuery query, Map<String, String> parameters,
+                         Cancellation cancellation, RowBinaryHandler<T> handler) throws IOException {
+        Map<String, String> settings = compress ? Map.of("compress", "1") : Map.of();
+        HttpResponse<InputStream> response = send(endpoint, query, parameters, settings, false, cancellation);
+        try (InputStream body = response.body()) {
+            if (cancellation != null) {
+                cancellation.onCancel(() -> closeQuietly(body));
+            }
+            InputStream payload = compress ? new ClickHouseLz4InputStream(body) : body;
+            return handler.handle(new RowBinaryInput(payload));
+        }
+    }
+
+    /**
+     * Executes a query and hands the response body to the handler while it is still arriving, so
+     * results of any size pass through in constant memory. Closing the body before the end, which
+     * happens when the handler throws, drops the connection; with
+     * {@code cancel_http_readonly_queries_on_client_close=1} that cancels the query.
+     *
+     * @param endpoint the ClickHouse endpoint
+     * @param query the prepared query, including its output format
+     * @param parameters values for the query's {@code {name:Type}} placeholders
+     * @param settings ClickHouse settings and URL options such as {@code query_id}
+     * @param gzip whether to ask the server to gzip the response
+     * @param handler consumes the response body
+     * @return the handler's result
+     * @throws IOException on transport failures, a ClickHouse error response or a handler failure
+     */
+    public <T> T stream(ClickHouseEndpoint endpoint, ClickHouseQuery query, Map<String, String> parameters,
+                        Map<String, String> settings, boolean gzip, ResponseBodyHandler<T> handler) throws IOException {
+        Map<String, String> options = settings;
+        if (gzip) {
+            options = new LinkedHashMap<>(settings);
+            options.put("enable_http_compression", "1");
+        }
+        HttpResponse<InputStream> response = send(endpoint, query, parameters, options, gzip, null);
+        try (InputStream body = response.body()) {
+            boolean gzipped = response.headers().firstValue("Content-Encoding").map(GZIP::equalsIgnoreCase).orElse(false);
+            return handler.handle(body, gzipped);
+        }
+    }
+
+    /**
+     * Asks an endpoint to cancel a running query. Cancellation is asynchronous and best effort.
+     *
+     * @param endpoint the endpoint running the query
+     * @param queryId the {@code query_id} the query was started with
+     * @return true if the server accepted the request
+     */
+    public boolean killQuery(ClickHouseEndpoint endpoint, String queryId) {
+        try {
+            execute(endpoint, KILL_QUERY, Map.of("queryId", queryId), input -> null);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to kill ClickHouse query {} on {}: {}", queryId, endpoint, e.toString());
+            return false;
+        }
+    }
+
+    private HttpResponse<InputStream> send(ClickHouseEndpoint endpoint, ClickHouseQuery query,
+                                           Map<String, String> parameters, Map<String, String> settings,
+                                           boolean gzip, Cancellation cancellation) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(buildUri(endpoint, settings, parameters))
+                .timeout(requestTimeout)
+                .header(USER_HEADER, username)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(query.body()));
+        if (password != null && !password.isEmpty()) {
+            builder.header(KEY_HEADER, password);
+        }
+        if (gzip) {
+            builder.header("Accept-Encoding", GZIP);
+        }
+        HttpRequest request = builder.build();
+
+        HttpResponse<InputStream> response;
+        try {
+            if (cancellation == null) {
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } else {
+                // Cancelling the future of sendAsync aborts the exchange; blocking send offers no such hook
+                CompletableFuture<HttpResponse<InputStream>> pending =
+                        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+                cancellation.onCancel(() -> pending.cancel(true));
+                response = pending.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while querying ClickHouse at " + endpoint, e);
+        } catch (CancellationException e) {
+            throw new IOException("ClickHouse query " + query.name() + " on " + endpoint + " was cancelled", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("ClickHouse query " + query.name() + " on " + endpoint + " failed", e.getCause());
+        }
+
+        if (response.statusCode() != 200) {
+            try (InputStream body = response.body()) {
+                String error = new String(body.readNBytes(MAX_ERROR_BODY_BYTES), StandardCharsets.UTF_8).strip();
+                throw new IOException("ClickHouse " + endpoint + " returned HTTP " + response.statusCode()
+                        + " (code " + response.headers().firstValue(EXCEPTION_CODE_HEADER).orElse("?") + ") for query "
+                        + query.name() + ": " + error);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Checks that an endpoint answers on its {@code /ping} handler.
+     *
+     * @param endpoint the ClickHouse endpoint
+     * @return true if the server responded with HTTP 200
+     */
+    public boolean ping(ClickHouseEndpoint endpoint) {
+        HttpRequest request = HttpRequest.newBuilder(endpoint.baseUri().resolve("ping"))
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            logger.debug("Ping of ClickHouse {} failed: {}", endpoint, e.toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private URI buildUri(ClickHouseEndpoint endpoint, Map<String, String> settings, Map<String, String> parameters) {
+        StringBuilder uri = new StringBuilder(endpoint.baseUri().toString()).append('?');
+        if (endpoint.database() != null) {
+            uri.append("database=").append(encode(endpoint.database())).append('&');
+        }
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            uri.append(setting.getKey()).append('=').append(encode(setting.getValue())).append('&');
+        }
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            uri.append("param_").append(parameter.getKey()).append('=').append(encode(parameter.getValue())).append('&');
+        }
+        uri.setLength(uri.length() - 1);
+        if (logger.isTraceEnabled()) {
+            logger.trace("ClickHouse HTTP request URI: {}", uri);
+        }
+        return URI.create(uri.toString());
+    }
+
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close ClickHouse response body: {}", e.toString());
+        }
+    }
+
+    private static String encode(String value) {
+        // Percent-encode spaces rather than relying on the server's form decoding of '+'
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
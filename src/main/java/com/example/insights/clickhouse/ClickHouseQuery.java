@@ -0,0 +1,63 @@
+package com.example.insights.clickhouse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * A parameterized ClickHouse query prepared once and reused for every execution.
+ *
+ * The SQL uses server-side query parameters ({@code {name:Type}}), so the statement text is
+ * identical across calls and is encoded to bytes only once; per-call values travel as
+ * {@code param_name} URL parameters and are never spliced into the SQL.
+ */
+public final class ClickHouseQuery {
+
+    private final String name;
+    private final String sql;
+    private final byte[] body;
+
+    /**
+     * @param name short name used in logs and metrics
+     * @param sql the query, without a FORMAT clause
+     */
+    public ClickHouseQuery(String name, String sql) {
+        this(name, sql, "RowBinary");
+    }
+
+    /**
+     * @param name short name used in logs and metrics
+     * @param sql the query, without a FORMAT clause
+     * @param format the ClickHouse output format, e.g. {@code CSVWithNames}
+     */
+    public ClickHouseQuery(String name, String sql, String format) {
+        this.name = name;
+        this.sql = sql.strip() + "\nFORMAT " + format;
+        this.body = this.sql.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    byte[] body() {
+        return body;
+    }
+
+    /**
+     * Formats values as a ClickHouse Array(String) literal for a query parameter.
+     */
+    public static String arrayLiteral(Collection<String> values) {
+        StringBuilder literal = new StringBuilder("[");
+        for (String value : values) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append('\'').append(value.replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        }
+        return literal.append(']').toString();
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.insights.clickhouse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Routes ClickHouse reads across a set of replicas.
+ *
+ * <ul>
+ *   <li>Selection: power-of-two-choices over healthy replicas, preferring the lower EWMA latency.</li>
+ *   <li>Failover: a failed call is retried on the next best replica; replicas that fail
+ *       {@code failureThreshold} times in a row are taken out until a health probe succeeds.</li>
+ *   <li>Hedging (optional): if the first replica has not answered within its recent p95 latency,
+ *       the same call is sent to a second replica and whichever succeeds first wins. The losing
+ *       call is aborted through its {@link Cancellation}; if both fail, the remaining replicas are
+ *       tried in turn.</li>
+ * </ul>
+ * With a single replica and hedging off, calls run directly on the caller's thread.
+ *
+ * Replicas appear in logs and meter tags by {@code host:port} only, since their JDBC URLs may
+ * carry credentials.
+ */
+public class ClickHouseReplicaRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseReplicaRouter.class);
+    // States of a hedged call: whichever of the primary and the hedge timer gets there first wins
+    private static final int PRIMARY_RUNNING = 0;
+    private static final int PRIMARY_DONE = 1;
+    private static final int HEDGE_SENT = 2;
+
+    private final List<Replica> replicas;
+    private final double ewmaAlpha;
+    private final int failureThreshold;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final long minHedgeDelayNanos;
+    private final Duration callTimeout;
+    private final double failurePenaltyNanos;
+    private final ExecutorService hedgeExecutor;
+    private final ScheduledExecutorService hedgeScheduler;
+    private ScheduledExecutorService healthChecker;
+    private final Counter hedgesSent;
+    private final Counter primaryWins;
+    private final Counter hedgeWins;
+
+    /**
+     * A call against one replica, identified by its JDBC URL. The call registers with
+     * {@code cancellation} how to abort its query, so that it can be stopped when it loses a
+     * hedge race or times out.
+     */
+    @FunctionalInterface
+    public interface ReplicaCall<T> {
+        T call(String replicaUrl, Cancellation cancellation) throws Exception;
+    }
+
+    public ClickHouseReplicaRouter(List<String> replicaUrls,
+                                   double ewmaAlpha,
+                                   int failureThreshold,
+                                   boolean hedgingEnabled,
+                                   double hedgePercentile,
+                                   Duration minHedgeDelay,
+                                   Duration callTimeout,
+                                   int hedgeThreads,
+                                   MeterRegistry meterRegistry) {
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalArgumentException("At least one ClickHouse replica is required");
+        }
+        List<Replica> replicas = new ArrayList<>(replicaUrls.size());
+        for (String url : replicaUrls) {
+            String address = ClickHouseEndpoint.address(url);
+            replicas.add(new Replica(url, address != null ? address : "replica-" + replicas.size(), meterRegistry));
+        }
+        this.replicas = List.copyOf(replicas);
+        this.ewmaAlpha = ewmaAlpha;
+        this.failureThreshold = failureThreshold;
+        this.hedgingEnabled = hedgingEnabled && replicas.size() > 1;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelayNanos = minHedgeDelay.toNanos();
+        this.callTimeout = callTimeout;
+        // A failed call counts as at least a timed-out one, even for a replica without latency samples
+        this.failurePenaltyNanos = callTimeout.toNanos();
+        this.hedgeExecutor = this.hedgingEnabled ? Executors.newFixedThreadPool(hedgeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ch-hedge");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.hedgeScheduler = this.hedgingEnabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ch-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        this.hedgesSent = Counter.builder("insights.clickhouse.hedge.sent")
+                .description("Hedged requests sent to a second replica")
+                .register(meterRegistry);
+        this.primaryWins = Counter.builder("insights.clickhouse.hedge.wins")
+                .description("Which request answered first when a hedge was sent")
+                .tag("winner", "primary")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder("insights.clickhouse.hedge.wins")
+                .description("Which request answered first when a hedge was sent")
+                .tag("winner", "hedge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a call on the best replica, failing over and hedging as configured.
+     *
+     * @throws Exception the last replica's failure if every attempt failed
+     */
+    public <T> T execute(ReplicaCall<T> call) throws Exception {
+        List<Replica> candidates = rankCandidates();
+        if (hedgingEnabled && candidates.size() > 1) {
+            return executeHedged(call, candidates.get(0), candidates.get(1), candidates);
+        }
+
+        Exception lastFailure = null;
+        for (Replica replica : candidates) {
+            try {
+                return invoke(call, replica, new Cancellation());
+            } catch (Exception e) {
+                lastFailure = e;
+                logger.warn("ClickHouse replica {} failed, trying next replica. Error: {}", replica.label, e.getMessage());
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * Replicas in the order a call would try them, for long-running streamed reads that cannot be
+     * hedged or retried once output has started. Such reads are not timed: their duration depends
+     * on the result size, not on the replica.
+     */
+    public List<String> rankedReplicaUrls() {
+        return rankCandidates().stream().map(replica -> replica.url).toList();
+    }
+
+    /**
+     * The replicas' {@code host:port}, in configuration order, for logs.
+     */
+    public List<String> replicaAddresses() {
+        return replicas.stream().map(replica -> replica.label).toList();
+    }
+
+    /**
+     * Starts probing replicas in the background every {@code interval}.
+     *
+     * @param probe returns true if the replica answers a trivial query
+     */
+    public synchronized void startHealthChecks(Predicate<String> probe, Duration interval) {
+        if (healthChecker != null) {
+            return;
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ch-replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = interval.toMillis();
+        healthChecker.scheduleWithFixedDelay(() -> checkHealth(probe), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Probes replicas once, refreshes each replica's hedge delay and lets the EWMA of replicas that
+     * received no traffic since the last check drift towards the fastest one, so that a replica
+     * that was slow once is eventually tried again.
+     *
+     * @param probe returns true if the replica answers a trivial query
+     */
+    public void checkHealth(Predicate<String> probe) {
+        double fastest = replicas.stream().mapToDouble(Replica::ewmaNanos).filter(ewma -> ewma > 0).min().orElse(0);
+        for (Replica replica : replicas) {
+            replica.refreshHedgeDelay(hedgePercentile, minHedgeDelayNanos);
+            replica.decayIfIdle(fastest, ewmaAlpha);
+            boolean healthy;
+            try {
+                healthy = probe.test(replica.url);
+            } catch (RuntimeException e) {
+                healthy = false;
+            }
+            if (healthy && !replica.isHealthy(failureThreshold)) {
+                logger.info("ClickHouse replica {} passed its health probe and is back in rotation", replica.label);
+                replica.consecutiveFailures.set(0);
+            } else if (!healthy && replica.isHealthy(failureThreshold)) {
+                logger.warn("ClickHouse replica {} failed its health probe, taking it out of rotation", replica.label);
+                replica.consecutiveFailures.set(failureThreshold);
+            }
+        }
+    }
+
+    public List<String> replicaUrls() {
+        return replicas.stream().map(replica -> replica.url).toList();
+    }
+
+    public synchronized void shutdown() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        if (hedgeScheduler != null) {
+            hedgeScheduler.shutdownNow();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the primary leg on the caller's thread, so the hedge delay counts from the call itself
+     * and never includes time queued for a pool thread. A timer sends the hedge to the pool if the
+     * primary is still running after its delay; a hedge that wins aborts the primary, which makes
+     * the caller's blocked call return.
+     */
+    private <T> T executeHedged(ReplicaCall<T> call, Replica primary, Replica secondary, List<Replica> candidates)
+            throws Exception {
+        Cancellation primaryCancellation = new Cancellation();
+        Cancellation secondaryCancellation = new Cancellation();
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger state = new AtomicInteger(PRIMARY_RUNNING);
+        AtomicBoolean hedgeDone = new AtomicBoolean();
+        ScheduledFuture<?> hedgeTimer = hedgeScheduler.schedule(() -> {
+            if (!state.compareAndSet(PRIMARY_RUNNING, HEDGE_SENT)) {
+                return;
+            }
+            // The primary is slower than its own p95; race a second replica against it
+            hedgesSent.increment();
+            hedgeExecutor.execute(() -> {
+                if (secondaryCancellation.isCancelled()) {
+                    // The primary answered while the hedge waited for a pool thread
+                    return;
+                }
+                try {
+                    T value = invoke(call, secondary, secondaryCancellation);
+                    if (winner.complete(value)) {
+                        hedgeWins.increment();
+                        // Already on a pool thread, which is where aborts run
+                        primaryCancellation.cancel();
+                    }
+                } catch (Exception e) {
+                    if (failures.incrementAndGet() == 2) {
+                        winner.completeExceptionally(e);
+                    }
+                } finally {
+                    hedgeDone.set(true);
+                }
+            });
+        }, primary.hedgeDelayNanos, TimeUnit.NANOSECONDS);
+
+        T primaryValue = null;
+        Exception primaryFailure = null;
+        try {
+            primaryValue = invoke(call, primary, primaryCancellation);
+        } catch (Exception e) {
+            primaryFailure = e;
+        }
+
+        if (state.compareAndSet(PRIMARY_RUNNING, PRIMARY_DONE)) {
+            hedgeTimer.cancel(false);
+            if (primaryFailure == null) {
+                return primaryValue;
+            }
+            logger.warn("ClickHouse replica {} failed before hedge delay, failing over. Error: {}",
+                    primary.label, primaryFailure.getMessage());
+            return failover(call, candidates.subList(1, candidates.size()), primaryFailure);
+        }
+
+        try {
+            if (primaryFailure == null) {
+                if (winner.complete(primaryValue)) {
+                    primaryWins.increment();
+                }
+                return primaryValue;
+            }
+            if (!primaryCancellation.isCancelled() && failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(primaryFailure);
+            }
+            // Either the hedge won and aborted the primary, or the primary failed and the hedge decides
+            return winner.get(callTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            logger.warn("ClickHouse replicas {} and {} both failed, failing over. Error: {}",
+                    primary.label, secondary.label, e.getCause().getMessage());
+            return failover(call, candidates.subList(2, candidates.size()), e.getCause());
+        } finally {
+            // Covers a hedge still queued for a pool thread as well as one mid-query
+            if (!hedgeDone.get()) {
+                abort(secondaryCancellation);
+            }
+        }
+    }
+
+    /**
+     * Aborts a losing leg. Future.cancel would not interrupt a blocked JDBC or HTTP call, so the
+     * query itself is aborted; that may be a round trip (a JDBC statement cancel sends KILL QUERY),
+     * so it runs on the router's hedge pool rather than the caller's thread.
+     */
+    private void abort(Cancellation cancellation) {
+        try {
+            hedgeExecutor.execute(cancellation::cancel);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            cancellation.cancel();
+        }
+    }
+
+    private <T> T failover(ReplicaCall<T> call, List<Replica> remaining, Throwable firstFailure) throws Exception {
+        Exception lastFailure = unwrap(firstFailure);
+        for (Replica replica : remaining) {
+            try {
+                return invoke(call, replica, new Cancellation());
+            } catch (Exception e) {
+                lastFailure = e;
+                logger.warn("ClickHouse replica {} failed, trying next replica. Error: {}", replica.label, e.getMessage());
+            }
+        }
+        throw lastFailure;
+    }
+
+    private <T> T invoke(ReplicaCall<T> call, Replica replica, Cancellation cancellation) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = call.call(replica.url, cancellation);
+            replica.recordSuccess(System.nanoTime() - start, ewmaAlpha);
+            return result;
+        } catch (Exception e) {
+            if (!cancellation.isCancelled()) {
+                // A leg aborted after losing a race says nothing about the replica's health
+                replica.recordFailure(failurePenaltyNanos);
+            }
+            throw e;
+        }
+    }
+
+    private static Exception unwrap(Throwable error) {
+        return error instanceof Exception exception ? exception : new RuntimeException(error);
+    }
+
+    /**
+     * Orders replicas for one call: a power-of-two-choices winner first, then the remaining healthy
+     * replicas by EWMA, then unhealthy ones as a last resort.
+     */
+    private List<Replica> rankCandidates() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        List<Replica> unhealthy = new ArrayList<>();
+        for (Replica replica : replicas) {
+            (replica.isHealthy(failureThreshold) ? healthy : unhealthy).add(replica);
+        }
+        healthy.sort(Comparator.comparingDouble(Replica::ewmaNanos));
+        unhealthy.sort(Comparator.comparingDouble(Replica::ewmaNanos));
+
+        if (healthy.size() > 1) {
+            // Two random choices keep the fastest replica from absorbing all traffic
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int a = random.nextInt(healthy.size());
+            int b = random.nextInt(healthy.size() - 1);
+            if (b >= a) {
+                b++;
+            }
+            Replica chosen = healthy.get(Math.min(a, b));
+            healthy.remove(chosen);
+            healthy.add(0, chosen);
+        }
+        healthy.addAll(unhealthy);
+        return healthy;
+    }
+
+    /**
+     * Per-replica latency and health state.
+     */
+    private static final class Replica {
+
+        private static final int SAMPLE_WINDOW = 256;
+
+        final String url;
+        final String label;
+        final AtomicLong ewmaBits = new AtomicLong(Double.doubleToLongBits(0.0));
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final long[] samples = new long[SAMPLE_WINDOW];
+        final AtomicInteger sampleCursor = new AtomicInteger();
+        int cursorAtLastCheck;
+        final Timer latency;
+        volatile long hedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(50);
+
+        Replica(String url, String label, MeterRegistry meterRegistry) {
+            this.url = url;
+            this.label = label;
+            this.latency = Timer.builder("insights.clickhouse.replica.latency")
+                    .description("Latency of successful calls per ClickHouse replica")
+                    .tag("replica", label)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            Gauge.builder("insights.clickhouse.replica.ewma", this, replica -> replica.ewmaNanos() / 1_000_000.0)
+                    .description("EWMA latency used for replica selection")
+                    .tag("replica", label)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("insights.clickhouse.replica.hedge.delay", this, replica -> replica.hedgeDelayNanos / 1_000_000.0)
+                    .description("Delay after which a hedged request is sent for this replica")
+                    .tag("replica", label)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("insights.clickhouse.replica.failures", consecutiveFailures, AtomicInteger::get)
+                    .description("Consecutive failures of a ClickHouse replica")
+                    .tag("replica", label)
+                    .register(meterRegistry);
+        }
+
+        double ewmaNanos() {
+            return Double.longBitsToDouble(ewmaBits.get());
+        }
+
+        boolean isHealthy(int failureThreshold) {
+            return consecutiveFailures.get() < failureThreshold;
+        }
+
+        void recordSuccess(long nanos, double alpha) {
+            consecutiveFailures.set(0);
+            latency.record(nanos, TimeUnit.NANOSECONDS);
+            samples[Math.floorMod(sampleCursor.getAndIncrement(), SAMPLE_WINDOW)] = nanos;
+            long current;
+            double next;
+            do {
+                current = ewmaBits.get();
+                double ewma = Double.longBitsToDouble(current);
+                next = ewma == 0.0 ? nanos : alpha * nanos + (1 - alpha) * ewma;
+            } while (!ewmaBits.compareAndSet(current, Double.doubleToLongBits(next)));
+        }
+
+        void recordFailure(double floorNanos) {
+            consecutiveFailures.incrementAndGet();
+            // Penalize so that the replica loses power-of-two contests until it recovers; the floor
+            // makes this bite even when the EWMA is still 0 or tiny
+            long current;
+            do {
+                current = ewmaBits.get();
+            } while (!ewmaBits.compareAndSet(current,
+                    Double.doubleToLongBits(Math.max(floorNanos, Double.longBitsToDouble(current) * 2))));
+        }
+
+        void decayIfIdle(double target, double alpha) {
+            int cursor = sampleCursor.get();
+            boolean idle = cursor == cursorAtLastCheck;
+            cursorAtLastCheck = cursor;
+            double ewma = ewmaNanos();
+            if (idle && target > 0 && ewma > target) {
+                // Racing recordSuccess is harmless: whichever write lands last is a valid estimate
+                ewmaBits.set(Double.doubleToLongBits(ewma - alpha * (ewma - target)));
+            }
+        }
+
+        void refreshHedgeDelay(double percentile, long minDelayNanos) {
+            int recorded = Math.min(sampleCursor.get(), SAMPLE_WINDOW);
+            if (recorded == 0) {
+                return;
+            }
+            long[] window = Arrays.copyOf(samples, recorded);
+            Arrays.sort(window);
+            long quantile = window[Math.min(recorded - 1, (int) Math.ceil(percentile * recorded) - 1)];
+            hedgeDelayNanos = Math.max(minDelayNanos, quantile);
+        }
+    }
+}
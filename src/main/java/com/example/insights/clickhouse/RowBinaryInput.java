@@ -0,0 +1,92 @@
+package com.example.insights.clickhouse;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader for ClickHouse's RowBinary output format: little-endian fixed-width numbers and
+ * LEB128 length-prefixed strings, with no per-row framing.
+ */
+public final class RowBinaryInput {
+
+    private final InputStream in;
+    private final byte[] scratch = new byte[8];
+    private int peeked = -2;
+
+    public RowBinaryInput(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns true if at least one more byte (i.e. another row) is available.
+     */
+    public boolean hasMore() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked >= 0;
+    }
+
+    public long readInt64() throws IOException {
+        readFully(scratch, 8);
+        return (scratch[0] & 0xFFL)
+                | (scratch[1] & 0xFFL) << 8
+                | (scratch[2] & 0xFFL) << 16
+                | (scratch[3] & 0xFFL) << 24
+                | (scratch[4] & 0xFFL) << 32
+                | (scratch[5] & 0xFFL) << 40
+                | (scratch[6] & 0xFFL) << 48
+                | (scratch[7] & 0xFFL) << 56;
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt();
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        readFully(bytes, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed RowBinary string length");
+    }
+
+    private int readByte() throws IOException {
+        if (peeked != -2) {
+            int b = peeked;
+            peeked = -2;
+            if (b < 0) {
+                throw new EOFException("Unexpected end of RowBinary stream");
+            }
+            return b;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of RowBinary stream");
+        }
+        return b;
+    }
+
+    private void readFully(byte[] target, int length) throws IOException {
+        int offset = 0;
+        if (length > 0 && peeked != -2) {
+            target[offset++] = (byte) readByte();
+        }
+        while (offset < length) {
+            int read = in.read(target, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of RowBinary stream");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.insights.cluster;
+
+import java.util.Set;
+
+/**
+ * The instances serving this deployment, each identified by the base URL other instances reach
+ * it at (e.g. {@code http://10.0.0.12:8080}).
+ */
+public interface ClusterMembership {
+
+    /**
+     * The URL of this instance.
+     */
+    String self();
+
+    /**
+     * The instances currently taking part in partitioning, this one included while it is healthy.
+     * Implementations return a stable view between changes, so callers can compare sets to detect
+     * membership changes.
+     */
+    Set<String> members();
+}
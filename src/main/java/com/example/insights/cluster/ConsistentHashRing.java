@@ -0,0 +1,91 @@
+package com.example.insights.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An immutable consistent-hash ring mapping tenant campaigns to members.
+ *
+ * Every member is placed at {@code virtualNodes} points of a 64-bit ring and a key is owned by
+ * the first point at or after its hash. When a member joins it takes over only the arcs ending
+ * at its own points, and when one leaves only its arcs move to their successors: about 1/n of
+ * the keys change owner, whereas hashing modulo the member count would move nearly all of them.
+ * The virtual nodes even out the arc lengths, keeping each member's share close to 1/n.
+ */
+final class ConsistentHashRing {
+
+    private final Set<String> members;
+    // Point hashes in ascending order and the member at each
+    private final long[] points;
+    private final String[] owners;
+
+    ConsistentHashRing(Set<String> members, int virtualNodes) {
+        this.members = Set.copyOf(members);
+        // Sorted, so that members whose points collide always resolve the same way
+        String[] sorted = new TreeSet<>(members).toArray(String[]::new);
+        long[] hashes = new long[sorted.length * virtualNodes];
+        int[] index = new int[hashes.length];
+        for (int m = 0; m < sorted.length; m++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                hashes[m * virtualNodes + v] = hash(sorted[m] + "#" + v);
+                index[m * virtualNodes + v] = m;
+            }
+        }
+        Integer[] order = new Integer[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> hashes[a] != hashes[b] ? Long.compare(hashes[a], hashes[b]) : Integer.compare(index[a], index[b]));
+        this.points = new long[hashes.length];
+        this.owners = new String[hashes.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = sorted[index[order[i]]];
+        }
+    }
+
+    /**
+     * The member owning a tenant's campaign, or null if the ring is empty. All metrics of a
+     * campaign share an owner, so they are loaded together.
+     */
+    String owner(String tenantId, String campaignId) {
+        if (points.length == 0) {
+            return null;
+        }
+        long h = hash((tenantId != null ? tenantId : "") + "\u0000" + campaignId);
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) {
+            i = -i - 1;
+        } else {
+            // Several points may share the hash; take the first
+            while (i > 0 && points[i - 1] == h) {
+                i--;
+            }
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    Set<String> members() {
+        return members;
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with MurmurHash3's 64-bit mixer so that similar
+     * strings (member URLs differing in one digit, sequential campaign ids) spread over the ring.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.insights.cluster;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Assigns every tenant campaign to the instance that owns its cache partition.
+ *
+ * The ring is rebuilt whenever {@link ClusterMembership} reports a different set of members and
+ * swapped in as a whole, so lookups never lock and always see one consistent ring. Instances may
+ * briefly disagree about the members after a change; a forwarded request is always served by the
+ * instance it was forwarded to, so that never causes more than one hop.
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class PartitionRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionRouter.class);
+
+    private final ClusterMembership membership;
+    private final int virtualNodes;
+
+    private volatile ConsistentHashRing ring;
+
+    public PartitionRouter(ClusterMembership membership,
+                           MeterRegistry meterRegistry,
+                           @Value("${cluster.virtual-nodes:128}") int virtualNodes) {
+        this.membership = membership;
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing(membership.members(), virtualNodes);
+        logger.info("Partitioning tenant campaigns over {} member(s) as {}", ring.members().size(), membership.self());
+
+        Gauge.builder("insights.cluster.members", this, router -> router.ring.members().size())
+                .description("Instances the tenant campaign partitions are spread over")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The URL of the instance owning a tenant's campaign.
+     */
+    public String owner(String tenantId, String campaignId) {
+        String owner = ring.owner(tenantId, campaignId);
+        return owner != null ? owner : membership.self();
+    }
+
+    /**
+     * Whether a URL is one of the instances the ring is currently built from.
+     */
+    public boolean isMember(String url) {
+        return ring.members().contains(url);
+    }
+
+    public boolean isSelf(String member) {
+        return membership.self().equals(member);
+    }
+
+    public String self() {
+        return membership.self();
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.ring-refresh-interval:PT1S}")
+    public void refreshRing() {
+        ConsistentHashRing current = ring;
+        Set<String> members = membership.members();
+        if (members.equals(current.members())) {
+            return;
+        }
+        if (members.isEmpty()) {
+            logger.warn("Cluster membership is empty, keeping {} member(s)", current.members().size());
+            return;
+        }
+        ring = new ConsistentHashRing(members, virtualNodes);
+        logger.info("Cluster membership changed from {} to {} member(s): {}",
+                current.members().size(), members.size(), members);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.insights.cluster;
+
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.security.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends campaign requests to the instance owning the tenant campaign, so each key is cached and
+ * loaded from ClickHouse on one instance only.
+ *
+ * Runs after authentication, on handlers with a {@code campaignId} path variable. With
+ * {@code cluster.routing=hint} the request is served locally and {@value #OWNER_HEADER} names the
+ * owner's URL, so a load balancer that honours the hint goes to the owner next time; with
+ * {@code cluster.routing=forward} requests owned elsewhere are proxied to the owner. As it holds
+ * internal URLs, the owner header is only set on forwarded requests and on requests from
+ * {@code cluster.internal-networks}.
+ *
+ * A forwarded request carries a short-lived token for the caller's tenant, signed with the shared
+ * JWT secret and naming the forwarding member, instead of the caller's own token, which never
+ * leaves this instance. A request is treated as forwarded, and always served locally, only if its
+ * {@value #FORWARDED_BY_HEADER} matches such a token from a current member; the header alone is
+ * ignored. A request whose owner cannot be reached is served locally as well.
+ */
+public class PartitionRoutingInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionRoutingInterceptor.class);
+
+    public static final String OWNER_HEADER = "X-Insights-Owner";
+    public static final String FORWARDED_BY_HEADER = "X-Insights-Forwarded-By";
+
+    private static final String CAMPAIGN_ID_VARIABLE = "campaignId";
+    private static final String BEARER_PREFIX = "Bearer ";
+    // Covers the forward timeout and clock skew between instances
+    private static final Duration FORWARD_TOKEN_TTL = Duration.ofMinutes(1);
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT);
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, "Server-Timing");
+
+    /**
+     * What is done with requests owned by another instance.
+     */
+    public enum Mode {
+        HINT, FORWARD;
+
+        public static Mode parse(String value) {
+            return switch (value) {
+                case "hint" -> HINT;
+                case "forward" -> FORWARD;
+                default -> throw new IllegalStateException("Unknown cluster.routing: " + value + ", expected hint or forward");
+            };
+        }
+    }
+
+    private final PartitionRouter router;
+    private final Mode mode;
+    private final JwtUtil jwtUtil;
+    private final List<IpAddressMatcher> internalNetworks;
+    private final HttpClient httpClient;
+    private final Duration forwardTimeout;
+
+    private final Counter localCounter;
+    private final Counter hintedCounter;
+    private final Counter forwardedCounter;
+    private final Counter fallbackCounter;
+    private final Counter receivedCounter;
+    private final Counter untrustedCounter;
+    private final Timer forwardTimer;
+
+    /**
+     * @param internalNetworks addresses or CIDR ranges of callers that may see the owner header,
+     *                         such as the load balancer's
+     */
+    public PartitionRoutingInterceptor(PartitionRouter router, Mode mode, JwtUtil jwtUtil,
+                                       List<String> internalNetworks, Duration connectTimeout,
+                                       Duration forwardTimeout, MeterRegistry meterRegistry) {
+        this.router = router;
+        this.mode = mode;
+        this.jwtUtil = jwtUtil;
+        this.internalNetworks = internalNetworks.stream().map(IpAddressMatcher::new).toList();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.forwardTimeout = forwardTimeout;
+
+        this.localCounter = routeCounter(meterRegistry, "local");
+        this.hintedCounter = routeCounter(meterRegistry, "hinted");
+        this.forwardedCounter = routeCounter(meterRegistry, "forwarded");
+        this.fallbackCounter = routeCounter(meterRegistry, "fallback");
+        this.receivedCounter = routeCounter(meterRegistry, "received");
+        this.untrustedCounter = routeCounter(meterRegistry, "untrusted");
+        this.forwardTimer = Timer.builder("insights.cluster.forward")
+                .description("Time to proxy a request to the owning instance")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        String campaignId = campaignId(request);
+        if (campaignId == null) {
+            return true;
+        }
+        String forwardedBy = request.getHeader(FORWARDED_BY_HEADER);
+        if (forwardedBy != null) {
+            if (isForwardedByMember(request, forwardedBy)) {
+                receivedCounter.increment();
+                response.setHeader(OWNER_HEADER, router.self());
+                return true;
+            }
+            // Routed like any other request, so a client cannot use the header to skip routing
+            untrustedCounter.increment();
+            logger.debug("Ignoring {} {} without a forward token from a cluster member", FORWARDED_BY_HEADER, forwardedBy);
+        }
+
+        String owner = router.owner(TenantContext.getTenantId(), campaignId);
+        if (isInternal(request)) {
+            response.setHeader(OWNER_HEADER, owner);
+        }
+        if (router.isSelf(owner)) {
+            localCounter.increment();
+            return true;
+        }
+        if (mode == Mode.HINT || !"GET".equals(request.getMethod())) {
+            hintedCounter.increment();
+            return true;
+        }
+        if (forward(request, response, owner)) {
+            forwardedCounter.increment();
+            return false;
+        }
+        fallbackCounter.increment();
+        return true;
+    }
+
+    /**
+     * Proxies the request to the owner and copies its response.
+     *
+     * @return false if the owner could not be reached, with the response still untouched
+     */
+    private boolean forward(HttpServletRequest request, HttpServletResponse response, String owner) throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(owner + request.getRequestURI() + (query != null ? "?" + query : "")))
+                .timeout(forwardTimeout)
+                .header(FORWARDED_BY_HEADER, router.self())
+                .header(HttpHeaders.AUTHORIZATION, BEARER_PREFIX
+                        + jwtUtil.generateForwardToken(TenantContext.getTenantId(), router.self(), FORWARD_TOKEN_TTL))
+                .GET();
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                builder.header(name, value);
+            }
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> forwarded;
+        try {
+            forwarded = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            logger.warn("Owner {} unreachable, serving {} locally: {}", owner, request.getRequestURI(), e.toString());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        try (InputStream body = forwarded.body()) {
+            response.setStatus(forwarded.statusCode());
+            for (String name : FORWARDED_RESPONSE_HEADERS) {
+                forwarded.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+            }
+            body.transferTo(response.getOutputStream());
+        } finally {
+            forwardTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the request carries a forward token naming the member in its forwarded-by header,
+     * and that member is part of the cluster.
+     */
+    private boolean isForwardedByMember(HttpServletRequest request, String forwardedBy) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        String tokenForwardedBy = jwtUtil.extractForwardedBy(authorization.substring(BEARER_PREFIX.length()));
+        return forwardedBy.equals(tokenForwardedBy) && router.isMember(forwardedBy);
+    }
+
+    private boolean isInternal(HttpServletRequest request) {
+        for (IpAddressMatcher network : internalNetworks) {
+            if (network.matches(request.getRemoteAddr())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String campaignId(HttpServletRequest request) {
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return variables instanceof Map<?, ?> map ? ((Map<String, String>) map).get(CAMPAIGN_ID_VARIABLE) : null;
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("insights.cluster.routes")
+                .description("Campaign requests by routing outcome: served as owner (local), hinted to the owner, "
+                        + "forwarded to it, served locally because it was unreachable (fallback), received from another instance "
+                        + "or carrying a forwarded-by header without a member's forward token (untrusted)")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.insights.cluster;
+
+import com.example.insights.constants.RedisKeyConstants;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Membership from a registry in Redis: a sorted set of instance URLs scored by the time of their
+ * last heartbeat. Every instance refreshes its own entry and reads the entries seen within the
+ * member TTL, so instances join on start-up, leave on shutdown and drop out after a crash once
+ * their heartbeat is older than the TTL.
+ *
+ * Scores are each instance's own clock, so the TTL must comfortably exceed both the heartbeat
+ * interval and the clock skew between instances. While Redis cannot be reached the last known
+ * members are kept, so an outage does not reshuffle every partition.
+ */
+public class RedisClusterMembership implements ClusterMembership {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisClusterMembership.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final String self;
+    private final long ttlMillis;
+
+    private volatile Set<String> members;
+    private volatile boolean left;
+
+    public RedisClusterMembership(StringRedisTemplate redisTemplate, String clusterName, String self, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.key = RedisKeyConstants.buildClusterMembersKey(clusterName);
+        this.self = self;
+        this.ttlMillis = ttl.toMillis();
+        this.members = Set.of(self);
+    }
+
+    @PostConstruct
+    public void join() {
+        heartbeat();
+        logger.info("Joined cluster registry {} as {} with {} member(s)", key, self, members.size());
+    }
+
+    /**
+     * Refreshes this instance's entry, prunes expired ones and reads the live members.
+     */
+    @Scheduled(fixedDelayString = "${cluster.redis.heartbeat-interval:PT2S}")
+    public void heartbeat() {
+        if (left) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForZSet().add(key, self, now);
+            redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now - ttlMillis - 1);
+            Set<String> live = redisTemplate.opsForZSet().rangeByScore(key, now - ttlMillis, Double.POSITIVE_INFINITY);
+            if (live != null && !live.isEmpty()) {
+                Set<String> current = Set.copyOf(live);
+                if (!current.equals(members)) {
+                    members = current;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to refresh cluster registry {}, keeping {} known member(s): {}",
+                    key, members.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Deregisters when the context starts closing, before the Redis connection factory is stopped,
+     * so the others take over this instance's partitions while it drains its requests.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void leave() {
+        left = true;
+        try {
+            redisTemplate.opsForZSet().remove(key, self);
+            logger.info("Left cluster registry {}", key);
+        } catch (Exception e) {
+            logger.warn("Failed to leave cluster registry {}; the entry expires after the member TTL: {}",
+                    key, e.getMessage());
+        }
+    }
+
+    @Override
+    public String self() {
+        return self;
+    }
+
+    @Override
+    public Set<String> members() {
+        return members;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.insights.cluster;
+
+import java.util.Set;
+
+/**
+ * Membership from configuration: a fixed list of instance URLs, as for a StatefulSet behind a
+ * headless service. Instances that are down keep owning their partitions; the routing
+ * interceptor then serves those keys locally.
+ */
+public class StaticClusterMembership implements ClusterMembership {
+
+    private final String self;
+    private final Set<String> members;
+
+    public StaticClusterMembership(String self, Set<String> members) {
+        this.self = self;
+        this.members = Set.copyOf(members);
+    }
+
+    @Override
+    public String self() {
+        return self;
+    }
+
+    @Override
+    public Set<String> members() {
+        return members;
+    }
+}
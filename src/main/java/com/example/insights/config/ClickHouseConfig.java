@@ -1,8 +1,68 @@
 package com.example.insights.config;
 
+import com.example.insights.clickhouse.ClickHouseEndpoint;
+import com.example.insights.clickhouse.ClickHouseHttpClient;
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ClickHouse replica routing.
+ *
+ * {@code clickhouse.replicas} lists the JDBC URLs of every replica serving reads; when empty,
+ * {@code clickhouse.url} is the only replica. Both the JDBC and HTTP repositories send their
+ * queries through the router, which picks replicas by observed latency, fails over on errors
+ * and, with {@code clickhouse.routing.hedge.enabled=true}, hedges slow reads.
+ */
 @Configuration
 public class ClickHouseConfig {
-    // Using simple JDBC, nothing to configure here
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseConfig.class);
+
+    @Bean(destroyMethod = "shutdown")
+    public ClickHouseReplicaRouter clickHouseReplicaRouter(
+            @Value("${clickhouse.url:jdbc:clickhouse://localhost:8123/shopstream}") String url,
+            @Value("${clickhouse.replicas:}") String replicas,
+            @Value("${clickhouse.username:default}") String username,
+            @Value("${clickhouse.password:}") String password,
+            @Value("${clickhouse.routing.ewma-alpha:0.2}") double ewmaAlpha,
+            @Value("${clickhouse.routing.failure-threshold:3}") int failureThreshold,
+            @Value("${clickhouse.routing.health-check-interval:PT5S}") Duration healthCheckInterval,
+            @Value("${clickhouse.routing.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${clickhouse.routing.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${clickhouse.routing.hedge.min-delay:PT0.005S}") Duration minHedgeDelay,
+            @Value("${clickhouse.routing.hedge.timeout:PT5S}") Duration hedgeTimeout,
+            @Value("${clickhouse.routing.hedge.threads:32}") int hedgeThreads,
+            MeterRegistry meterRegistry) {
+
+        List<String> replicaUrls = Arrays.stream(replicas.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+        if (replicaUrls.isEmpty()) {
+            replicaUrls = List.of(url);
+        }
+
+        ClickHouseReplicaRouter router = new ClickHouseReplicaRouter(replicaUrls, ewmaAlpha, failureThreshold,
+                hedgeEnabled, hedgePercentile, minHedgeDelay, hedgeTimeout, hedgeThreads, meterRegistry);
+
+        if (replicaUrls.size() > 1) {
+            ClickHouseHttpClient probeClient = new ClickHouseHttpClient(username, password, Duration.ofSeconds(1), false);
+            router.startHealthChecks(replicaUrl -> probeClient.ping(ClickHouseEndpoint.fromJdbcUrl(replicaUrl)),
+                    healthCheckInterval);
+        }
+
+        logger.info("ClickHouse replica router initialized with replicas: {}, hedging: {}",
+                router.replicaAddresses(), hedgeEnabled && replicaUrls.size() > 1);
+        return router;
+    }
 }
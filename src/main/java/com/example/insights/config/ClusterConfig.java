@@ -0,0 +1,132 @@
+package com.example.insights.config;
+
+import com.example.insights.cluster.ClusterMembership;
+import com.example.insights.cluster.PartitionRouter;
+import com.example.insights.cluster.PartitionRoutingInterceptor;
+import com.example.insights.cluster.RedisClusterMembership;
+import com.example.insights.cluster.StaticClusterMembership;
+import com.example.insights.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Wires tenant campaign partitioning, used when {@code cluster.enabled=true}: membership from
+ * {@code cluster.membership=static} (the {@code cluster.members} list) or {@code redis} (a
+ * heartbeat registry), and the interceptor that hints or forwards campaign requests to their
+ * owner. Another membership source can be plugged in by declaring a {@link ClusterMembership} bean.
+ *
+ * Other instances reach this one at {@code cluster.self}. Startup fails if it is unset or a
+ * loopback address while Redis membership or forwarding is in use, as every instance would then
+ * register or forward to itself.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+public class ClusterConfig implements WebMvcConfigurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterConfig.class);
+
+    private final ObjectProvider<PartitionRouter> router;
+    private final JwtUtil jwtUtil;
+    private final MeterRegistry meterRegistry;
+    private final String routing;
+    private final List<String> internalNetworks;
+    private final Duration connectTimeout;
+    private final Duration forwardTimeout;
+
+    public ClusterConfig(ObjectProvider<PartitionRouter> router,
+                         JwtUtil jwtUtil,
+                         MeterRegistry meterRegistry,
+                         @Value("${cluster.routing:hint}") String routing,
+                         @Value("${cluster.internal-networks:127.0.0.0/8,::1/128}") List<String> internalNetworks,
+                         @Value("${cluster.forward.connect-timeout:PT0.2S}") Duration connectTimeout,
+                         @Value("${cluster.forward.timeout:PT2S}") Duration forwardTimeout) {
+        this.router = router;
+        this.jwtUtil = jwtUtil;
+        this.meterRegistry = meterRegistry;
+        this.routing = routing;
+        this.internalNetworks = internalNetworks.stream().map(String::trim).filter(network -> !network.isEmpty()).toList();
+        this.connectTimeout = connectTimeout;
+        this.forwardTimeout = forwardTimeout;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(ClusterMembership.class)
+    public ClusterMembership clusterMembership(@Value("${cluster.membership:static}") String membership,
+                                               @Value("${cluster.self:http://localhost:${server.port:8080}}") String self,
+                                               @Value("${cluster.members:}") String members,
+                                               @Value("${cluster.name:insights}") String clusterName,
+                                               @Value("${cluster.redis.member-ttl:PT10S}") Duration memberTtl,
+                                               ObjectProvider<StringRedisTemplate> redisTemplate) {
+        if ("redis".equals(membership) || "forward".equals(routing)) {
+            requireReachableSelf(self, membership);
+        }
+        return switch (membership) {
+            case "static" -> {
+                Set<String> list = new LinkedHashSet<>();
+                Arrays.stream(members.split(","))
+                        .map(String::trim)
+                        .filter(member -> !member.isEmpty())
+                        .forEach(list::add);
+                if (!list.contains(self)) {
+                    logger.warn("cluster.self {} is not in cluster.members {}; this instance owns no partition", self, list);
+                }
+                if (list.isEmpty()) {
+                    list.add(self);
+                }
+                logger.info("Static cluster membership: {}", list);
+                yield new StaticClusterMembership(self, list);
+            }
+            case "redis" -> {
+                logger.info("Cluster membership from Redis registry '{}' as {}", clusterName, self);
+                yield new RedisClusterMembership(redisTemplate.getObject(), clusterName, self, memberTtl);
+            }
+            default -> throw new IllegalStateException("Unknown cluster.membership: " + membership + ", expected static or redis");
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        PartitionRoutingInterceptor.Mode mode = PartitionRoutingInterceptor.Mode.parse(routing);
+        logger.info("Routing campaign requests to their owner by {}", routing);
+        registry.addInterceptor(new PartitionRoutingInterceptor(router.getObject(), mode, jwtUtil, internalNetworks,
+                        connectTimeout, forwardTimeout, meterRegistry))
+                .addPathPatterns("/api/v1/ad/**");
+    }
+
+    private void requireReachableSelf(String self, String membership) {
+        String host = null;
+        try {
+            host = URI.create(self).getHost();
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        if (host == null || isLoopback(host)) {
+            throw new IllegalStateException("cluster.self must be set to the URL other instances reach this one at "
+                    + "when cluster.membership=" + membership + " and cluster.routing=" + routing + ", got: '" + self + "'");
+        }
+    }
+
+    private static boolean isLoopback(String host) {
+        String name = host.toLowerCase(Locale.ROOT);
+        return name.equals("localhost") || name.endsWith(".localhost") || name.startsWith("127.")
+                || name.equals("[::1]") || name.equals("0.0.0.0") || name.equals("[::]");
+    }
+}
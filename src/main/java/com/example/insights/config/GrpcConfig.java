@@ -0,0 +1,119 @@
+package com.example.insights.config;
+
+import com.example.insights.grpc.AdInsightsGrpcService;
+import com.example.insights.grpc.GrpcServerLifecycle;
+import com.example.insights.grpc.JwtServerInterceptor;
+import com.example.insights.security.JwtUtil;
+import com.example.insights.service.AdInsightsService;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.protobuf.services.ProtoReflectionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * gRPC server for internal high-QPS consumers, on its own port next to the REST API.
+ *
+ * Netty serves HTTP/2, so each client keeps a few long-lived connections and multiplexes its
+ * concurrent calls over them as streams ({@code grpc.max-concurrent-calls-per-connection}).
+ * Keepalive pings keep idle connections through load balancers and detect dead peers. Calls are
+ * authenticated with the same JWTs as REST ({@link JwtServerInterceptor}); the standard health
+ * service (and optionally reflection) is served without authentication.
+ *
+ * Off unless {@code grpc.enabled=true}. The port serves plaintext HTTP/2 unless
+ * {@code grpc.tls.certificate-chain} and {@code grpc.tls.private-key} are set, and bearer tokens
+ * then cross the network in the clear, so without TLS it must only be reachable from inside the
+ * deployment's private network, never exposed through a public load balancer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "grpc.enabled", havingValue = "true")
+public class GrpcConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcConfig.class);
+
+    @Bean
+    public AdInsightsGrpcService adInsightsGrpcService(
+            AdInsightsService adInsightsService,
+            @Value("${grpc.subscription.default-interval:PT5S}") Duration defaultInterval,
+            @Value("${grpc.subscription.min-interval:PT0.5S}") Duration minInterval,
+            @Value("${grpc.max-keys-per-call:1000}") int maxKeys,
+            @Value("${grpc.subscription.max-per-tenant:20}") int maxSubscriptionsPerTenant,
+            @Value("${grpc.subscription.threads:4}") int subscriptionThreads,
+            MeterRegistry meterRegistry) {
+        return new AdInsightsGrpcService(adInsightsService, defaultInterval, minInterval, maxKeys,
+                maxSubscriptionsPerTenant, subscriptionThreads, meterRegistry);
+    }
+
+    @Bean
+    public GrpcServerLifecycle grpcServerLifecycle(
+            AdInsightsGrpcService adInsightsGrpcService,
+            JwtUtil jwtUtil,
+            MeterRegistry meterRegistry,
+            @Value("${grpc.port:9090}") int port,
+            @Value("${grpc.executor-threads:64}") int executorThreads,
+            @Value("${grpc.max-concurrent-calls-per-connection:1000}") int maxConcurrentCallsPerConnection,
+            @Value("${grpc.max-inbound-message-size:4194304}") int maxInboundMessageSize,
+            @Value("${grpc.keepalive.time:PT30S}") Duration keepAliveTime,
+            @Value("${grpc.keepalive.timeout:PT10S}") Duration keepAliveTimeout,
+            @Value("${grpc.keepalive.permit-time:PT10S}") Duration permitKeepAliveTime,
+            @Value("${grpc.reflection.enabled:false}") boolean reflectionEnabled,
+            @Value("${grpc.tls.certificate-chain:}") String certificateChain,
+            @Value("${grpc.tls.private-key:}") String privateKey,
+            @Value("${grpc.shutdown-grace-period:PT10S}") Duration shutdownGracePeriod) {
+
+        // Lookups block on Redis and ClickHouse, so calls run on a bounded pool, not the event loops
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(executorThreads, runnable -> {
+            Thread thread = new Thread(runnable, "grpc-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HealthStatusManager health = new HealthStatusManager();
+        NettyServerBuilder builder = NettyServerBuilder.forPort(port)
+                .executor(executor)
+                .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                .maxInboundMessageSize(maxInboundMessageSize)
+                .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(keepAliveTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .permitKeepAliveTime(permitKeepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .permitKeepAliveWithoutCalls(true)
+                .intercept(new MetricCollectingServerInterceptor(meterRegistry))
+                .addService(ServerInterceptors.intercept(adInsightsGrpcService, new JwtServerInterceptor(jwtUtil)))
+                .addService(health.getHealthService());
+        if (reflectionEnabled) {
+            builder.addService(ProtoReflectionService.newInstance());
+        }
+        boolean tls = StringUtils.hasText(certificateChain) || StringUtils.hasText(privateKey);
+        if (tls) {
+            if (!StringUtils.hasText(certificateChain) || !StringUtils.hasText(privateKey)) {
+                throw new IllegalStateException("grpc.tls.certificate-chain and grpc.tls.private-key must be set together");
+            }
+            builder.useTransportSecurity(new File(certificateChain), new File(privateKey));
+        } else {
+            logger.warn("gRPC server on port {} is plaintext; keep it internal or set grpc.tls.certificate-chain and grpc.tls.private-key",
+                    port);
+        }
+        Server server = builder.build();
+
+        logger.info("gRPC server configured on port: {}, TLS: {}, executor threads: {}, max concurrent calls per connection: {}",
+                port, tls, executorThreads, maxConcurrentCallsPerConnection);
+        return new GrpcServerLifecycle(server, adInsightsGrpcService, executor, shutdownGracePeriod);
+    }
+}
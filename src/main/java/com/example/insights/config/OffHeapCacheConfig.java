@@ -0,0 +1,48 @@
+package com.example.insights.config;
+
+import com.example.insights.cache.OffHeapMetricStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires the embedded off-heap metric store used when {@code cache.backend=offheap}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cache.backend", havingValue = "offheap")
+public class OffHeapCacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapCacheConfig.class);
+
+    @Bean
+    public OffHeapMetricStore offHeapMetricStore(@Value("${cache.offheap.segments:64}") int segments,
+                                                 @Value("${cache.offheap.initial-capacity:16384}") int initialCapacity,
+                                                 @Value("${cache.offheap.max-entries:50000000}") long maxEntries,
+                                                 MeterRegistry meterRegistry) {
+        OffHeapMetricStore store = new OffHeapMetricStore(segments, initialCapacity, maxEntries);
+
+        Gauge.builder("insights.cache.offheap.entries", store, OffHeapMetricStore::size)
+                .description("Entries held by the off-heap metric store, including unswept expired entries")
+                .register(meterRegistry);
+        Gauge.builder("insights.cache.offheap.reserved.bytes", store, OffHeapMetricStore::reservedBytes)
+                .description("Off-heap bytes reserved by the metric store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("insights.cache.offheap.evictions", store, OffHeapMetricStore::evictions)
+                .description("Entries evicted from full off-heap segments to make room for new keys")
+                .register(meterRegistry);
+        FunctionCounter.builder("insights.cache.offheap.rejected.puts", store, OffHeapMetricStore::rejectedPuts)
+                .description("Writes dropped because an off-heap segment could not grow any further")
+                .register(meterRegistry);
+
+        logger.info("Off-heap metric store initialized with {} segments, {} initial slots per segment, max entries: {}",
+                segments, initialCapacity, maxEntries);
+        return store;
+    }
+}
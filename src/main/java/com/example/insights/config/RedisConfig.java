@@ -1,8 +1,233 @@
 package com.example.insights.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration.LettuceClientConfigurationBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection.PipeliningFlushPolicy;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Redis connection configuration.
+ *
+ * The Lettuce connection factory is built here for both topologies rather than left to Spring
+ * Boot, so the connection model in use is explicit:
+ * <ul>
+ *   <li>{@code redis.connection.mode=multiplexed} (default): every thread shares one native
+ *   connection per node, and Lettuce pipelines their commands over it. Blocking and transactional
+ *   commands still take a dedicated connection.</li>
+ *   <li>{@code redis.connection.mode=pooled}: each operation borrows a connection of its own from
+ *   a commons-pool2 pool sized by {@code redis.connection.pool.*}, and waits for one when all are
+ *   in use.</li>
+ * </ul>
+ * {@code redis.connection.pipelining-flush} controls when pipelined commands are flushed to the
+ * socket: after each command, on close, or every N commands. Buffering takes a dedicated
+ * connection per pipeline, which is only cheap in pooled mode.
+ *
+ * With {@code redis.topology=standalone} (default) the node is {@code spring.data.redis.host}
+ * and {@code port}. With {@code redis.topology=cluster} commands are routed by hash slot, the
+ * client follows MOVED/ASK redirects, the slot map is refreshed periodically and on topology
+ * events, and reads may be served by replicas according to {@code redis.read-from}.
+ *
+ * Both use the client resources Spring Boot configures, which carry the command latency
+ * recorder: with a meter registry, every command's time to first response and to completion is
+ * published as {@code lettuce.command.firstresponse} and {@code lettuce.command.completion},
+ * tagged by command type and node.
+ */
 @Configuration
 public class RedisConfig {
-    // Spring Boot auto-configures RedisTemplate via application.yml
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+
+    /**
+     * How the application's threads share Redis connections.
+     */
+    public enum ConnectionMode {
+        MULTIPLEXED,
+        POOLED;
+
+        public static ConnectionMode parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(
+            @Value("${redis.topology:standalone}") String topology,
+            @Value("${spring.data.redis.host:localhost}") String host,
+            @Value("${spring.data.redis.port:6379}") int port,
+            @Value("${spring.data.redis.database:0}") int database,
+            @Value("${redis.cluster.nodes:}") String nodes,
+            @Value("${redis.cluster.max-redirects:3}") int maxRedirects,
+            @Value("${redis.cluster.topology-refresh-period:PT30S}") Duration topologyRefreshPeriod,
+            @Value("${redis.read-from:upstream}") String readFrom,
+            @Value("${redis.command-timeout:PT3S}") Duration commandTimeout,
+            @Value("${redis.shutdown-timeout:PT0.1S}") Duration shutdownTimeout,
+            @Value("${spring.data.redis.password:}") String password,
+            @Value("${redis.connection.mode:multiplexed}") String mode,
+            @Value("${redis.connection.pipelining-flush:each-command}") String pipeliningFlush,
+            @Value("${redis.connection.pool.max-active:8}") int poolMaxActive,
+            @Value("${redis.connection.pool.max-idle:8}") int poolMaxIdle,
+            @Value("${redis.connection.pool.min-idle:2}") int poolMinIdle,
+            @Value("${redis.connection.pool.max-wait:PT1S}") Duration poolMaxWait,
+            ClientResources clientResources) {
+
+        ConnectionMode connectionMode = ConnectionMode.parse(mode);
+        SocketOptions socketOptions = SocketOptions.builder().connectTimeout(commandTimeout).build();
+        LettuceClientConfigurationBuilder client = clientBuilder(connectionMode,
+                poolConfig(poolMaxActive, poolMaxIdle, poolMinIdle, poolMaxWait));
+        client.commandTimeout(commandTimeout)
+                .shutdownTimeout(shutdownTimeout)
+                .clientResources(clientResources);
+
+        RedisConfiguration configuration;
+        if ("cluster".equals(topology)) {
+            List<String> clusterNodes = Arrays.stream(nodes.split(","))
+                    .map(String::trim)
+                    .filter(StringUtils::hasText)
+                    .toList();
+            if (clusterNodes.isEmpty()) {
+                throw new IllegalStateException("redis.cluster.nodes must list at least one host:port when redis.topology=cluster");
+            }
+
+            RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration(clusterNodes);
+            clusterConfiguration.setMaxRedirects(maxRedirects);
+            if (StringUtils.hasText(password)) {
+                clusterConfiguration.setPassword(password);
+            }
+            configuration = clusterConfiguration;
+
+            ClusterTopologyRefreshOptions topologyRefresh = ClusterTopologyRefreshOptions.builder()
+                    .enablePeriodicRefresh(topologyRefreshPeriod)
+                    // Refresh immediately on MOVED/ASK redirects, reconnects and unknown nodes
+                    .enableAllAdaptiveRefreshTriggers()
+                    .build();
+
+            client.clientOptions(ClusterClientOptions.builder()
+                            .topologyRefreshOptions(topologyRefresh)
+                            .maxRedirects(maxRedirects)
+                            .socketOptions(socketOptions)
+                            .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                            .build())
+                    .readFrom(ReadFrom.valueOf(readFrom));
+
+            logger.info("Configuring Redis Cluster with seed nodes: {}, read from: {}, topology refresh: {}",
+                    clusterNodes, readFrom, topologyRefreshPeriod);
+        } else {
+            RedisStandaloneConfiguration standaloneConfiguration = new RedisStandaloneConfiguration(host, port);
+            standaloneConfiguration.setDatabase(database);
+            if (StringUtils.hasText(password)) {
+                standaloneConfiguration.setPassword(password);
+            }
+            configuration = standaloneConfiguration;
+
+            client.clientOptions(ClientOptions.builder()
+                    .socketOptions(socketOptions)
+                    .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                    .build());
+
+            logger.info("Configuring standalone Redis at {}:{}, database: {}", host, port, database);
+        }
+
+        logger.info("Redis connection mode: {}, pipelining flush: {}{}", connectionMode, pipeliningFlush,
+                connectionMode == ConnectionMode.POOLED
+                        ? ", pool max active: " + poolMaxActive + ", min idle: " + poolMinIdle + ", max wait: " + poolMaxWait
+                        : "");
+        return connectionFactory(configuration, client.build(), connectionMode, pipeliningFlushPolicy(pipeliningFlush));
+    }
+
+    /**
+     * Options of the command latency recorder installed into the client resources by Spring
+     * Boot. Latencies are kept per command type and node, not per local socket, and reset on
+     * every publication; histogram buckets are only published on request, as there is one
+     * timer per command type and node.
+     */
+    @Bean
+    public MicrometerOptions lettuceMicrometerOptions(
+            @Value("${redis.metrics.enabled:true}") boolean enabled,
+            @Value("${redis.metrics.histogram:false}") boolean histogram) {
+        MicrometerOptions.Builder options = MicrometerOptions.builder()
+                .histogram(histogram)
+                .localDistinction(false)
+                .targetPercentiles(new double[]{0.5, 0.99, 0.999});
+        return (enabled ? options.enable() : options.disable()).build();
+    }
+
+    /**
+     * A client configuration builder for the connection mode: pooled mode gets the pool, which
+     * Lettuce then uses for every connection not shared between threads.
+     */
+    public static LettuceClientConfigurationBuilder clientBuilder(ConnectionMode mode,
+                                                                 GenericObjectPoolConfig<StatefulConnection<?, ?>> pool) {
+        return mode == ConnectionMode.POOLED
+                ? LettucePoolingClientConfiguration.builder().poolConfig(pool)
+                : LettuceClientConfiguration.builder();
+    }
+
+    /**
+     * A connection factory sharing one native connection in multiplexed mode and borrowing from
+     * the pool for every operation in pooled mode.
+     */
+    public static LettuceConnectionFactory connectionFactory(RedisConfiguration configuration,
+                                                             LettuceClientConfiguration client,
+                                                             ConnectionMode mode,
+                                                             PipeliningFlushPolicy pipeliningFlush) {
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration, client);
+        factory.setShareNativeConnection(mode == ConnectionMode.MULTIPLEXED);
+        factory.setPipeliningFlushPolicy(pipeliningFlush);
+        return factory;
+    }
+
+    public static GenericObjectPoolConfig<StatefulConnection<?, ?>> poolConfig(int maxActive, int maxIdle,
+                                                                             int minIdle, Duration maxWait) {
+        GenericObjectPoolConfig<StatefulConnection<?, ?>> pool = new GenericObjectPoolConfig<>();
+        pool.setMaxTotal(maxActive);
+        pool.setMaxIdle(maxIdle);
+        pool.setMinIdle(minIdle);
+        pool.setMaxWait(maxWait);
+        // Idle connections are only topped up to min-idle by the evictor
+        pool.setTimeBetweenEvictionRuns(Duration.ofSeconds(30));
+        return pool;
+    }
+
+    /**
+     * Parses {@code each-command}, {@code on-close} or {@code buffered:N}.
+     */
+    public static PipeliningFlushPolicy pipeliningFlushPolicy(String value) {
+        String policy = value.trim().toLowerCase(Locale.ROOT);
+        if (policy.equals("each-command")) {
+            return PipeliningFlushPolicy.flushEachCommand();
+        }
+        if (policy.equals("on-close")) {
+            return PipeliningFlushPolicy.flushOnClose();
+        }
+        if (policy.startsWith("buffered:")) {
+            return PipeliningFlushPolicy.buffered(Integer.parseInt(policy.substring("buffered:".length())));
+        }
+        throw new IllegalArgumentException("Unknown redis.connection.pipelining-flush: " + value
+                + ", expected each-command, on-close or buffered:N");
+    }
 }
@@ -0,0 +1,10 @@
+package com.example.insights.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Enables @Scheduled maintenance tasks (cache sweeps, snapshots, refreshes)
+}
@@ -0,0 +1,37 @@
+package com.example.insights.config;
+
+import com.example.insights.cache.OffHeapMetricStore;
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.repository.LeaderboardRepository;
+import com.example.insights.repository.MetricsCacheRepository;
+import com.example.insights.repository.MetricsSourceRepository;
+import com.example.insights.security.JwtUtil;
+import com.example.insights.service.AdInsightsService;
+import com.example.insights.service.CacheSnapshotService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Startup tuning.
+ *
+ * With {@code spring.main.lazy-initialization=true} beans are created on first use, which
+ * shortens context refresh. The request hot path and beans with startup or scheduled work are
+ * kept eager so that the first request does not pay for them and maintenance tasks still run.
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter hotPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                JwtUtil.class,
+                AdInsightsService.class,
+                MetricsCacheRepository.class,
+                MetricsSourceRepository.class,
+                LeaderboardRepository.class,
+                ClickHouseReplicaRouter.class,
+                OffHeapMetricStore.class,
+                CacheSnapshotService.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.insights.config;
+
+import com.example.insights.streaming.AdEventSource;
+import com.example.insights.streaming.FileTailAdEventSource;
+import com.example.insights.streaming.SocketAdEventSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Wires the ad event source of the streaming aggregator used when {@code streaming.enabled=true}:
+ * {@code streaming.source=socket} (default) listens for event lines on a local port,
+ * {@code streaming.source=file} tails a file. Another source can be plugged in by declaring an
+ * {@link AdEventSource} bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "streaming.enabled", havingValue = "true")
+public class StreamingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingConfig.class);
+
+    @Bean
+    @ConditionalOnMissingBean(AdEventSource.class)
+    public AdEventSource adEventSource(@Value("${streaming.source:socket}") String source,
+                                       @Value("${streaming.socket.bind:127.0.0.1}") String bindAddress,
+                                       @Value("${streaming.socket.port:9470}") int port,
+                                       @Value("${streaming.socket.max-connections:16}") int maxConnections,
+                                       @Value("${streaming.file.path:data/ad-events.log}") String filePath,
+                                       @Value("${streaming.file.poll-interval:PT0.1S}") Duration pollInterval) {
+        return switch (source) {
+            case "socket" -> {
+                logger.info("Ad events from socket {}:{}", bindAddress, port);
+                yield new SocketAdEventSource(bindAddress, port, maxConnections);
+            }
+            case "file" -> {
+                logger.info("Ad events from file {}", filePath);
+                yield new FileTailAdEventSource(Path.of(filePath), pollInterval);
+            }
+            default -> throw new IllegalStateException("Unknown streaming.source: " + source + ", expected socket or file");
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.insights.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TenantCacheProperties.class)
+public class TenantCacheConfig {
+    // Binds cache.tenant-fair.* so per-tenant quotas can be configured as a map
+}
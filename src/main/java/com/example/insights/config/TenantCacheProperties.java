@@ -0,0 +1,87 @@
+package com.example.insights.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the tenant-fair local cache layer ({@code cache.tenant-fair.*}).
+ */
+@ConfigurationProperties(prefix = "cache.tenant-fair")
+public class TenantCacheProperties {
+
+    /**
+     * Whether the tenant-fair layer sits in front of the cache backend.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Entries each tenant may hold locally unless overridden in {@link #quotas}.
+     */
+    private int defaultQuota = 10000;
+
+    /**
+     * How long an entry stays valid in the local layer.
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * Per-tenant entry quotas, keyed by tenant ID.
+     */
+    private Map<String, Integer> quotas = new HashMap<>();
+
+    /**
+     * Tenants whose meters are tagged with their own ID, besides those in {@link #quotas}; the
+     * meters of any further tenants are aggregated under {@code tenant=other}.
+     */
+    private int meteredTenants = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getDefaultQuota() {
+        return defaultQuota;
+    }
+
+    public void setDefaultQuota(int defaultQuota) {
+        this.defaultQuota = defaultQuota;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Map<String, Integer> getQuotas() {
+        return quotas;
+    }
+
+    public void setQuotas(Map<String, Integer> quotas) {
+        this.quotas = quotas;
+    }
+
+    public int getMeteredTenants() {
+        return meteredTenants;
+    }
+
+    public void setMeteredTenants(int meteredTenants) {
+        this.meteredTenants = meteredTenants;
+    }
+
+    /**
+     * Resolves the entry quota for a tenant.
+     */
+    public int quotaFor(String tenantId) {
+        return quotas.getOrDefault(tenantId, defaultQuota);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.insights.constants;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Output formats of the bulk metrics export. ClickHouse encodes the rows itself; the API passes
+ * its output through unchanged.
+ */
+public enum ExportFormat {
+
+    CSV("CSVWithNames", "text/csv", "csv"),
+    // Arrow IPC streaming format: a schema message followed by record batches
+    ARROW("ArrowStream", "application/vnd.apache.arrow.stream", "arrows");
+
+    private final String clickHouseFormat;
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String clickHouseFormat, String contentType, String fileExtension) {
+        this.clickHouseFormat = clickHouseFormat;
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String clickHouseFormat() {
+        return clickHouseFormat;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Resolves a format by case-insensitive name.
+     *
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + name + ". Supported formats: "
+                + String.join(", ", Arrays.stream(values()).map(f -> f.name().toLowerCase(Locale.ROOT)).toList()));
+    }
+}
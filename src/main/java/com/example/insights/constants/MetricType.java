@@ -12,5 +12,29 @@ public final class MetricType {
     public static final String CLICKS = "clicks";
     public static final String IMPRESSIONS = "impressions";
     public static final String ADD_TO_CART = "addToCart";
+
+    // Approximate distinct counts served from HyperLogLog sketches
+    public static final String UNIQUE_USERS = "uniqueUsers";
+    public static final String UNIQUE_CLICKERS = "uniqueClickers";
+
+    /**
+     * Checks whether a metric type is one of the supported count metrics.
+     *
+     * @param metricType the metric type
+     * @return true if supported, false otherwise
+     */
+    public static boolean isSupported(String metricType) {
+        return CLICKS.equals(metricType) || IMPRESSIONS.equals(metricType) || ADD_TO_CART.equals(metricType);
+    }
+
+    /**
+     * Checks whether a metric type is one of the unique-reach (distinct count) metrics.
+     *
+     * @param metricType the metric type
+     * @return true if it is a unique-reach metric, false otherwise
+     */
+    public static boolean isUniqueReach(String metricType) {
+        return UNIQUE_USERS.equals(metricType) || UNIQUE_CLICKERS.equals(metricType);
+    }
 }
 
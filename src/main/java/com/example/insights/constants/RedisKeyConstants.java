@@ -1,5 +1,8 @@
 package com.example.insights.constants;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
 /**
  * Constants for Redis key construction.
  */
@@ -10,7 +13,17 @@ public final class RedisKeyConstants {
     }
     
     public static final String KEY_PREFIX = "campaign";
+    public static final String VERSIONED_KEY_PREFIX = "vcampaign";
     public static final String KEY_SEPARATOR = ":";
+    public static final String TENANT_PREFIX = "tenant";
+    public static final String LEADERBOARD_PREFIX = "top";
+    public static final String SEEDED_SUFFIX = "seeded";
+    public static final String REACH_PREFIX = "reach";
+    public static final String UNION_PREFIX = "union";
+    public static final String CLUSTER_PREFIX = "cluster";
+    public static final String MEMBERS_SUFFIX = "members";
+
+    private static final DateTimeFormatter REACH_DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
     
     /**
      * Builds a Redis key for campaign metrics.
@@ -23,5 +36,91 @@ public final class RedisKeyConstants {
     public static String buildKey(String campaignId, String metricType) {
         return KEY_PREFIX + KEY_SEPARATOR + campaignId + KEY_SEPARATOR + metricType;
     }
-}
 
+    /**
+     * Builds a Redis key for a campaign metric cached together with its version ("value:version").
+     * Format: vcampaign:{campaignId}:{metricType}
+     *
+     * Versioned entries have a keyspace of their own because instances from before versioning read
+     * {@link #buildKey} entries as plain numbers: sharing keys during a rolling deploy would make
+     * them miss on every versioned entry and overwrite it without a version. Each generation only
+     * reads its own keys; the plain ones are no longer written and expire with their TTL.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the type of metric
+     * @return the constructed Redis key
+     */
+    public static String buildVersionedKey(String campaignId, String metricType) {
+        return VERSIONED_KEY_PREFIX + KEY_SEPARATOR + campaignId + KEY_SEPARATOR + metricType;
+    }
+
+    /**
+     * Builds a Redis key for a tenant's campaign leaderboard (a sorted set scored by metric value).
+     * Format: tenant:{tenantId}:top:{metricType}
+     *
+     * @param tenantId the tenant identifier
+     * @param metricType the type of metric
+     * @return the constructed Redis key
+     */
+    public static String buildLeaderboardKey(String tenantId, String metricType) {
+        return TENANT_PREFIX + KEY_SEPARATOR + tenantId + KEY_SEPARATOR + LEADERBOARD_PREFIX + KEY_SEPARATOR + metricType;
+    }
+
+    /**
+     * Builds the marker key whose TTL tracks when a leaderboard is due for re-seeding.
+     * Format: tenant:{tenantId}:top:{metricType}:seeded
+     *
+     * @param tenantId the tenant identifier
+     * @param metricType the type of metric
+     * @return the constructed Redis key
+     */
+    public static String buildLeaderboardSeededKey(String tenantId, String metricType) {
+        return buildLeaderboardKey(tenantId, metricType) + KEY_SEPARATOR + SEEDED_SUFFIX;
+    }
+
+    /**
+     * Builds the key of a campaign's daily HyperLogLog sketch, written upstream with PFADD.
+     * Format: tenant:{tenantId}:reach:{metricType}:{campaignId}:{yyyyMMdd}
+     *
+     * The tenant id is a Redis Cluster hash tag, so all sketches of a tenant share a slot and can
+     * be counted or merged together in one command.
+     *
+     * @param tenantId the tenant identifier
+     * @param metricType the unique-reach metric type
+     * @param campaignId the campaign identifier
+     * @param day the UTC day the sketch covers
+     * @return the constructed Redis key
+     */
+    public static String buildReachKey(String tenantId, String metricType, String campaignId, LocalDate day) {
+        return reachPrefix(tenantId) + metricType + KEY_SEPARATOR + campaignId + KEY_SEPARATOR + REACH_DAY_FORMAT.format(day);
+    }
+
+    /**
+     * Builds the key holding a materialized union (PFMERGE result) of several daily sketches.
+     * Format: tenant:{tenantId}:reach:union:{metricType}:{digest}
+     *
+     * @param tenantId the tenant identifier
+     * @param metricType the unique-reach metric type
+     * @param digest a digest identifying the merged campaigns and days
+     * @return the constructed Redis key
+     */
+    public static String buildReachUnionKey(String tenantId, String metricType, String digest) {
+        return reachPrefix(tenantId) + UNION_PREFIX + KEY_SEPARATOR + metricType + KEY_SEPARATOR + digest;
+    }
+
+    /**
+     * Builds the key of a cluster's membership registry (a sorted set of instance URLs scored by
+     * their last heartbeat).
+     * Format: cluster:{clusterName}:members
+     *
+     * @param clusterName the cluster name, so that several deployments can share one Redis
+     * @return the constructed Redis key
+     */
+    public static String buildClusterMembersKey(String clusterName) {
+        return CLUSTER_PREFIX + KEY_SEPARATOR + clusterName + KEY_SEPARATOR + MEMBERS_SUFFIX;
+    }
+
+    private static String reachPrefix(String tenantId) {
+        return TENANT_PREFIX + KEY_SEPARATOR + "{" + tenantId + "}" + KEY_SEPARATOR + REACH_PREFIX + KEY_SEPARATOR;
+    }
+}
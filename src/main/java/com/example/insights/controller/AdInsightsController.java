@@ -1,14 +1,34 @@
 package com.example.insights.controller;
 
 import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.dto.TopCampaignsResponse;
+import com.example.insights.dto.UniqueReachResponse;
 import com.example.insights.service.AdInsightsService;
+import com.example.insights.service.LeaderboardService;
+import com.example.insights.service.MetricsExportService;
+import com.example.insights.service.UniqueReachService;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/v1/ad")
@@ -17,12 +37,22 @@ public class AdInsightsController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdInsightsController.class);
     private static final String CAMPAIGN_ID_PATTERN = "^[a-zA-Z0-9_-]+$";
+    private static final String EXPORT_SLOT_INTERCEPTOR = AdInsightsController.class.getName() + ".exportSlot";
     private static final String CAMPAIGN_ID_VALIDATION_MESSAGE = "Campaign ID must contain only alphanumeric characters, hyphens, and underscores";
 
     private final AdInsightsService service;
+    private final LeaderboardService leaderboardService;
+    private final UniqueReachService uniqueReachService;
+    private final MetricsExportService exportService;
 
-    public AdInsightsController(AdInsightsService service) {
+    public AdInsightsController(AdInsightsService service,
+                                LeaderboardService leaderboardService,
+                                UniqueReachService uniqueReachService,
+                                MetricsExportService exportService) {
         this.service = service;
+        this.leaderboardService = leaderboardService;
+        this.uniqueReachService = uniqueReachService;
+        this.exportService = exportService;
         logger.info("AdInsightsController initialized");
     }
 
@@ -64,4 +94,82 @@ public class AdInsightsController {
         logger.info("Successfully fetched click-to-basket for campaign: {}, count: {}", campaignId, clickToBasket);
         return ResponseEntity.ok(new AdMetricResponse(campaignId, clickToBasket));
     }
+
+    @GetMapping("/top")
+    public ResponseEntity<TopCampaignsResponse> getTopCampaigns(
+            @RequestParam
+            @NotBlank(message = "Metric cannot be blank")
+            String metric,
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "k must be at least 1")
+            int k) {
+
+        logger.info("Received request to fetch top {} campaigns by {}", k, metric);
+        List<AdMetricResponse> top = leaderboardService.getTopCampaigns(metric, k);
+        logger.info("Successfully fetched top campaigns by {}, count: {}", metric, top.size());
+        return ResponseEntity.ok(new TopCampaignsResponse(metric, top));
+    }
+
+    /**
+     * Approximate distinct users over the union of campaigns and UTC days, e.g.
+     * GET /api/v1/ad/reach?metric=uniqueUsers&campaignIds=c1,c2&from=2024-01-01&to=2024-01-31
+     */
+    @GetMapping("/reach")
+    public ResponseEntity<UniqueReachResponse> getUniqueReach(
+            @RequestParam
+            @NotBlank(message = "Metric cannot be blank")
+            String metric,
+            @RequestParam
+            List<@Pattern(regexp = CAMPAIGN_ID_PATTERN, message = CAMPAIGN_ID_VALIDATION_MESSAGE) String> campaignIds,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate to) {
+
+        logger.info("Received request to fetch {} for campaigns: {}, from: {}, to: {}", metric, campaignIds, from, to);
+        UniqueReachResponse reach = uniqueReachService.getUniqueReach(metric, campaignIds, from, to);
+        logger.info("Successfully fetched {} for {} campaigns from {}: {}", metric, campaignIds.size(), reach.getSource(), reach.getValue());
+        return ResponseEntity.ok(reach);
+    }
+
+    /**
+     * Streams the latest value of every campaign metric of the caller's tenant, e.g.
+     * GET /api/v1/ad/export?format=csv&metrics=clicks,impressions
+     * The response is chunked and gzip-encoded when the client accepts gzip.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "csv")
+            String format,
+            @RequestParam(required = false)
+            List<String> metrics,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+            NativeWebRequest request) {
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        logger.info("Received request to export metrics {} as {}, gzip: {}", metrics, format, gzip);
+        MetricsExportService.Export export = exportService.prepare(format, metrics, gzip);
+        // The body releases the slot when it runs; this covers async timeouts, errors and bodies that never run
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_SLOT_INTERCEPTOR,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                        export.release();
+                    }
+                });
+
+        String filename = "metrics-" + export.tenantId() + "-" + LocalDate.now(ZoneOffset.UTC) + "."
+                + export.format().fileExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(export.format().contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(export::writeTo);
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.insights.dto;
+
+import java.util.List;
+
+/**
+ * DTO representing a tenant's top campaigns for one metric, ordered by value descending.
+ */
+public class TopCampaignsResponse {
+
+    private String metric;
+    private List<AdMetricResponse> campaigns;
+
+    public TopCampaignsResponse() {
+    }
+
+    public TopCampaignsResponse(String metric, List<AdMetricResponse> campaigns) {
+        this.metric = metric;
+        this.campaigns = campaigns;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public List<AdMetricResponse> getCampaigns() {
+        return campaigns;
+    }
+
+    public void setCampaigns(List<AdMetricResponse> campaigns) {
+        this.campaigns = campaigns;
+    }
+}
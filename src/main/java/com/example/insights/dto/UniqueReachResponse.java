@@ -0,0 +1,90 @@
+package com.example.insights.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO representing an approximate distinct count over the union of several campaigns and days.
+ * {@code relativeStandardError} is the sketch's standard error as a fraction of the estimate;
+ * about 95% of estimates fall within two standard errors of the true count.
+ */
+public class UniqueReachResponse {
+
+    private String metric;
+    private List<String> campaignIds;
+    private LocalDate from;
+    private LocalDate to;
+    private long value;
+    private double relativeStandardError;
+    private String source;
+
+    public UniqueReachResponse() {
+    }
+
+    public UniqueReachResponse(String metric, List<String> campaignIds, LocalDate from, LocalDate to,
+                               long value, double relativeStandardError, String source) {
+        this.metric = metric;
+        this.campaignIds = campaignIds;
+        this.from = from;
+        this.to = to;
+        this.value = value;
+        this.relativeStandardError = relativeStandardError;
+        this.source = source;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public List<String> getCampaignIds() {
+        return campaignIds;
+    }
+
+    public void setCampaignIds(List<String> campaignIds) {
+        this.campaignIds = campaignIds;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    public double getRelativeStandardError() {
+        return relativeStandardError;
+    }
+
+    public void setRelativeStandardError(double relativeStandardError) {
+        this.relativeStandardError = relativeStandardError;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+}
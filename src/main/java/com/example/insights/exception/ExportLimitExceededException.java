@@ -0,0 +1,11 @@
+package com.example.insights.exception;
+
+/**
+ * Exception thrown when an export is requested while the maximum number of exports is running.
+ */
+public class ExportLimitExceededException extends RuntimeException {
+
+    public ExportLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.insights.exception;
+
+/**
+ * Exception thrown when no store can currently answer a metrics query.
+ */
+public class MetricsUnavailableException extends RuntimeException {
+
+    public MetricsUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.insights.grpc;
+
+import com.example.insights.exception.CampaignNotFoundException;
+import com.example.insights.exception.TenantNotFoundException;
+import com.example.insights.grpc.v1.AdInsightsGrpc;
+import com.example.insights.grpc.v1.BatchGetMetricsRequest;
+import com.example.insights.grpc.v1.BatchGetMetricsResponse;
+import com.example.insights.grpc.v1.GetMetricRequest;
+import com.example.insights.grpc.v1.GetMetricsRequest;
+import com.example.insights.grpc.v1.GetMetricsResponse;
+import com.example.insights.grpc.v1.Metric;
+import com.example.insights.grpc.v1.MetricUpdate;
+import com.example.insights.grpc.v1.SubscribeMetricsRequest;
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.MetricKey;
+import com.example.insights.service.AdInsightsService;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * gRPC front end of {@link AdInsightsService}: the same lookups, cache tier and tenant isolation
+ * as the REST API, without JSON and HTTP/1.1 connection overhead.
+ *
+ * Unary calls run the service on the gRPC executor. Subscriptions re-read their metrics on a
+ * shared scheduler and send only values that changed since the last update. If a subscriber
+ * cannot keep up, polls are skipped while its stream is not ready, so updates are conflated to
+ * the latest value instead of queuing in memory. Each tenant may hold a limited number of
+ * subscriptions at a time; further ones fail with RESOURCE_EXHAUSTED.
+ */
+public class AdInsightsGrpcService extends AdInsightsGrpc.AdInsightsImplBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdInsightsGrpcService.class);
+    private static final Pattern CAMPAIGN_ID_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+
+    private final AdInsightsService service;
+    private final ScheduledExecutorService scheduler;
+    private final Duration defaultInterval;
+    private final Duration minInterval;
+    private final int maxKeys;
+    private final int maxSubscriptionsPerTenant;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    // Keyed by tenant; entries are removed when they drop to zero
+    private final Map<String, Integer> subscriptionsPerTenant = new ConcurrentHashMap<>();
+
+    public AdInsightsGrpcService(AdInsightsService service,
+                                 Duration defaultInterval,
+                                 Duration minInterval,
+                                 int maxKeys,
+                                 int maxSubscriptionsPerTenant,
+                                 int subscriptionThreads,
+                                 MeterRegistry meterRegistry) {
+        this.service = service;
+        this.defaultInterval = defaultInterval;
+        this.minInterval = minInterval;
+        this.maxKeys = maxKeys;
+        this.maxSubscriptionsPerTenant = maxSubscriptionsPerTenant;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(subscriptionThreads, runnable -> {
+            Thread thread = new Thread(runnable, "grpc-subscription-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("insights.grpc.subscriptions", subscriptions, Set::size)
+                .description("Active gRPC metric subscriptions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void getMetric(GetMetricRequest request, StreamObserver<Metric> responseObserver) {
+        unary(responseObserver, () -> {
+            String campaignId = validateCampaignId(request.getCampaignId());
+            long value = service.getMetric(campaignId, request.getMetricType());
+            return metric(campaignId, request.getMetricType(), value);
+        });
+    }
+
+    @Override
+    public void getMetrics(GetMetricsRequest request, StreamObserver<GetMetricsResponse> responseObserver) {
+        unary(responseObserver, () -> {
+            String campaignId = validateCampaignId(request.getCampaignId());
+            Map<String, Long> values = service.getMetrics(campaignId, request.getMetricTypesList());
+            return GetMetricsResponse.newBuilder()
+                    .setCampaignId(campaignId)
+                    .putAllValues(values)
+                    .build();
+        });
+    }
+
+    @Override
+    public void batchGetMetrics(BatchGetMetricsRequest request, StreamObserver<BatchGetMetricsResponse> responseObserver) {
+        unary(responseObserver, () -> {
+            List<MetricKey> keys = toMetricKeys(request.getKeysList());
+            Map<MetricKey, Long> values = service.batchGetMetrics(keys);
+            BatchGetMetricsResponse.Builder response = BatchGetMetricsResponse.newBuilder();
+            for (MetricKey key : keys) {
+                Long value = values.get(key);
+                if (value != null) {
+                    response.addMetrics(metric(key.campaignId(), key.metricType(), value));
+                } else {
+                    response.addMissing(toProto(key));
+                }
+            }
+            return response.build();
+        });
+    }
+
+    @Override
+    public void subscribeMetrics(SubscribeMetricsRequest request, StreamObserver<MetricUpdate> responseObserver) {
+        ServerCallStreamObserver<MetricUpdate> observer = (ServerCallStreamObserver<MetricUpdate>) responseObserver;
+        List<MetricKey> keys;
+        try {
+            keys = toMetricKeys(request.getKeysList());
+        } catch (RuntimeException e) {
+            observer.onError(toStatus(e));
+            return;
+        }
+        String tenantId = TenantContext.getTenantId();
+        long intervalMillis = request.getIntervalMillis() == 0
+                ? defaultInterval.toMillis()
+                : Math.max(minInterval.toMillis(), request.getIntervalMillis());
+
+        if (!reserveSubscription(tenantId)) {
+            logger.warn("Rejected gRPC subscription for tenant: {}, limit of {} reached", tenantId, maxSubscriptionsPerTenant);
+            observer.onError(Status.RESOURCE_EXHAUSTED
+                    .withDescription("At most " + maxSubscriptionsPerTenant + " subscriptions are allowed per tenant")
+                    .asRuntimeException());
+            return;
+        }
+
+        Subscription subscription = new Subscription(tenantId, keys, observer);
+        subscriptions.add(subscription);
+        // Must be registered before this method returns
+        observer.setOnCancelHandler(subscription::cancel);
+        subscription.future = scheduler.scheduleWithFixedDelay(subscription::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        logger.debug("Started gRPC subscription to {} metrics for tenant: {}, interval: {} ms",
+                keys.size(), tenantId, intervalMillis);
+    }
+
+    /**
+     * Ends all subscriptions with a normal completion, so clients reconnect to another instance,
+     * and stops the scheduler. Called before the server itself shuts down.
+     */
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Counts a new subscription against its tenant's limit.
+     *
+     * @return false if the tenant already holds the maximum number of subscriptions
+     */
+    private boolean reserveSubscription(String tenantId) {
+        boolean[] reserved = new boolean[1];
+        subscriptionsPerTenant.compute(tenantKey(tenantId), (tenant, count) -> {
+            int current = count == null ? 0 : count;
+            reserved[0] = current < maxSubscriptionsPerTenant;
+            return reserved[0] ? current + 1 : count;
+        });
+        return reserved[0];
+    }
+
+    private void releaseSubscription(String tenantId) {
+        subscriptionsPerTenant.computeIfPresent(tenantKey(tenantId), (tenant, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String tenantKey(String tenantId) {
+        return tenantId == null ? "" : tenantId;
+    }
+
+    private List<MetricKey> toMetricKeys(List<com.example.insights.grpc.v1.MetricKey> protoKeys) {
+        if (protoKeys.isEmpty()) {
+            throw new IllegalArgumentException("At least one metric key is required");
+        }
+        if (protoKeys.size() > maxKeys) {
+            throw new IllegalArgumentException("At most " + maxKeys + " metric keys are allowed per call");
+        }
+        Set<MetricKey> keys = new LinkedHashSet<>(protoKeys.size() * 2);
+        for (com.example.insights.grpc.v1.MetricKey key : protoKeys) {
+            keys.add(new MetricKey(validateCampaignId(key.getCampaignId()), key.getMetricType()));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static String validateCampaignId(String campaignId) {
+        if (!CAMPAIGN_ID_PATTERN.matcher(campaignId).matches()) {
+            throw new IllegalArgumentException(
+                    "Campaign ID must contain only alphanumeric characters, hyphens, and underscores");
+        }
+        return campaignId;
+    }
+
+    private static Metric metric(String campaignId, String metricType, long value) {
+        return Metric.newBuilder()
+                .setCampaignId(campaignId)
+                .setMetricType(metricType)
+                .setValue(value)
+                .build();
+    }
+
+    private static com.example.insights.grpc.v1.MetricKey toProto(MetricKey key) {
+        return com.example.insights.grpc.v1.MetricKey.newBuilder()
+                .setCampaignId(key.campaignId())
+                .setMetricType(key.metricType())
+                .build();
+    }
+
+    private static <T> void unary(StreamObserver<T> observer, Supplier<T> call) {
+        T response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            observer.onError(toStatus(e));
+            return;
+        }
+        observer.onNext(response);
+        observer.onCompleted();
+    }
+
+    /**
+     * Maps service exceptions to the status codes matching the REST API's responses.
+     */
+    private static StatusRuntimeException toStatus(RuntimeException e) {
+        if (e instanceof CampaignNotFoundException) {
+            return Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof TenantNotFoundException) {
+            return Status.UNAUTHENTICATED.withDescription(e.getMessage()).asRuntimeException();
+        }
+        logger.error("Unexpected error in gRPC call", e);
+        // Don't expose internal error details to clients
+        return Status.INTERNAL.withDescription("An unexpected error occurred. Please try again later.").asRuntimeException();
+    }
+
+    /**
+     * One subscriber's stream. Polls never overlap (fixed-delay scheduling), and completion is
+     * synchronized with them so the stream is never written to concurrently.
+     */
+    private final class Subscription {
+
+        private final String tenantId;
+        private final List<MetricKey> keys;
+        private final ServerCallStreamObserver<MetricUpdate> observer;
+        private final Map<MetricKey, Long> lastSent = new HashMap<>();
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean done;
+
+        Subscription(String tenantId, List<MetricKey> keys, ServerCallStreamObserver<MetricUpdate> observer) {
+            this.tenantId = tenantId;
+            this.keys = keys;
+            this.observer = observer;
+        }
+
+        synchronized void poll() {
+            if (done || observer.isCancelled()) {
+                cancel();
+                return;
+            }
+            if (!observer.isReady()) {
+                // The client is behind; skip this round rather than buffer, the next one sends the latest values
+                return;
+            }
+
+            TenantContext.setTenantId(tenantId);
+            try {
+                Map<MetricKey, Long> values = service.batchGetMetrics(keys);
+                long now = System.currentTimeMillis();
+                for (Map.Entry<MetricKey, Long> entry : values.entrySet()) {
+                    if (!entry.getValue().equals(lastSent.put(entry.getKey(), entry.getValue()))) {
+                        observer.onNext(MetricUpdate.newBuilder()
+                                .setMetric(metric(entry.getKey().campaignId(), entry.getKey().metricType(), entry.getValue()))
+                                .setObservedAtMillis(now)
+                                .build());
+                    }
+                }
+            } catch (StatusRuntimeException e) {
+                // The call was cancelled while sending
+                cancel();
+            } catch (RuntimeException e) {
+                logger.warn("gRPC subscription poll failed for tenant: {}, will retry. Error: {}", tenantId, e.getMessage());
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        synchronized void complete() {
+            if (!done && !observer.isCancelled()) {
+                observer.onCompleted();
+            }
+            cancel();
+        }
+
+        void cancel() {
+            done = true;
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            if (subscriptions.remove(this)) {
+                releaseSubscription(tenantId);
+                logger.debug("Ended gRPC subscription to {} metrics for tenant: {}", keys.size(), tenantId);
+            }
+        }
+    }
+}
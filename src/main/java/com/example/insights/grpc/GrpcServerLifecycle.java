@@ -0,0 +1,77 @@
+package com.example.insights.grpc;
+
+import io.grpc.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the gRPC server with the application context and stops it gracefully before the web
+ * server: subscriptions are completed, in-flight calls get the grace period, and anything still
+ * running after that is cancelled.
+ */
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcServerLifecycle.class);
+
+    private final Server server;
+    private final AdInsightsGrpcService service;
+    private final ExecutorService executor;
+    private final Duration shutdownGracePeriod;
+    private volatile boolean running;
+
+    public GrpcServerLifecycle(Server server, AdInsightsGrpcService service, ExecutorService executor,
+                               Duration shutdownGracePeriod) {
+        this.server = server;
+        this.service = service;
+        this.executor = executor;
+        this.shutdownGracePeriod = shutdownGracePeriod;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start gRPC server", e);
+        }
+        running = true;
+        logger.info("gRPC server started on port: {}", server.getPort());
+    }
+
+    @Override
+    public void stop() {
+        logger.info("Stopping gRPC server, grace period: {}", shutdownGracePeriod);
+        service.shutdown();
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(shutdownGracePeriod.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("gRPC calls still running after {}, cancelling them", shutdownGracePeriod);
+                server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.shutdownNow();
+        } finally {
+            executor.shutdownNow();
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Above the web server's phases, so gRPC stops first and starts last
+        return Integer.MAX_VALUE - 512;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.insights.grpc;
+
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.observability.RequestTimings;
+import com.example.insights.security.JwtUtil;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+
+/**
+ * gRPC counterpart of {@link com.example.insights.security.JwtAuthenticationFilter}.
+ *
+ * Clients send the same JWT as the REST API in {@code authorization: Bearer <jwt>} call metadata
+ * (for grpc-java, as {@code CallCredentials}). Calls without a valid token, or whose token lacks
+ * the tenantId or subject claim, are closed with UNAUTHENTICATED. For accepted calls the tenant is
+ * set in the {@link TenantContext} around every callback of the call, because gRPC may run
+ * consecutive callbacks on different executor threads; it is also available as {@link #TENANT_ID}.
+ */
+public class JwtServerInterceptor implements ServerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtServerInterceptor.class);
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Tenant of the current call.
+     */
+    public static final Context.Key<String> TENANT_ID = Context.key("tenantId");
+
+    private final JwtUtil jwtUtil;
+
+    public JwtServerInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String tenantId = null;
+        String subject = null;
+        RequestTimings.Stage jwtStage = RequestTimings.stage(RequestTimings.STAGE_JWT);
+        try {
+            String authorization = headers.get(AUTHORIZATION);
+            if (StringUtils.hasText(authorization) && authorization.startsWith(BEARER_PREFIX)) {
+                String jwt = authorization.substring(BEARER_PREFIX.length());
+                if (jwtUtil.validateToken(jwt)) {
+                    tenantId = jwtUtil.extractTenantId(jwt);
+                    subject = jwtUtil.extractSubject(jwt);
+                }
+            }
+        } finally {
+            jwtStage.close();
+        }
+
+        if (tenantId == null || subject == null) {
+            logger.debug("Rejected gRPC call {}: no valid JWT with tenantId and subject",
+                    call.getMethodDescriptor().getFullMethodName());
+            call.close(Status.UNAUTHENTICATED.withDescription("A valid bearer token with a tenant is required"),
+                    new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        logger.debug("Authenticated gRPC call {}: tenantId={}, subject={}",
+                call.getMethodDescriptor().getFullMethodName(), tenantId, subject);
+        Context context = Context.current().withValue(TENANT_ID, tenantId);
+        return new TenantScopedListener<>(Contexts.interceptCall(context, call, headers, next), tenantId);
+    }
+
+    /**
+     * Sets the call's tenant in the {@link TenantContext} for the duration of each callback.
+     */
+    private static final class TenantScopedListener<ReqT>
+            extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final String tenantId;
+
+        TenantScopedListener(ServerCall.Listener<ReqT> delegate, String tenantId) {
+            super(delegate);
+            this.tenantId = tenantId;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            TenantContext.setTenantId(tenantId);
+            try {
+                super.onMessage(message);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        @Override
+        public void onHalfClose() {
+            TenantContext.setTenantId(tenantId);
+            try {
+                super.onHalfClose();
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        @Override
+        public void onCancel() {
+            TenantContext.setTenantId(tenantId);
+            try {
+                super.onCancel();
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            TenantContext.setTenantId(tenantId);
+            try {
+                super.onComplete();
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        @Override
+        public void onReady() {
+            TenantContext.setTenantId(tenantId);
+            try {
+                super.onReady();
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.insights.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering a whole API request, with its stage breakdown in Server-Timing syntax.
+ * Recorded only above the request threshold of the active recording.
+ */
+@Name("com.example.insights.Request")
+@Label("Request")
+@Category({"Insights", "Requests"})
+@Description("An API request and its stage breakdown")
+@StackTrace(false)
+class RequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+
+    @Label("Tenant")
+    String tenantId;
+
+    @Label("Campaign")
+    String campaignId;
+
+    @Label("Metric")
+    String metricType;
+
+    @Label("Stages")
+    String stages;
+}
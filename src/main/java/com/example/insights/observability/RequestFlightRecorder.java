@@ -0,0 +1,80 @@
+package com.example.insights.observability;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Always-on, in-process JFR recording of the request events only.
+ *
+ * Stage and request events are kept when they exceed their thresholds, for at most
+ * {@code observability.jfr.max-age} and {@code observability.jfr.max-size}. No JDK events are
+ * enabled, so the overhead is the cost of timing stages that are below threshold, which JFR
+ * discards before any data is written. Disabled with {@code observability.jfr.enabled=false}.
+ */
+@Component
+@ConditionalOnProperty(name = "observability.jfr.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestFlightRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestFlightRecorder.class);
+
+    private final Recording recording;
+
+    public RequestFlightRecorder(@Value("${observability.jfr.stage-threshold:PT0.005S}") Duration stageThreshold,
+                                 @Value("${observability.jfr.request-threshold:PT0.05S}") Duration requestThreshold,
+                                 @Value("${observability.jfr.max-age:PT15M}") Duration maxAge,
+                                 @Value("${observability.jfr.max-size:16MB}") DataSize maxSize) {
+        if (!FlightRecorder.isAvailable()) {
+            logger.warn("Flight Recorder is not available in this JVM, request events will not be recorded");
+            this.recording = null;
+            return;
+        }
+        Recording recording = new Recording();
+        recording.setName("insights-requests");
+        recording.enable(RequestStageEvent.class).withThreshold(stageThreshold);
+        recording.enable(RequestEvent.class).withThreshold(requestThreshold);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        recording.setToDisk(true);
+        recording.start();
+        this.recording = recording;
+        logger.info("Request flight recording started with stage threshold: {}, request threshold: {}, max age: {}",
+                stageThreshold, requestThreshold, maxAge);
+    }
+
+    /**
+     * Dumps the retained events as a JFR file, readable with {@code jfr print} or JDK Mission Control.
+     *
+     * @return the recording, or null if Flight Recorder is unavailable
+     */
+    public byte[] dump() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Path file = Files.createTempFile("insights-requests", ".jfr");
+        try {
+            recording.dump(file);
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+}
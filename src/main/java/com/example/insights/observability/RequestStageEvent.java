@@ -0,0 +1,36 @@
+package com.example.insights.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event covering one stage of a request: JWT parsing, a cache lookup, a ClickHouse query or
+ * response serialization. Recorded only above the stage threshold of the active recording.
+ */
+@Name("com.example.insights.RequestStage")
+@Label("Request Stage")
+@Category({"Insights", "Requests"})
+@Description("One stage of an API request")
+@StackTrace(false)
+class RequestStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Tenant")
+    String tenantId;
+
+    @Label("Campaign")
+    String campaignId;
+
+    @Label("Metric")
+    String metricType;
+
+    @Label("Cache Tier")
+    @Description("Store the stage talked to, e.g. redis, offheap or clickhouse")
+    String tier;
+}
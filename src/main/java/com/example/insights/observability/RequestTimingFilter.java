@@ -0,0 +1,70 @@
+package com.example.insights.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Outermost filter: opens the request's {@link RequestTimings}, emits a {@link RequestEvent}
+ * when the request ends and hands slow requests to the {@link SlowRequestLog}. Runs before the
+ * security filter chain so that JWT parsing is part of the measured request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    private final SlowRequestLog slowRequestLog;
+
+    public RequestTimingFilter(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        RequestTimings timings = RequestTimings.begin();
+        RequestEvent event = new RequestEvent();
+        event.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            timings.endSerialization();
+            long total = timings.elapsedNanos();
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.path = request.getRequestURI();
+                event.status = response.getStatus();
+                event.tenantId = timings.tenantId();
+                event.campaignId = timings.campaignId();
+                event.metricType = timings.metricType();
+                event.stages = timings.toServerTiming(total);
+                event.commit();
+            }
+            if (slowRequestLog.isSlow(total)) {
+                SlowRequest slow = new SlowRequest(Instant.now(), request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), timings.tenantId(), timings.campaignId(), timings.metricType(),
+                        total / 1_000_000.0, timings.stageMillis());
+                slowRequestLog.record(slow);
+                logger.debug("Slow request {} {} took {} ms: {}", slow.method(), slow.path(), slow.totalMillis(), slow.stages());
+            }
+            RequestTimings.clear();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.insights.observability;
+
+import com.example.insights.multitenancy.TenantContext;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Thread-local stage breakdown of the current request.
+ *
+ * {@link RequestTimingFilter} opens it for every request; code on the request path wraps its
+ * stages in {@link #stage}. Each stage emits a {@link RequestStageEvent} and adds its duration
+ * to the breakdown used for the Server-Timing header and the slow-request log. Stages that run
+ * outside a request still emit their JFR event.
+ */
+public final class RequestTimings {
+
+    public static final String STAGE_JWT = "jwt";
+    public static final String STAGE_CACHE = "cache";
+    public static final String STAGE_SOURCE = "source";
+    public static final String STAGE_SERIALIZE = "serialize";
+
+    private static final int MAX_STAGES = 16;
+    private static final ThreadLocal<RequestTimings> current = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final String[] names = new String[MAX_STAGES];
+    private final String[] tiers = new String[MAX_STAGES];
+    private final long[] nanos = new long[MAX_STAGES];
+    private int count;
+    private String tenantId;
+    private String campaignId;
+    private String metricType;
+    private Stage serialization;
+
+    private RequestTimings() {
+    }
+
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        current.set(timings);
+        return timings;
+    }
+
+    static void clear() {
+        current.remove();
+    }
+
+    static RequestTimings current() {
+        return current.get();
+    }
+
+    /**
+     * Starts a stage of the current request. Close it when the stage ends.
+     *
+     * @param name the stage name, one of the {@code STAGE_*} constants
+     * @return the running stage
+     */
+    public static Stage stage(String name) {
+        return new Stage(name, null, null, null);
+    }
+
+    /**
+     * Starts a stage that works on one metric of one campaign.
+     *
+     * @param name the stage name, one of the {@code STAGE_*} constants
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param tier the store the stage talks to, e.g. redis, offheap or clickhouse
+     * @return the running stage
+     */
+    public static Stage stage(String name, String campaignId, String metricType, String tier) {
+        return new Stage(name, campaignId, metricType, tier);
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    String tenantId() {
+        return tenantId;
+    }
+
+    String campaignId() {
+        return campaignId;
+    }
+
+    String metricType() {
+        return metricType;
+    }
+
+    /**
+     * Opens the serialization stage; it is closed by {@link RequestTimingFilter} once the
+     * response has been written.
+     */
+    void beginSerialization() {
+        if (serialization == null) {
+            serialization = stage(STAGE_SERIALIZE);
+        }
+    }
+
+    void endSerialization() {
+        if (serialization != null) {
+            serialization.close();
+        }
+    }
+
+    /**
+     * Stage durations in milliseconds, keyed by stage name and, where known, tier.
+     */
+    Map<String, Double> stageMillis() {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            stages.put(tiers[i] == null ? names[i] : names[i] + ":" + tiers[i], nanos[i] / 1_000_000.0);
+        }
+        return stages;
+    }
+
+    void add(String name, String tier, long stageNanos) {
+        // Repeated stages (e.g. one source query per missing metric) are summed
+        for (int i = 0; i < count; i++) {
+            if (names[i].equals(name) && Objects.equals(tiers[i], tier)) {
+                nanos[i] += stageNanos;
+                return;
+            }
+        }
+        if (count < MAX_STAGES) {
+            names[count] = name;
+            tiers[count] = tier;
+            nanos[count] = stageNanos;
+            count++;
+        }
+    }
+
+    /**
+     * Formats the breakdown as a Server-Timing header value, e.g.
+     * {@code jwt;dur=0.41, cache;desc="redis";dur=1.20, total;dur=2.05}.
+     *
+     * @param totalNanos the duration reported as {@code total}
+     */
+    String toServerTiming(long totalNanos) {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            header.append(names[i]);
+            if (tiers[i] != null) {
+                header.append(";desc=\"").append(tiers[i]).append('"');
+            }
+            header.append(";dur=").append(millis(nanos[i])).append(", ");
+        }
+        return header.append("total;dur=").append(millis(totalNanos)).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * A running stage. Closing it records the stage; closing twice has no further effect.
+     */
+    public static final class Stage implements AutoCloseable {
+
+        private final String name;
+        private final String campaignId;
+        private final String metricType;
+        private final String tier;
+        private final long startNanos = System.nanoTime();
+        private final RequestStageEvent event = new RequestStageEvent();
+        private final String tenantAtStart = TenantContext.getTenantId();
+        private boolean closed;
+
+        private Stage(String name, String campaignId, String metricType, String tier) {
+            this.name = name;
+            this.campaignId = campaignId;
+            this.metricType = metricType;
+            this.tier = tier;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long elapsed = System.nanoTime() - startNanos;
+            // JWT parsing sets the tenant during its stage; serialization ends after it was cleared
+            String tenantId = TenantContext.isSet() ? TenantContext.getTenantId() : tenantAtStart;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.tenantId = tenantId;
+                event.campaignId = campaignId;
+                event.metricType = metricType;
+                event.tier = tier;
+                event.commit();
+            }
+
+            RequestTimings timings = current.get();
+            if (timings != null) {
+                timings.add(name, tier, elapsed);
+                if (tenantId != null) {
+                    timings.tenantId = tenantId;
+                }
+                if (campaignId != null) {
+                    timings.campaignId = campaignId;
+                    timings.metricType = metricType;
+                }
+            }
+        }
+    }
+}
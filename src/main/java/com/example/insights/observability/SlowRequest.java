@@ -0,0 +1,28 @@
+package com.example.insights.observability;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A request that exceeded {@code observability.slow-requests.threshold}, with its stage breakdown.
+ *
+ * @param timestamp when the request completed
+ * @param method the HTTP method
+ * @param path the request path
+ * @param status the response status
+ * @param tenantId the tenant, if the request was authenticated
+ * @param campaignId the last campaign a stage worked on, if any
+ * @param metricType the last metric a stage worked on, if any
+ * @param totalMillis the request duration in milliseconds
+ * @param stages stage durations in milliseconds, keyed by stage and tier (e.g. {@code cache:redis})
+ */
+public record SlowRequest(Instant timestamp,
+                          String method,
+                          String path,
+                          int status,
+                          String tenantId,
+                          String campaignId,
+                          String metricType,
+                          double totalMillis,
+                          Map<String, Double> stages) {
+}
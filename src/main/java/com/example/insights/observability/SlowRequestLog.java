@@ -0,0 +1,48 @@
+package com.example.insights.observability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent slow requests in memory for the {@code slowrequests} actuator endpoint.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final long thresholdNanos;
+    private final int capacity;
+    private final Deque<SlowRequest> recent;
+
+    public SlowRequestLog(@Value("${observability.slow-requests.threshold:PT0.2S}") Duration threshold,
+                          @Value("${observability.slow-requests.capacity:100}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.recent = new ArrayDeque<>(capacity);
+    }
+
+    boolean isSlow(long nanos) {
+        return nanos >= thresholdNanos;
+    }
+
+    synchronized void record(SlowRequest request) {
+        if (recent.size() == capacity) {
+            recent.removeFirst();
+        }
+        recent.addLast(request);
+    }
+
+    /**
+     * @return the retained slow requests, most recent first
+     */
+    public synchronized List<SlowRequest> recent() {
+        List<SlowRequest> requests = new ArrayList<>(recent.size());
+        recent.descendingIterator().forEachRemaining(requests::add);
+        return requests;
+    }
+}
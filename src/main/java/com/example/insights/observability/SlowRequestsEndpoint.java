@@ -0,0 +1,55 @@
+package com.example.insights.observability;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Actuator endpoint for recent slow requests.
+ *
+ * <ul>
+ *   <li>{@code GET /actuator/slowrequests} - the retained slow requests with their stage breakdown</li>
+ *   <li>{@code GET /actuator/slowrequests/recording} - a JFR file of the request and stage events
+ *       above their thresholds</li>
+ * </ul>
+ * Both show requests of all tenants, so the endpoint is not exposed by default. When it is added to
+ * {@code management.endpoints.web.exposure.include}, it requires a JWT with the
+ * {@link com.example.insights.security.SecurityConfig#ADMIN_ROLE} role;
+ * {@code management.server.port} can additionally keep it off the public port.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private static final String RECORDING = "recording";
+
+    private final SlowRequestLog slowRequestLog;
+    private final ObjectProvider<RequestFlightRecorder> flightRecorder;
+
+    public SlowRequestsEndpoint(SlowRequestLog slowRequestLog, ObjectProvider<RequestFlightRecorder> flightRecorder) {
+        this.slowRequestLog = slowRequestLog;
+        this.flightRecorder = flightRecorder;
+    }
+
+    @ReadOperation
+    public List<SlowRequest> slowRequests() {
+        return slowRequestLog.recent();
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource recording(@Selector String name) throws IOException {
+        RequestFlightRecorder recorder = flightRecorder.getIfAvailable();
+        if (!RECORDING.equals(name) || recorder == null) {
+            return null;
+        }
+        byte[] dump = recorder.dump();
+        return dump == null ? null : new ByteArrayResource(dump);
+    }
+}
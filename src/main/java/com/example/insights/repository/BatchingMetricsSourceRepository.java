@@ -0,0 +1,236 @@
+package com.example.insights.repository;
+
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching layer in front of the ClickHouse source.
+ *
+ * Single-metric misses for the same tenant that arrive within {@code clickhouse.batching.window}
+ * are collected into one batch and loaded with a single set-based query; a batch is flushed early
+ * once it reaches {@code clickhouse.batching.max-size}. Concurrent misses for the same key share
+ * one slot in the batch. Enabled with {@code clickhouse.batching.enabled=true}.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "clickhouse.batching.enabled", havingValue = "true")
+public class BatchingMetricsSourceRepository implements MetricsSourceRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchingMetricsSourceRepository.class);
+    private static final String NO_TENANT = "";
+
+    private final MetricsSourceRepository delegate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Duration timeout;
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService loaders;
+
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+    private final Counter queriesSaved;
+
+    public BatchingMetricsSourceRepository(@Qualifier(MetricsSourceRepository.BACKEND) MetricsSourceRepository delegate,
+                                           @Value("${clickhouse.batching.window:PT0.002S}") Duration window,
+                                           @Value("${clickhouse.batching.max-size:128}") int maxBatchSize,
+                                           @Value("${clickhouse.batching.loader-threads:4}") int loaderThreads,
+                                           @Value("${clickhouse.batching.timeout:PT5S}") Duration timeout,
+                                           MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.timeout = timeout;
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("ch-batch-timer"));
+        this.loaders = Executors.newFixedThreadPool(loaderThreads, daemonThreads("ch-batch-loader"));
+
+        this.batchSize = DistributionSummary.builder("insights.clickhouse.batch.size")
+                .description("Distinct metrics loaded per batched ClickHouse query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("insights.clickhouse.batch.wait")
+                .description("Time a ClickHouse miss waited for its batch, including the query")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queriesSaved = Counter.builder("insights.clickhouse.batch.queries.saved")
+                .description("Single-row ClickHouse queries avoided by batching")
+                .register(meterRegistry);
+
+        logger.info("BatchingMetricsSourceRepository initialized with window: {}, max batch size: {}, loader threads: {}",
+                window, maxBatchSize, loaderThreads);
+    }
+
+    @Override
+    public VersionedMetric getMetric(String campaignId, String metricType) {
+        String tenantId = TenantContext.getTenantId();
+        long start = System.nanoTime();
+        CompletableFuture<VersionedMetric> result = enqueue(tenantId, new MetricKey(campaignId, metricType));
+
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.error("Timed out after {} waiting for batched ClickHouse load of tenant: {}, campaign: {}, metric: {}",
+                    timeout, tenantId, campaignId, metricType);
+            return null;
+        } catch (ExecutionException e) {
+            logger.error("Batched ClickHouse load failed for tenant: {}, campaign: {}, metric: {}",
+                    tenantId, campaignId, metricType, e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            batchWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Map<MetricKey, VersionedMetric> getMetrics(String tenantId, Collection<MetricKey> keys) {
+        return delegate.getMetrics(tenantId, keys);
+    }
+
+    @Override
+    public List<AdMetricResponse> getTopCampaigns(String metricType, int limit) {
+        return delegate.getTopCampaigns(metricType, limit);
+    }
+
+    @Override
+    public Long countUnique(String metricType, Collection<String> campaignIds, LocalDate from, LocalDate to) {
+        return delegate.countUnique(metricType, campaignIds, from, to);
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        loaders.shutdown();
+    }
+
+    private CompletableFuture<VersionedMetric> enqueue(String tenantId, MetricKey key) {
+        String batchKey = tenantId == null ? NO_TENANT : tenantId;
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(batchKey, k -> openBatch(k, tenantId));
+            CompletableFuture<VersionedMetric> result = batch.add(key);
+            if (result != null) {
+                if (batch.size() >= maxBatchSize) {
+                    flush(batch);
+                }
+                return result;
+            }
+            // The batch was sealed between lookup and add; make sure it's gone and retry
+            openBatches.remove(batchKey, batch);
+        }
+    }
+
+    private Batch openBatch(String batchKey, String tenantId) {
+        Batch batch = new Batch(batchKey, tenantId);
+        timer.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+        return batch;
+    }
+
+    private void flush(Batch batch) {
+        if (!batch.seal()) {
+            return;
+        }
+        openBatches.remove(batch.batchKey, batch);
+        loaders.execute(() -> load(batch));
+    }
+
+    private void load(Batch batch) {
+        Map<MetricKey, CompletableFuture<VersionedMetric>> waiting = batch.waiting;
+        batchSize.record(waiting.size());
+        queriesSaved.increment(batch.requests.get() - 1);
+        logger.debug("Loading batch of {} metrics ({} requests) for tenant: {}",
+                waiting.size(), batch.requests.get(), batch.tenantId);
+
+        try {
+            Map<MetricKey, VersionedMetric> values = delegate.getMetrics(batch.tenantId, waiting.keySet());
+            for (Map.Entry<MetricKey, CompletableFuture<VersionedMetric>> entry : waiting.entrySet()) {
+                // A failed load (null map) reads as a miss, like the single-row path
+                entry.getValue().complete(values == null ? null : values.get(entry.getKey()));
+            }
+        } catch (RuntimeException e) {
+            waiting.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Misses collected for one tenant during one window. Once sealed no more keys are accepted,
+     * so the loader can read {@link #waiting} without further locking.
+     */
+    private static final class Batch {
+
+        final String batchKey;
+        final String tenantId;
+        final Map<MetricKey, CompletableFuture<VersionedMetric>> waiting = new HashMap<>();
+        final AtomicInteger requests = new AtomicInteger();
+        private boolean sealed;
+
+        Batch(String batchKey, String tenantId) {
+            this.batchKey = batchKey;
+            this.tenantId = tenantId;
+        }
+
+        synchronized CompletableFuture<VersionedMetric> add(MetricKey key) {
+            if (sealed) {
+                return null;
+            }
+            requests.incrementAndGet();
+            return waiting.computeIfAbsent(key, k -> new CompletableFuture<>());
+        }
+
+        synchronized int size() {
+            return waiting.size();
+        }
+
+        synchronized boolean seal() {
+            if (sealed) {
+                return false;
+            }
+            sealed = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.insights.repository;
+
+import com.example.insights.clickhouse.ClickHouseEndpoint;
+import com.example.insights.clickhouse.ClickHouseHttpClient;
+import com.example.insights.clickhouse.ClickHouseQuery;
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.clickhouse.RowBinaryInput;
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ClickHouse source repository that talks to the HTTP interface directly instead of going through
+ * clickhouse-jdbc. Queries are prepared once with server-side parameters, results come back as
+ * (optionally LZ4-compressed) RowBinary, and connections are kept alive between lookups.
+ * Enabled with {@code clickhouse.client=http}.
+ */
+@Repository
+@Qualifier(MetricsSourceRepository.BACKEND)
+@ConditionalOnProperty(name = "clickhouse.client", havingValue = "http")
+public class ClickHouseHttpMetricsRepository implements MetricsSourceRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseHttpMetricsRepository.class);
+
+    // version is the row's update time in epoch millis; the newest row wins
+    private static final ClickHouseQuery QUERY_WITH_TENANT = new ClickHouseQuery("metric-with-tenant", """
+        SELECT toInt64(value), toUnixTimestamp64Milli(toDateTime64(updated_at, 3)) FROM ad_metrics
+        WHERE tenant_id = {tenantId:String} AND campaign_id = {campaignId:String} AND metric_type = {metricType:String}
+        ORDER BY updated_at DESC
+        LIMIT 1
+        """);
+
+    private static final ClickHouseQuery QUERY_WITHOUT_TENANT = new ClickHouseQuery("metric-without-tenant", """
+        SELECT toInt64(value), toUnixTimestamp64Milli(toDateTime64(updated_at, 3)) FROM ad_metrics
+        WHERE campaign_id = {campaignId:String} AND metric_type = {metricType:String}
+        ORDER BY updated_at DESC
+        LIMIT 1
+        """);
+
+    // has() on constant arrays narrows by primary key; exact (campaign, metric) pairs are matched client-side
+    private static final ClickHouseQuery BATCH_QUERY_WITH_TENANT = new ClickHouseQuery("metrics-batch-with-tenant", """
+        SELECT campaign_id, metric_type, toInt64(value), toUnixTimestamp64Milli(toDateTime64(updated_at, 3))
+        FROM ad_metrics
+        WHERE tenant_id = {tenantId:String}
+          AND has({campaignIds:Array(String)}, campaign_id) AND has({metricTypes:Array(String)}, metric_type)
+        ORDER BY updated_at DESC
+        LIMIT 1 BY campaign_id, metric_type
+        """);
+
+    private static final ClickHouseQuery BATCH_QUERY_WITHOUT_TENANT = new ClickHouseQuery("metrics-batch-without-tenant", """
+        SELECT campaign_id, metric_type, toInt64(value), toUnixTimestamp64Milli(toDateTime64(updated_at, 3))
+        FROM ad_metrics
+        WHERE has({campaignIds:Array(String)}, campaign_id) AND has({metricTypes:Array(String)}, metric_type)
+        ORDER BY updated_at DESC
+        LIMIT 1 BY campaign_id, metric_type
+        """);
+
+    private static final ClickHouseQuery TOP_CAMPAIGNS_QUERY = new ClickHouseQuery("top-campaigns", """
+        SELECT campaign_id, toInt64(argMax(value, updated_at)) AS value FROM ad_metrics
+        WHERE tenant_id = {tenantId:String} AND metric_type = {metricType:String}
+        GROUP BY campaign_id
+        ORDER BY value DESC
+        LIMIT {limit:UInt32}
+        """);
+
+    private static final ClickHouseQuery UNIQUE_REACH_QUERY = new ClickHouseQuery("unique-reach", """
+        SELECT toInt64(uniqCombinedMerge(users)) FROM ad_reach_daily
+        WHERE tenant_id = {tenantId:String} AND metric_type = {metricType:String}
+          AND day BETWEEN {from:Date} AND {to:Date} AND has({campaignIds:Array(String)}, campaign_id)
+        """);
+
+    private static final ClickHouseQuery WARM_UP_QUERY = new ClickHouseQuery("warm-up", "SELECT toInt64(1)");
+
+    private final ClickHouseHttpClient client;
+    private final ClickHouseReplicaRouter router;
+    private final Map<String, ClickHouseEndpoint> endpoints = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ClickHouseHttpMetricsRepository(
+            ClickHouseReplicaRouter router,
+            @Value("${clickhouse.username:default}") String username,
+            @Value("${clickhouse.password:}") String password,
+            @Value("${clickhouse.http.timeout:PT2S}") Duration timeout,
+            @Value("${clickhouse.http.compress:true}") boolean compress,
+            MeterRegistry meterRegistry) {
+        this.router = router;
+        for (String replicaUrl : router.replicaUrls()) {
+            endpoints.put(replicaUrl, ClickHouseEndpoint.fromJdbcUrl(replicaUrl));
+        }
+        this.client = new ClickHouseHttpClient(username, password, timeout, compress);
+        this.meterRegistry = meterRegistry;
+        logger.info("ClickHouseHttpMetricsRepository initialized with endpoints: {}, compression: {}",
+                endpoints.values(), compress);
+    }
+
+    @Override
+    public VersionedMetric getMetric(String campaignId, String metricType) {
+        String tenantId = TenantContext.getTenantId();
+        logger.debug("Querying ClickHouse over HTTP for tenant: {}, campaign: {}, metric: {}",
+                    tenantId, campaignId, metricType);
+
+        try {
+            VersionedMetric value;
+            if (tenantId != null) {
+                value = execute(QUERY_WITH_TENANT,
+                        Map.of("tenantId", tenantId, "campaignId", campaignId, "metricType", metricType),
+                        ClickHouseHttpMetricsRepository::readVersionedMetric);
+            } else {
+                logger.warn("TenantId is null, querying without tenant filter");
+                value = execute(QUERY_WITHOUT_TENANT,
+                        Map.of("campaignId", campaignId, "metricType", metricType),
+                        ClickHouseHttpMetricsRepository::readVersionedMetric);
+            }
+
+            if (value == null) {
+                logger.debug("No data found in ClickHouse for tenant: {}, campaign: {}, metric: {}",
+                            tenantId, campaignId, metricType);
+            }
+            return value;
+
+        } catch (IOException e) {
+            logger.error("ClickHouse HTTP error while fetching metric for tenant: {}, campaign: {}, metric: {}. Error: {}",
+                        tenantId, campaignId, metricType, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public Map<MetricKey, VersionedMetric> getMetrics(String tenantId, Collection<MetricKey> keys) {
+        logger.debug("Querying ClickHouse over HTTP for {} metrics of tenant: {}", keys.size(), tenantId);
+
+        Set<String> campaignIds = new LinkedHashSet<>();
+        Set<String> metricTypes = new LinkedHashSet<>();
+        for (MetricKey key : keys) {
+            campaignIds.add(key.campaignId());
+            metricTypes.add(key.metricType());
+        }
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("campaignIds", ClickHouseQuery.arrayLiteral(campaignIds));
+        parameters.put("metricTypes", ClickHouseQuery.arrayLiteral(metricTypes));
+        if (tenantId != null) {
+            parameters.put("tenantId", tenantId);
+        }
+
+        try {
+            return execute(tenantId != null ? BATCH_QUERY_WITH_TENANT : BATCH_QUERY_WITHOUT_TENANT, parameters,
+                    input -> {
+                        Map<MetricKey, VersionedMetric> values = new HashMap<>(keys.size() * 2);
+                        while (input.hasMore()) {
+                            MetricKey key = new MetricKey(input.readString(), input.readString());
+                            VersionedMetric value = new VersionedMetric(input.readInt64(), input.readInt64());
+                            if (keys.contains(key)) {
+                                values.put(key, value);
+                            }
+                        }
+                        return values;
+                    });
+        } catch (IOException e) {
+            logger.error("ClickHouse HTTP error while fetching {} metrics for tenant: {}. Error: {}",
+                        keys.size(), tenantId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<AdMetricResponse> getTopCampaigns(String metricType, int limit) {
+        String tenantId = TenantContext.getTenantId();
+        logger.debug("Querying ClickHouse over HTTP for top {} campaigns by {} for tenant: {}", limit, metricType, tenantId);
+
+        try {
+            return execute(TOP_CAMPAIGNS_QUERY,
+                    Map.of("tenantId", tenantId, "metricType", metricType, "limit", String.valueOf(limit)),
+                    input -> {
+                        List<AdMetricResponse> top = new ArrayList<>(limit);
+                        while (input.hasMore()) {
+                            top.add(new AdMetricResponse(input.readString(), input.readInt64()));
+                        }
+                        return top;
+                    });
+        } catch (IOException e) {
+            logger.error("ClickHouse HTTP error while fetching top campaigns for tenant: {}, metric: {}. Error: {}",
+                        tenantId, metricType, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public Long countUnique(String metricType, Collection<String> campaignIds, LocalDate from, LocalDate to) {
+        String tenantId = TenantContext.getTenantId();
+        logger.debug("Querying ClickHouse over HTTP for unique {} of {} campaigns from {} to {} for tenant: {}",
+                    metricType, campaignIds.size(), from, to, tenantId);
+
+        try {
+            return execute(UNIQUE_REACH_QUERY,
+                    Map.of("tenantId", tenantId, "metricType", metricType, "from", from.toString(), "to", to.toString(),
+                            "campaignIds", ClickHouseQuery.arrayLiteral(new LinkedHashSet<>(campaignIds))),
+                    input -> input.hasMore() ? input.readInt64() : 0L);
+        } catch (IOException e) {
+            logger.error("ClickHouse HTTP error while counting unique {} for tenant: {}. Error: {}",
+                        metricType, tenantId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Opens a keep-alive connection to every replica and runs a trivial query through the
+     * RowBinary (and LZ4) decoding path ahead of the first request.
+     */
+    @Override
+    public void warmUp() {
+        for (ClickHouseEndpoint endpoint : endpoints.values()) {
+            try {
+                client.execute(endpoint, WARM_UP_QUERY, Map.of(), input -> input.hasMore() ? input.readInt64() : null);
+                logger.info("ClickHouse HTTP warm-up completed for endpoint: {}", endpoint);
+            } catch (IOException e) {
+                logger.warn("ClickHouse HTTP warm-up failed for endpoint: {}. Error: {}", endpoint, e.getMessage());
+            }
+        }
+    }
+
+    private <T> T execute(ClickHouseQuery query, Map<String, String> parameters,
+                          ClickHouseHttpClient.RowBinaryHandler<T> handler) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return router.execute((replicaUrl, cancellation) ->
+                    client.execute(endpoints.get(replicaUrl), query, parameters, cancellation, handler));
+        } catch (IOException e) {
+            outcome = "error";
+            throw e;
+        } catch (Exception e) {
+            // Router-level failures (hedge timeout, interruption) surface like transport errors
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            outcome = "error";
+            throw new IOException("ClickHouse query " + query.name() + " failed on all replicas", e);
+        } finally {
+            sample.stop(Timer.builder("insights.clickhouse.http.query")
+                    .description("ClickHouse HTTP query latency")
+                    .tag("query", query.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static VersionedMetric readVersionedMetric(RowBinaryInput input) throws IOException {
+        return input.hasMore() ? new VersionedMetric(input.readInt64(), input.readInt64()) : null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.insights.repository;
+
+import com.example.insights.clickhouse.ClickHouseEndpoint;
+import com.example.insights.clickhouse.ClickHouseHttpClient;
+import com.example.insights.clickhouse.ClickHouseQuery;
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.constants.ExportFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports metrics through ClickHouse's HTTP interface regardless of {@code clickhouse.client}.
+ * ClickHouse encodes the rows in the requested format (and gzips them when asked), and the
+ * response is copied to the caller's output through a fixed-size buffer as it arrives, so memory
+ * use does not depend on the number of rows.
+ *
+ * Each export runs under its own {@code query_id}. If copying fails, typically because the client
+ * went away, the ClickHouse connection is dropped, which cancels the query by itself with
+ * {@code cancel_http_readonly_queries_on_client_close}, and a {@code KILL QUERY} is sent as well.
+ * Replicas are tried in the router's order until one accepts the query; once rows have been
+ * written there is no failover.
+ */
+@Repository
+public class ClickHouseMetricsExportRepository implements MetricsExportRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickHouseMetricsExportRepository.class);
+
+    // Latest value per campaign and metric; aggregating avoids sorting the whole tenant
+    private static final String EXPORT_SQL = """
+        SELECT campaign_id, metric_type, toInt64(argMax(value, updated_at)) AS value, max(updated_at) AS updated_at
+        FROM ad_metrics
+        WHERE tenant_id = {tenantId:String}
+          AND (empty({metricTypes:Array(String)}) OR has({metricTypes:Array(String)}, metric_type))
+        GROUP BY campaign_id, metric_type
+        """;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<ExportFormat, ClickHouseQuery> queries = new EnumMap<>(ExportFormat.class);
+    private final ClickHouseReplicaRouter router;
+    private final ClickHouseHttpClient client;
+    private final Map<String, ClickHouseEndpoint> endpoints = new LinkedHashMap<>();
+    private final Duration maxExecutionTime;
+    private final int gzipLevel;
+
+    public ClickHouseMetricsExportRepository(
+            ClickHouseReplicaRouter router,
+            @Value("${clickhouse.username:default}") String username,
+            @Value("${clickhouse.password:}") String password,
+            @Value("${export.first-row-timeout:PT2M}") Duration firstRowTimeout,
+            @Value("${export.max-execution-time:PT30M}") Duration maxExecutionTime,
+            @Value("${export.gzip-level:3}") int gzipLevel) {
+        this.router = router;
+        for (String replicaUrl : router.replicaUrls()) {
+            endpoints.put(replicaUrl, ClickHouseEndpoint.fromJdbcUrl(replicaUrl));
+        }
+        for (ExportFormat format : ExportFormat.values()) {
+            queries.put(format, new ClickHouseQuery("export-" + format.fileExtension(), EXPORT_SQL, format.clickHouseFormat()));
+        }
+        // The request timeout only bounds the wait for the response headers, i.e. the first block
+        this.client = new ClickHouseHttpClient(username, password, firstRowTimeout, false);
+        this.maxExecutionTime = maxExecutionTime;
+        this.gzipLevel = gzipLevel;
+        logger.info("ClickHouseMetricsExportRepository initialized with endpoints: {}, max execution time: {}",
+                endpoints.values(), maxExecutionTime);
+    }
+
+    @Override
+    public long export(String tenantId, Collection<String> metricTypes, ExportFormat format, boolean gzip,
+                       OutputStream out) throws IOException {
+        String queryId = "export-" + UUID.randomUUID();
+        Map<String, String> parameters = Map.of(
+                "tenantId", tenantId,
+                "metricTypes", ClickHouseQuery.arrayLiteral(metricTypes));
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("query_id", queryId);
+        settings.put("max_execution_time", String.valueOf(maxExecutionTime.toSeconds()));
+        settings.put("cancel_http_readonly_queries_on_client_close", "1");
+        settings.put("output_format_arrow_string_as_string", "1");
+        settings.put("http_zlib_compression_level", String.valueOf(gzipLevel));
+
+        IOException lastFailure = null;
+        for (String replicaUrl : router.rankedReplicaUrls()) {
+            ClickHouseEndpoint endpoint = endpoints.get(replicaUrl);
+            Copy copy = new Copy(out, gzip);
+            logger.debug("Starting export {} of tenant: {} in format {} on {}", queryId, tenantId, format, endpoint);
+            try {
+                return client.stream(endpoint, queries.get(format), parameters, settings, gzip, copy);
+            } catch (IOException e) {
+                if (copy.started) {
+                    logger.warn("Export {} of tenant: {} aborted after {} bytes, cancelling the query on {}. Error: {}",
+                            queryId, tenantId, copy.written, endpoint, e.toString());
+                    killQuery(endpoint, queryId);
+                    throw e;
+                }
+                lastFailure = e;
+                logger.warn("Export {} of tenant: {} could not start on {}, trying next replica. Error: {}",
+                        queryId, tenantId, endpoint, e.getMessage());
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * Sends KILL QUERY even if the export's thread was interrupted, which is how an async request
+     * whose client disconnected is usually torn down; the interrupt is restored afterwards.
+     */
+    private void killQuery(ClickHouseEndpoint endpoint, String queryId) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            client.killQuery(endpoint, queryId);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Copies one response to the output, gzipping it locally if the server did not.
+     */
+    private static final class Copy implements ClickHouseHttpClient.ResponseBodyHandler<Long> {
+
+        private final OutputStream out;
+        private final boolean gzip;
+        volatile boolean started;
+        volatile long written;
+
+        Copy(OutputStream out, boolean gzip) {
+            this.out = out;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public Long handle(InputStream body, boolean gzipped) throws IOException {
+            started = true;
+            CountingOutputStream counting = new CountingOutputStream(out);
+            OutputStream target = gzip && !gzipped ? new GZIPOutputStream(counting, BUFFER_SIZE) : counting;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                target.write(buffer, 0, read);
+                written = counting.count;
+            }
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            target.flush();
+            written = counting.count;
+            return written;
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+}
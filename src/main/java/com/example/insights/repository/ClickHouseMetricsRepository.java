@@ -1,52 +1,98 @@
 package com.example.insights.repository;
 
+import com.example.insights.clickhouse.Cancellation;
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.dto.AdMetricResponse;
 import com.example.insights.multitenancy.TenantContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Repository
-public class ClickHouseMetricsRepository {
+@Qualifier(MetricsSourceRepository.BACKEND)
+@ConditionalOnProperty(name = "clickhouse.client", havingValue = "jdbc", matchIfMissing = true)
+public class ClickHouseMetricsRepository implements MetricsSourceRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(ClickHouseMetricsRepository.class);
     
+    // version is the row's update time in epoch millis; the newest row wins
     private static final String QUERY_WITH_TENANT = """
-        SELECT value FROM ad_metrics
+        SELECT value, toUnixTimestamp64Milli(toDateTime64(updated_at, 3)) AS version FROM ad_metrics
         WHERE tenant_id = ? AND campaign_id = ? AND metric_type = ?
+        ORDER BY updated_at DESC
         LIMIT 1
         """;
     
     private static final String QUERY_WITHOUT_TENANT = """
-        SELECT value FROM ad_metrics
+        SELECT value, toUnixTimestamp64Milli(toDateTime64(updated_at, 3)) AS version FROM ad_metrics
         WHERE campaign_id = ? AND metric_type = ?
+        ORDER BY updated_at DESC
         LIMIT 1
         """;
 
-    private final String url;
+    private static final String TOP_CAMPAIGNS_QUERY = """
+        SELECT campaign_id, argMax(value, updated_at) AS value FROM ad_metrics
+        WHERE tenant_id = ? AND metric_type = ?
+        GROUP BY campaign_id
+        ORDER BY value DESC
+        LIMIT ?
+        """;
+
+    // Placeholders: optional tenant filter, then one "(?, ?)" per requested key
+    private static final String BATCH_QUERY = """
+        SELECT campaign_id, metric_type, value, toUnixTimestamp64Milli(toDateTime64(updated_at, 3)) AS version
+        FROM ad_metrics
+        WHERE %s(campaign_id, metric_type) IN (%s)
+        ORDER BY updated_at DESC
+        LIMIT 1 BY campaign_id, metric_type
+        """;
+
+    // ad_reach_daily holds one AggregateFunction(uniqCombined, String) state per tenant, campaign,
+    // metric and day; merging states is proportional to the number of rows, not to the events
+    private static final String UNIQUE_REACH_QUERY = """
+        SELECT toInt64(uniqCombinedMerge(users)) AS value FROM ad_reach_daily
+        WHERE tenant_id = ? AND metric_type = ? AND day BETWEEN ? AND ? AND campaign_id IN (%s)
+        """;
+
+    private static final String WARM_UP_QUERY = "SELECT 1";
 
-    public ClickHouseMetricsRepository(
-            @Value("${clickhouse.url:jdbc:clickhouse://localhost:8123/shopstream}") String url) {
-        this.url = url;
-        logger.info("ClickHouseMetricsRepository initialized with URL: {}", url);
+    private final ClickHouseReplicaRouter router;
+
+    public ClickHouseMetricsRepository(ClickHouseReplicaRouter router) {
+        this.router = router;
+        logger.info("ClickHouseMetricsRepository initialized with replicas: {}", router.replicaAddresses());
     }
 
-    public Long getMetric(String campaignId, String metricType) {
+    @Override
+    public VersionedMetric getMetric(String campaignId, String metricType) {
         String tenantId = TenantContext.getTenantId();
         logger.debug("Querying ClickHouse for tenant: {}, campaign: {}, metric: {}", 
                     tenantId, campaignId, metricType);
         
-        try (Connection conn = DriverManager.getConnection(url)) {
-            
-            // Use tenant-aware query if tenant context is set
-            if (tenantId != null) {
-                return queryWithTenant(conn, tenantId, campaignId, metricType);
-            } else {
-                logger.warn("TenantId is null, querying without tenant filter");
-                return queryWithoutTenant(conn, campaignId, metricType);
-            }
+        try {
+            return router.execute((replicaUrl, cancellation) -> {
+                try (Connection conn = DriverManager.getConnection(replicaUrl)) {
+
+                    // Use tenant-aware query if tenant context is set
+                    if (tenantId != null) {
+                        return queryWithTenant(conn, cancellation, tenantId, campaignId, metricType);
+                    } else {
+                        logger.warn("TenantId is null, querying without tenant filter");
+                        return queryWithoutTenant(conn, cancellation, campaignId, metricType);
+                    }
+                }
+            });
 
         } catch (SQLException e) {
             logger.error("Database error while fetching metric for tenant: {}, campaign: {}, metric: {}. Error: {}", 
@@ -59,19 +105,162 @@ public class ClickHouseMetricsRepository {
         }
     }
 
+    @Override
+    public Map<MetricKey, VersionedMetric> getMetrics(String tenantId, Collection<MetricKey> keys) {
+        logger.debug("Querying ClickHouse for {} metrics of tenant: {}", keys.size(), tenantId);
+
+        String sql = String.format(BATCH_QUERY,
+                tenantId != null ? "tenant_id = ? AND " : "",
+                String.join(", ", Collections.nCopies(keys.size(), "(?, ?)")));
+
+        try {
+            Map<MetricKey, VersionedMetric> values = router.execute((replicaUrl, cancellation) -> {
+                try (Connection conn = DriverManager.getConnection(replicaUrl);
+                     PreparedStatement ps = conn.prepareStatement(sql)) {
+                    cancelOnRequest(cancellation, ps);
+                    int index = 1;
+                    if (tenantId != null) {
+                        ps.setString(index++, tenantId);
+                    }
+                    for (MetricKey key : keys) {
+                        ps.setString(index++, key.campaignId());
+                        ps.setString(index++, key.metricType());
+                    }
+
+                    Map<MetricKey, VersionedMetric> found = new HashMap<>(keys.size() * 2);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            found.put(new MetricKey(rs.getString("campaign_id"), rs.getString("metric_type")),
+                                    new VersionedMetric(rs.getLong("value"), rs.getLong("version")));
+                        }
+                    }
+                    return found;
+                }
+            });
+
+            logger.debug("Found {} of {} metrics in ClickHouse for tenant: {}", values.size(), keys.size(), tenantId);
+            return values;
+
+        } catch (SQLException e) {
+            logger.error("Database error while fetching {} metrics for tenant: {}. Error: {}",
+                        keys.size(), tenantId, e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching {} metrics for tenant: {}", keys.size(), tenantId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public List<AdMetricResponse> getTopCampaigns(String metricType, int limit) {
+        String tenantId = TenantContext.getTenantId();
+        logger.debug("Querying ClickHouse for top {} campaigns by {} for tenant: {}", limit, metricType, tenantId);
+
+        try {
+            List<AdMetricResponse> top = router.execute((replicaUrl, cancellation) -> {
+                try (Connection conn = DriverManager.getConnection(replicaUrl);
+                     PreparedStatement ps = conn.prepareStatement(TOP_CAMPAIGNS_QUERY)) {
+                    cancelOnRequest(cancellation, ps);
+                    ps.setString(1, tenantId);
+                    ps.setString(2, metricType);
+                    ps.setInt(3, limit);
+
+                    List<AdMetricResponse> campaigns = new ArrayList<>(limit);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            campaigns.add(new AdMetricResponse(rs.getString("campaign_id"), rs.getLong("value")));
+                        }
+                    }
+                    return campaigns;
+                }
+            });
+
+            logger.debug("Found {} top campaigns in ClickHouse for tenant: {}, metric: {}",
+                        top.size(), tenantId, metricType);
+            return top;
+
+        } catch (SQLException e) {
+            logger.error("Database error while fetching top campaigns for tenant: {}, metric: {}. Error: {}",
+                        tenantId, metricType, e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            logger.error("Unexpected error while fetching top campaigns for tenant: {}, metric: {}",
+                        tenantId, metricType, e);
+            return null;
+        }
+    }
+
+    @Override
+    public Long countUnique(String metricType, Collection<String> campaignIds, LocalDate from, LocalDate to) {
+        String tenantId = TenantContext.getTenantId();
+        logger.debug("Querying ClickHouse for unique {} of {} campaigns from {} to {} for tenant: {}",
+                    metricType, campaignIds.size(), from, to, tenantId);
+
+        String sql = String.format(UNIQUE_REACH_QUERY, String.join(", ", Collections.nCopies(campaignIds.size(), "?")));
+
+        try {
+            return router.execute((replicaUrl, cancellation) -> {
+                try (Connection conn = DriverManager.getConnection(replicaUrl);
+                     PreparedStatement ps = conn.prepareStatement(sql)) {
+                    cancelOnRequest(cancellation, ps);
+                    int index = 1;
+                    ps.setString(index++, tenantId);
+                    ps.setString(index++, metricType);
+                    ps.setObject(index++, from);
+                    ps.setObject(index++, to);
+                    for (String campaignId : campaignIds) {
+                        ps.setString(index++, campaignId);
+                    }
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return rs.next() ? rs.getLong("value") : 0L;
+                    }
+                }
+            });
+
+        } catch (SQLException e) {
+            logger.error("Database error while counting unique {} for tenant: {}. Error: {}",
+                        metricType, tenantId, e.getMessage(), e);
+            return null;
+        } catch (Exception e) {
+            logger.error("Unexpected error while counting unique {} for tenant: {}", metricType, tenantId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the JDBC driver and runs a trivial query on every replica ahead of the first request.
+     */
+    @Override
+    public void warmUp() {
+        List<String> replicaUrls = router.replicaUrls();
+        List<String> addresses = router.replicaAddresses();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            try (Connection conn = DriverManager.getConnection(replicaUrls.get(i));
+                 Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery(WARM_UP_QUERY)) {
+                rs.next();
+                logger.info("ClickHouse warm-up completed for replica: {}", addresses.get(i));
+            } catch (SQLException e) {
+                logger.warn("ClickHouse warm-up failed for replica: {}. Error: {}", addresses.get(i), e.getMessage());
+            }
+        }
+    }
+
     /**
      * Queries ClickHouse with tenant ID filter.
      */
-    private Long queryWithTenant(Connection conn, String tenantId, String campaignId, String metricType) 
-            throws SQLException {
+    private VersionedMetric queryWithTenant(Connection conn, Cancellation cancellation, String tenantId,
+                                            String campaignId, String metricType) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(QUERY_WITH_TENANT)) {
+            cancelOnRequest(cancellation, ps);
             ps.setString(1, tenantId);
             ps.setString(2, campaignId);
             ps.setString(3, metricType);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    Long value = rs.getLong("value");
+                    VersionedMetric value = new VersionedMetric(rs.getLong("value"), rs.getLong("version"));
                     logger.debug("Found value {} in ClickHouse for tenant: {}, campaign: {}, metric: {}", 
                                value, tenantId, campaignId, metricType);
                     return value;
@@ -87,15 +276,16 @@ public class ClickHouseMetricsRepository {
     /**
      * Queries ClickHouse without tenant ID filter (fallback for backward compatibility).
      */
-    private Long queryWithoutTenant(Connection conn, String campaignId, String metricType) 
-            throws SQLException {
+    private VersionedMetric queryWithoutTenant(Connection conn, Cancellation cancellation, String campaignId,
+                                               String metricType) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(QUERY_WITHOUT_TENANT)) {
+            cancelOnRequest(cancellation, ps);
             ps.setString(1, campaignId);
             ps.setString(2, metricType);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    Long value = rs.getLong("value");
+                    VersionedMetric value = new VersionedMetric(rs.getLong("value"), rs.getLong("version"));
                     logger.debug("Found value {} in ClickHouse for campaign: {}, metric: {}", 
                                value, campaignId, metricType);
                     return value;
@@ -106,4 +296,18 @@ public class ClickHouseMetricsRepository {
             return null;
         }
     }
+
+    /**
+     * Cancels the statement when the router aborts the call, e.g. after it lost a hedge race; the
+     * driver then kills the query and the blocked executeQuery fails.
+     */
+    private static void cancelOnRequest(Cancellation cancellation, Statement statement) {
+        cancellation.onCancel(() -> {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                logger.debug("Failed to cancel ClickHouse statement. Error: {}", e.getMessage());
+            }
+        });
+    }
 }
@@ -0,0 +1,114 @@
+package com.example.insights.repository;
+
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local leaderboards for the embedded (off-heap) deployment mode, where there is no Redis.
+ */
+@Repository
+@ConditionalOnProperty(name = "cache.backend", havingValue = "offheap")
+public class InMemoryLeaderboardRepository implements LeaderboardRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryLeaderboardRepository.class);
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+
+    public InMemoryLeaderboardRepository() {
+        logger.info("InMemoryLeaderboardRepository initialized");
+    }
+
+    @Override
+    public List<AdMetricResponse> getTop(String metricType, int k) {
+        Board board = boards.get(boardKey(TenantContext.getTenantId(), metricType));
+        if (board == null || board.isStale(System.currentTimeMillis())) {
+            return null;
+        }
+        return board.top(k);
+    }
+
+    @Override
+    public void record(String campaignId, String metricType, long value, int maxSize) {
+        Board board = boards.get(boardKey(TenantContext.getTenantId(), metricType));
+        if (board != null) {
+            board.update(campaignId, value);
+        }
+    }
+
+    @Override
+    public void seed(String metricType, List<AdMetricResponse> entries, Duration validFor, int maxSize) {
+        Board board = boards.computeIfAbsent(boardKey(TenantContext.getTenantId(), metricType), key -> new Board());
+        board.seed(entries, System.currentTimeMillis() + validFor.toMillis(), maxSize);
+    }
+
+    private static String boardKey(String tenantId, String metricType) {
+        return tenantId + ":" + metricType;
+    }
+
+    /**
+     * Score-ordered set plus a campaign index so that an update can find and replace the old score.
+     */
+    private static final class Board {
+
+        private static final Comparator<AdMetricResponse> ORDER =
+                Comparator.comparingLong(AdMetricResponse::getValue).reversed()
+                        .thenComparing(AdMetricResponse::getCampaignId);
+
+        private final TreeSet<AdMetricResponse> ranked = new TreeSet<>(ORDER);
+        private final Map<String, AdMetricResponse> byCampaign = new HashMap<>();
+        private long validUntil;
+        private int maxSize = Integer.MAX_VALUE;
+
+        synchronized boolean isStale(long now) {
+            return now >= validUntil;
+        }
+
+        synchronized List<AdMetricResponse> top(int k) {
+            List<AdMetricResponse> top = new ArrayList<>(Math.min(k, ranked.size()));
+            for (AdMetricResponse entry : ranked) {
+                if (top.size() == k) {
+                    break;
+                }
+                top.add(new AdMetricResponse(entry.getCampaignId(), entry.getValue()));
+            }
+            return top;
+        }
+
+        synchronized void update(String campaignId, long value) {
+            AdMetricResponse previous = byCampaign.remove(campaignId);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+            AdMetricResponse entry = new AdMetricResponse(campaignId, value);
+            ranked.add(entry);
+            byCampaign.put(campaignId, entry);
+            while (ranked.size() > maxSize) {
+                byCampaign.remove(ranked.pollLast().getCampaignId());
+            }
+        }
+
+        synchronized void seed(List<AdMetricResponse> entries, long validUntil, int maxSize) {
+            this.maxSize = maxSize;
+            this.validUntil = validUntil;
+            // A replacement: campaigns that dropped out of the top list must not linger
+            ranked.clear();
+            byCampaign.clear();
+            for (AdMetricResponse entry : entries) {
+                update(entry.getCampaignId(), entry.getValue());
+            }
+        }
+    }
+}
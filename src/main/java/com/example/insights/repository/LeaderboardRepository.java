@@ -0,0 +1,55 @@
+package com.example.insights.repository;
+
+import com.example.insights.dto.AdMetricResponse;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage SPI for per-tenant campaign leaderboards, one per metric type.
+ * Implementations resolve the tenant from the {@link com.example.insights.multitenancy.TenantContext}
+ * and must never throw on infrastructure failures.
+ */
+public interface LeaderboardRepository {
+
+    /**
+     * Returns the top campaigns for the current tenant, highest value first.
+     *
+     * @param metricType the metric type
+     * @param k the number of campaigns to return
+     * @return up to k campaigns, or null if the leaderboard is missing or due for a refresh
+     */
+    List<AdMetricResponse> getTop(String metricType, int k);
+
+    /**
+     * Incrementally updates a campaign's score on an existing leaderboard and trims it back to
+     * {@code maxSize} campaigns. No-op if the leaderboard has not been seeded, so that only
+     * requested leaderboards consume memory.
+     */
+    void record(String campaignId, String metricType, long value, int maxSize);
+
+    /**
+     * Updates the scores of several campaigns on an existing leaderboard, as {@link #record} does
+     * for one. Backends that can apply many scores in one round trip override this; the default
+     * falls back to one update per campaign.
+     *
+     * @param metricType the metric type
+     * @param values the new scores, keyed by campaign
+     * @param maxSize how many campaigns to retain
+     */
+    default void recordAll(String metricType, Map<String, Long> values, int maxSize) {
+        values.forEach((campaignId, value) -> record(campaignId, metricType, value, maxSize));
+    }
+
+    /**
+     * Replaces the leaderboard with a freshly loaded top list, dropping campaigns that are no
+     * longer in it, and starts a new refresh window.
+     *
+     * @param metricType the metric type
+     * @param entries the top campaigns from the source of truth
+     * @param validFor how long until the leaderboard should be re-seeded
+     * @param maxSize how many campaigns to retain
+     */
+    void seed(String metricType, List<AdMetricResponse> entries, Duration validFor, int maxSize);
+}
@@ -0,0 +1,10 @@
+package com.example.insights.repository;
+
+/**
+ * Identifies one metric of one campaign within a tenant.
+ *
+ * @param campaignId the campaign identifier
+ * @param metricType the metric type
+ */
+public record MetricKey(String campaignId, String metricType) {
+}
@@ -0,0 +1,85 @@
+package com.example.insights.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage SPI for the cache tier that sits in front of the metrics source of truth.
+ * Implementations resolve the tenant from the {@link com.example.insights.multitenancy.TenantContext}
+ * and must never throw on infrastructure failures - a failed lookup is reported as a miss.
+ */
+public interface MetricsCacheRepository {
+
+    /**
+     * Qualifier carried by the backend implementations (Redis, off-heap), so that layers decorating
+     * the cache tier can inject the backend while the service injects the outermost layer.
+     */
+    String BACKEND = "cacheBackend";
+
+    /**
+     * Looks up a cached metric value for the current tenant.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @return the cached value, or null on a miss
+     */
+    Long getMetric(String campaignId, String metricType);
+
+    /**
+     * Caches a metric value for the current tenant.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param value the metric value to cache
+     */
+    void saveMetric(String campaignId, String metricType, Long value);
+
+    /**
+     * Caches a metric value read at a known version for the current tenant. Backends that can
+     * compare versions atomically never replace a newer cached version with an older one; the
+     * default ignores the version.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param metric the metric value and the version it was read at
+     */
+    default void saveMetric(String campaignId, String metricType, VersionedMetric metric) {
+        saveMetric(campaignId, metricType, metric.value());
+    }
+
+    /**
+     * Caches several versioned metric values for the current tenant. Backends that can write many
+     * keys in one round trip override this; the default falls back to one write per key.
+     *
+     * @param metrics the metric values and the versions they were read at
+     */
+    default void saveMetrics(Map<MetricKey, VersionedMetric> metrics) {
+        metrics.forEach((key, metric) -> saveMetric(key.campaignId(), key.metricType(), metric));
+    }
+
+    /**
+     * Looks up several cached metrics for the current tenant. Backends that can fetch many keys in
+     * one round trip override this; the default falls back to one lookup per key.
+     *
+     * @param keys the metrics to look up
+     * @return the cached values, keyed by metric; misses are absent
+     */
+    default Map<MetricKey, Long> getMetrics(Collection<MetricKey> keys) {
+        Map<MetricKey, Long> values = new HashMap<>(keys.size() * 2);
+        for (MetricKey key : keys) {
+            Long value = getMetric(key.campaignId(), key.metricType());
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Opens connections and loads client code ahead of the first request. Called once before the
+     * application reports ready; implementations log failures instead of throwing.
+     */
+    default void warmUp() {
+    }
+}
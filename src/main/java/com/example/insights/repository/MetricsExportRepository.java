@@ -0,0 +1,30 @@
+package com.example.insights.repository;
+
+import com.example.insights.constants.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * Storage SPI for bulk exports of a tenant's metrics. Unlike the lookup repositories, an export
+ * writes straight to the caller's output while rows are still being read, so failures are thrown
+ * rather than reported as empty results: once output has started there is nothing to fall back to.
+ */
+public interface MetricsExportRepository {
+
+    /**
+     * Streams the latest value of every campaign metric of a tenant, in constant memory.
+     *
+     * @param tenantId the tenant whose metrics are exported
+     * @param metricTypes the metric types to export; empty exports all of them
+     * @param format the output format
+     * @param gzip whether to gzip the output
+     * @param out where the encoded rows are written; not closed
+     * @return the number of bytes written to {@code out}
+     * @throws IOException if reading the source or writing the output fails; the source query is
+     *                     cancelled in either case
+     */
+    long export(String tenantId, Collection<String> metricTypes, ExportFormat format, boolean gzip, OutputStream out)
+            throws IOException;
+}
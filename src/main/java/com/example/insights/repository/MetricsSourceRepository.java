@@ -0,0 +1,68 @@
+package com.example.insights.repository;
+
+import com.example.insights.dto.AdMetricResponse;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage SPI for the metrics source of truth (populated upstream by the streaming pipeline).
+ * Implementations resolve the tenant from the {@link com.example.insights.multitenancy.TenantContext}.
+ */
+public interface MetricsSourceRepository {
+
+    /**
+     * Qualifier carried by the ClickHouse implementations, so that layers decorating the source
+     * can inject the underlying client while the service injects the outermost layer.
+     */
+    String BACKEND = "sourceBackend";
+
+    /**
+     * Loads the latest version of a metric for the current tenant.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @return the metric value and its version, or null if the campaign has no such metric
+     */
+    VersionedMetric getMetric(String campaignId, String metricType);
+
+    /**
+     * Loads several metrics of one tenant with a single set-based query. The tenant is passed
+     * explicitly because batched loads run off the request thread.
+     *
+     * @param tenantId the tenant identifier, or null to query without a tenant filter
+     * @param keys the metrics to load
+     * @return the latest values found, keyed by metric; missing keys are absent. Null if the source is unavailable
+     */
+    Map<MetricKey, VersionedMetric> getMetrics(String tenantId, Collection<MetricKey> keys);
+
+    /**
+     * Loads the current tenant's campaigns with the highest values for a metric.
+     *
+     * @param metricType the metric type
+     * @param limit the maximum number of campaigns to return
+     * @return campaigns ordered by value descending, or null if the source is unavailable
+     */
+    List<AdMetricResponse> getTopCampaigns(String metricType, int limit);
+
+    /**
+     * Estimates the current tenant's distinct users across several campaigns and days by merging
+     * the pre-aggregated daily {@code uniqCombined} states, without rescanning raw events.
+     *
+     * @param metricType the unique-reach metric type
+     * @param campaignIds the campaigns to union
+     * @param from the first UTC day, inclusive
+     * @param to the last UTC day, inclusive
+     * @return the estimated distinct count, or null if the source is unavailable
+     */
+    Long countUnique(String metricType, Collection<String> campaignIds, LocalDate from, LocalDate to);
+
+    /**
+     * Opens connections and loads client code ahead of the first request. Called once before the
+     * application reports ready; implementations log failures instead of throwing.
+     */
+    default void warmUp() {
+    }
+}
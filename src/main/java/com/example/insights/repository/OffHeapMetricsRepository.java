@@ -0,0 +1,77 @@
+package com.example.insights.repository;
+
+import com.example.insights.cache.OffHeapMetricStore;
+import com.example.insights.multitenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+/**
+ * Embedded cache tier backed by an {@link OffHeapMetricStore}.
+ * Intended for single-node and edge deployments that do not run Redis.
+ * Enabled with {@code cache.backend=offheap}.
+ */
+@Repository
+@Qualifier(MetricsCacheRepository.BACKEND)
+@ConditionalOnProperty(name = "cache.backend", havingValue = "offheap")
+public class OffHeapMetricsRepository implements MetricsCacheRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapMetricsRepository.class);
+
+    private final OffHeapMetricStore store;
+    private final Duration cacheTtl;
+
+    public OffHeapMetricsRepository(OffHeapMetricStore store,
+                                    @Value("${cache.offheap.ttl:${redis.cache.ttl:PT1H}}") Duration cacheTtl) {
+        this.store = store;
+        this.cacheTtl = cacheTtl;
+        logger.info("OffHeapMetricsRepository initialized with cache TTL: {}", cacheTtl);
+    }
+
+    @Override
+    public Long getMetric(String campaignId, String metricType) {
+        String tenantId = TenantContext.getTenantId();
+        long value = store.get(tenantId, campaignId, metricType);
+
+        if (value == OffHeapMetricStore.MISSING) {
+            logger.debug("No value found off-heap for tenant: {}, campaign: {}, metric: {}",
+                    tenantId, campaignId, metricType);
+            return null;
+        }
+
+        logger.debug("Retrieved value {} off-heap for tenant: {}, campaign: {}, metric: {}",
+                value, tenantId, campaignId, metricType);
+        return value;
+    }
+
+    @Override
+    public void saveMetric(String campaignId, String metricType, Long value) {
+        String tenantId = TenantContext.getTenantId();
+        long expiresAt = System.currentTimeMillis() + cacheTtl.toMillis();
+
+        if (!store.put(tenantId, campaignId, metricType, value, expiresAt)) {
+            // Don't throw - cache failures shouldn't break the API
+            logger.warn("Off-heap store is full, not caching metric for tenant: {}, campaign: {}, metric: {}",
+                    tenantId, campaignId, metricType);
+            return;
+        }
+
+        logger.debug("Cached metric off-heap for tenant: {}, campaign: {}, metric: {}, value: {}, TTL: {}",
+                tenantId, campaignId, metricType, value, cacheTtl);
+    }
+
+    /**
+     * Periodically reclaims slots held by expired entries.
+     */
+    @Scheduled(fixedDelayString = "${cache.offheap.sweep-interval:PT1M}")
+    public void sweepExpired() {
+        long removed = store.sweep();
+        logger.debug("Swept {} expired entries from off-heap store, {} remaining", removed, store.size());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.insights.repository;
+
+import com.example.insights.constants.RedisKeyConstants;
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Leaderboards kept as Redis sorted sets, shared by every instance.
+ * Reads are a single ZREVRANGE, i.e. O(log N + k) regardless of how many campaigns a tenant owns.
+ */
+@Repository
+@ConditionalOnProperty(name = "cache.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisLeaderboardRepository implements LeaderboardRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLeaderboardRepository.class);
+
+    /**
+     * ZADD only if the leaderboard already exists, so write-backs never create unbounded,
+     * TTL-less leaderboards for tenants that never ask for one, then trim it back to its size.
+     * ARGV: max size, then score and campaign per entry.
+     */
+    private static final RedisScript<Long> ZADD_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "for i = 2, #ARGV, 2 do "
+                    + "redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "end "
+                    + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[1]) + 1)) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * Replaces the leaderboard in one atomic step: campaigns that dropped out of the top list are
+     * removed rather than left behind with their old scores. A script instead of MULTI, because
+     * transactions are not available on Redis Cluster connections.
+     * ARGV: ttl millis, then score and campaign per entry.
+     */
+    private static final RedisScript<Long> REPLACE = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+                    + "for i = 2, #ARGV, 2 do "
+                    + "redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "end "
+                    + "if #ARGV > 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end "
+                    + "return (#ARGV - 1) / 2",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLeaderboardRepository(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        logger.info("RedisLeaderboardRepository initialized");
+    }
+
+    @Override
+    public List<AdMetricResponse> getTop(String metricType, int k) {
+        String tenantId = TenantContext.getTenantId();
+        String key = RedisKeyConstants.buildLeaderboardKey(tenantId, metricType);
+
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(
+                    RedisKeyConstants.buildLeaderboardSeededKey(tenantId, metricType)))) {
+                logger.debug("Leaderboard {} is missing or due for refresh", key);
+                return null;
+            }
+
+            Set<TypedTuple<String>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, k - 1);
+            List<AdMetricResponse> top = new ArrayList<>();
+            if (tuples != null) {
+                for (TypedTuple<String> tuple : tuples) {
+                    long score = tuple.getScore() == null ? 0L : tuple.getScore().longValue();
+                    top.add(new AdMetricResponse(tuple.getValue(), score));
+                }
+            }
+            logger.debug("Retrieved {} leaderboard entries from Redis for key: {}", top.size(), key);
+            return top;
+
+        } catch (Exception e) {
+            logger.error("Error reading leaderboard from Redis for key: {}. Error: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void record(String campaignId, String metricType, long value, int maxSize) {
+        String tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            return;
+        }
+        String key = RedisKeyConstants.buildLeaderboardKey(tenantId, metricType);
+
+        try {
+            redisTemplate.execute(ZADD_IF_EXISTS, List.of(key), String.valueOf(maxSize), String.valueOf(value), campaignId);
+        } catch (Exception e) {
+            // Don't throw - leaderboard updates shouldn't break the API
+            logger.error("Error updating leaderboard {} for campaign {}. Error: {}", key, campaignId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void recordAll(String metricType, Map<String, Long> values, int maxSize) {
+        String tenantId = TenantContext.getTenantId();
+        if (tenantId == null || values.isEmpty()) {
+            return;
+        }
+        String key = RedisKeyConstants.buildLeaderboardKey(tenantId, metricType);
+
+        try {
+            Object[] args = new Object[1 + 2 * values.size()];
+            args[0] = String.valueOf(maxSize);
+            int i = 1;
+            for (Map.Entry<String, Long> entry : values.entrySet()) {
+                args[i++] = String.valueOf(entry.getValue());
+                args[i++] = entry.getKey();
+            }
+            redisTemplate.execute(ZADD_IF_EXISTS, List.of(key), args);
+        } catch (Exception e) {
+            // Don't throw - leaderboard updates shouldn't break the API
+            logger.error("Error updating leaderboard {} for {} campaigns. Error: {}", key, values.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void seed(String metricType, List<AdMetricResponse> entries, Duration validFor, int maxSize) {
+        String tenantId = TenantContext.getTenantId();
+        String key = RedisKeyConstants.buildLeaderboardKey(tenantId, metricType);
+
+        try {
+            List<AdMetricResponse> top = entries.subList(0, Math.min(maxSize, entries.size()));
+            // Outlive the refresh window so reads between expiry and re-seed still have data
+            Object[] args = new Object[1 + 2 * top.size()];
+            args[0] = String.valueOf(validFor.multipliedBy(2).toMillis());
+            for (int i = 0; i < top.size(); i++) {
+                args[1 + 2 * i] = String.valueOf(top.get(i).getValue());
+                args[2 + 2 * i] = top.get(i).getCampaignId();
+            }
+            redisTemplate.execute(REPLACE, List.of(key), args);
+            redisTemplate.opsForValue().set(
+                    RedisKeyConstants.buildLeaderboardSeededKey(tenantId, metricType), "1", validFor);
+            logger.debug("Seeded leaderboard {} with {} entries, valid for {}", key, entries.size(), validFor);
+        } catch (Exception e) {
+            logger.error("Error seeding leaderboard in Redis for key: {}. Error: {}", key, e.getMessage());
+        }
+    }
+}
@@ -1,45 +1,147 @@
 package com.example.insights.repository;
 
+import com.example.insights.cache.AdaptiveTtlPolicy;
 import com.example.insights.constants.RedisKeyConstants;
 import com.example.insights.multitenancy.TenantContext;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisNoScriptException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceClusterConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Repository
-public class RedisMetricsRepository {
+@Qualifier(MetricsCacheRepository.BACKEND)
+@ConditionalOnProperty(name = "cache.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisMetricsRepository implements MetricsCacheRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisMetricsRepository.class);
+    private static final char VERSION_SEPARATOR = ':';
+
+    /**
+     * Compare-and-set write-back. Values are stored as "value:version" and a write only lands if
+     * the cached version is not newer, so a slow reader can never put back an older value. Only
+     * this script writes the versioned keyspace ({@link RedisKeyConstants#buildVersionedKey}), but
+     * an entry without a separator would count as unversioned.
+     */
+    private static final RedisScript<Long> SET_IF_NOT_NEWER = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) "
+                    + "if current then "
+                    + "local separator = string.find(current, ':', 1, true) "
+                    + "local version = separator and tonumber(string.sub(current, separator + 1)) or 0 "
+                    + "if version > tonumber(ARGV[2]) then return 0 end "
+                    + "end "
+                    + "redis.call('SET', KEYS[1], ARGV[1] .. ':' .. ARGV[2], 'PX', ARGV[3]) "
+                    + "return 1",
+            Long.class);
 
     private final StringRedisTemplate redisTemplate;
     private final Duration cacheTtl;
+    private final Duration commandTimeout;
+    // null when adaptive TTLs are disabled and every key gets cacheTtl
+    private final AdaptiveTtlPolicy ttlPolicy;
+    private final Counter writesStored;
+    private final Counter writesStale;
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary ttlSeconds;
 
     public RedisMetricsRepository(StringRedisTemplate redisTemplate,
-                                  @Value("${redis.cache.ttl:PT1H}") Duration cacheTtl) {
+                                  @Value("${redis.cache.ttl:PT6H}") Duration cacheTtl,
+                                  @Value("${redis.command-timeout:PT3S}") Duration commandTimeout,
+                                  @Value("${redis.cache.adaptive-ttl.enabled:true}") boolean adaptiveTtl,
+                                  @Value("${redis.cache.adaptive-ttl.min:PT1M}") Duration minTtl,
+                                  @Value("${redis.cache.adaptive-ttl.max:PT1H}") Duration maxTtl,
+                                  @Value("${redis.cache.adaptive-ttl.staleness-tolerance:0.1}") double stalenessTolerance,
+                                  @Value("${redis.cache.adaptive-ttl.hot-key-factor:4}") double hotKeyFactor,
+                                  @Value("${redis.cache.adaptive-ttl.history-decay:0.8}") double historyDecay,
+                                  @Value("${redis.cache.adaptive-ttl.tracked-keys:100000}") int trackedKeys,
+                                  MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
         this.cacheTtl = cacheTtl;
-        logger.info("RedisMetricsRepository initialized with cache TTL: {}", cacheTtl);
+        this.commandTimeout = commandTimeout;
+        this.ttlPolicy = adaptiveTtl
+                ? new AdaptiveTtlPolicy(minTtl.toMillis(), maxTtl.toMillis(), cacheTtl.toMillis(),
+                        stalenessTolerance, hotKeyFactor, historyDecay, trackedKeys)
+                : null;
+        this.writesStored = Counter.builder("insights.cache.redis.writes")
+                .description("Versioned write-backs to Redis by outcome")
+                .tag("outcome", "stored")
+                .register(meterRegistry);
+        this.writesStale = Counter.builder("insights.cache.redis.writes")
+                .description("Versioned write-backs to Redis by outcome")
+                .tag("outcome", "stale")
+                .register(meterRegistry);
+        this.hits = Counter.builder("insights.cache.redis.lookups")
+                .description("Metric lookups in Redis by result")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("insights.cache.redis.lookups")
+                .description("Metric lookups in Redis by result")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("insights.cache.redis.hit.ratio", this, RedisMetricsRepository::hitRatio)
+                .description("Share of metric lookups served by Redis since startup")
+                .register(meterRegistry);
+        this.ttlSeconds = DistributionSummary.builder("insights.cache.redis.ttl")
+                .description("TTL assigned to each metric written back to Redis")
+                .baseUnit("seconds")
+                .publishPercentiles(0.1, 0.5, 0.9, 0.99)
+                .serviceLevelObjectives(60, 300, 900, 3600, 6 * 3600, 24 * 3600)
+                .register(meterRegistry);
+        if (ttlPolicy != null) {
+            Gauge.builder("insights.cache.redis.ttl.tracked.keys", ttlPolicy, AdaptiveTtlPolicy::trackedKeys)
+                    .description("Keys whose reload history drives their adaptive TTL")
+                    .register(meterRegistry);
+            logger.info("RedisMetricsRepository initialized with adaptive TTLs between {} and {}, initial TTL: {}",
+                    minTtl, maxTtl, cacheTtl);
+        } else {
+            logger.info("RedisMetricsRepository initialized with cache TTL: {}", cacheTtl);
+        }
     }
 
+    @Override
     public Long getMetric(String campaignId, String metricType) {
         String tenantId = TenantContext.getTenantId();
         String key = buildTenantAwareKey(tenantId, campaignId, metricType);
         logger.debug("Attempting to retrieve metric from Redis with key: {} for tenant: {}", key, tenantId);
         
+        recordAccess(key);
         try {
             String value = redisTemplate.opsForValue().get(key);
             
             if (value == null) {
+                misses.increment();
                 logger.debug("No value found in Redis for key: {}", key);
                 return null;
             }
             
-            Long result = Long.parseLong(value);
+            Long result = parseValue(value);
+            hits.increment();
             logger.debug("Successfully retrieved value {} from Redis for key: {}", result, key);
             return result;
             
@@ -56,23 +158,100 @@ public class RedisMetricsRepository {
     }
 
     /**
-     * Saves a metric value to Redis cache with TTL.
-     * This is used to cache frequently accessed metrics from ClickHouse.
-     * Cache entries expire after the configured TTL to prevent stale data.
+     * Looks up several metrics in one round trip. In cluster mode the keys are split by hash slot
+     * and each slot's MGET is pipelined to its node concurrently; standalone issues a single MGET.
+     */
+    @Override
+    public Map<MetricKey, Long> getMetrics(Collection<MetricKey> keys) {
+        String tenantId = TenantContext.getTenantId();
+        List<MetricKey> ordered = new ArrayList<>(keys);
+        byte[][] rawKeys = new byte[ordered.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            MetricKey key = ordered.get(i);
+            String redisKey = buildTenantAwareKey(tenantId, key.campaignId(), key.metricType());
+            recordAccess(redisKey);
+            rawKeys[i] = redisKey.getBytes(StandardCharsets.UTF_8);
+        }
+        logger.debug("Attempting to retrieve {} metrics from Redis for tenant: {}", rawKeys.length, tenantId);
+
+        Map<MetricKey, Long> values = new HashMap<>(ordered.size() * 2);
+        try {
+            List<byte[]> raw = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> mget(connection, rawKeys));
+            for (int i = 0; raw != null && i < raw.size(); i++) {
+                if (raw.get(i) != null) {
+                    values.put(ordered.get(i), parseValue(new String(raw.get(i), StandardCharsets.UTF_8)));
+                }
+            }
+            hits.increment(values.size());
+            misses.increment(rawKeys.length - values.size());
+            logger.debug("Retrieved {} of {} metrics from Redis for tenant: {}", values.size(), rawKeys.length, tenantId);
+        } catch (NumberFormatException e) {
+            logger.error("Invalid number format in Redis for tenant: {}. Error: {}", tenantId, e.getMessage());
+        } catch (RedisConnectionFailureException e) {
+            logger.error("Redis connection failure while retrieving {} keys. Error: {}", rawKeys.length, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error retrieving {} metrics from Redis for tenant: {}", rawKeys.length, tenantId, e);
+        }
+        return values;
+    }
+
+    private List<byte[]> mget(RedisConnection connection, byte[][] rawKeys) {
+        if (connection instanceof LettuceClusterConnection cluster) {
+            // Lettuce's cluster MGET partitions by slot itself; Spring's would fall back to one GET per key
+            try {
+                List<KeyValue<byte[], byte[]>> pairs = cluster.getNativeConnection().mget(rawKeys)
+                        .get(commandTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                List<byte[]> raw = new ArrayList<>(pairs.size());
+                for (KeyValue<byte[], byte[]> pair : pairs) {
+                    raw.add(pair.getValueOrElse(null));
+                }
+                return raw;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during cluster MGET", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Cluster MGET failed: " + e.getMessage(), e);
+            }
+        }
+        return connection.stringCommands().mGet(rawKeys);
+    }
+
+    /**
+     * Saves a metric value of unknown version. It only fills an empty or unversioned entry and
+     * never replaces a value cached with a version.
      *
      * @param campaignId the campaign identifier
      * @param metricType the metric type
      * @param value the metric value to cache
      */
+    @Override
     public void saveMetric(String campaignId, String metricType, Long value) {
+        saveMetric(campaignId, metricType, new VersionedMetric(value, VersionedMetric.UNVERSIONED));
+    }
+
+    /**
+     * Saves a metric value to Redis cache with TTL through an atomic compare-and-set on the
+     * version, so concurrent write-backs converge on the newest value regardless of the order
+     * they arrive in. That makes a long TTL safe: an entry can only be replaced by a newer one.
+     * With adaptive TTLs the TTL comes from the key's read frequency and how often its value
+     * changed between reloads.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param metric the metric value and the version it was read at
+     */
+    @Override
+    public void saveMetric(String campaignId, String metricType, VersionedMetric metric) {
         String tenantId = TenantContext.getTenantId();
         String key = buildTenantAwareKey(tenantId, campaignId, metricType);
-        logger.debug("Caching metric in Redis with key: {} for tenant: {}, value: {}, TTL: {}", 
-                    key, tenantId, value, cacheTtl);
+        long ttlMillis = ttlMillis(key, metric);
+        logger.debug("Caching metric in Redis with key: {} for tenant: {}, value: {}, TTL: {} ms", 
+                    key, tenantId, metric, ttlMillis);
         
         try {
-            redisTemplate.opsForValue().set(key, String.valueOf(value), cacheTtl);
-            logger.debug("Successfully cached metric in Redis for key: {} with TTL: {}", key, cacheTtl);
+            Long stored = redisTemplate.execute(SET_IF_NOT_NEWER, List.of(key),
+                    String.valueOf(metric.value()), String.valueOf(metric.version()), String.valueOf(ttlMillis));
+            recordWrite(key, metric, ttlMillis, stored);
         } catch (RedisConnectionFailureException e) {
             logger.error("Redis connection failure while caching key: {}. Error: {}", key, e.getMessage());
             // Don't throw - cache failures shouldn't break the API
@@ -83,8 +262,163 @@ public class RedisMetricsRepository {
     }
 
     /**
-     * Builds a tenant-aware Redis key.
-     * Format: tenant:{tenantId}:campaign:{campaignId}:{metricType}
+     * Saves several metrics with the same compare-and-set as {@link #saveMetric(String, String, VersionedMetric)},
+     * pipelined: every script call is sent without waiting for the previous reply (routed by slot
+     * in cluster mode) and the replies are awaited together, so a batch costs about one round
+     * trip. The pipeline runs on a connection of its own, flushed as
+     * {@code redis.connection.pipelining-flush} says. If a node doesn't have the script cached
+     * (after a restart or failover), the batch is sent again with EVAL.
+     *
+     * @param metrics the metric values and the versions they were read at
+     */
+    @Override
+    public void saveMetrics(Map<MetricKey, VersionedMetric> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        String tenantId = TenantContext.getTenantId();
+        List<String> keys = new ArrayList<>(metrics.size());
+        List<VersionedMetric> values = new ArrayList<>(metrics.size());
+        long[] ttls = new long[metrics.size()];
+        for (Map.Entry<MetricKey, VersionedMetric> entry : metrics.entrySet()) {
+            String key = buildTenantAwareKey(tenantId, entry.getKey().campaignId(), entry.getKey().metricType());
+            ttls[keys.size()] = ttlMillis(key, entry.getValue());
+            keys.add(key);
+            values.add(entry.getValue());
+        }
+        logger.debug("Caching {} metrics in Redis for tenant: {}", keys.size(), tenantId);
+
+        try {
+            List<Object> stored;
+            try {
+                stored = pipelineSetIfNotNewer(keys, values, ttls, false);
+            } catch (RedisPipelineException e) {
+                if (!isNoScript(e)) {
+                    throw e;
+                }
+                // The script is not cached on the server (e.g. after a restart); EVAL loads it. Repeating
+                // the writes that did land is harmless, as the same version is never newer than itself
+                stored = pipelineSetIfNotNewer(keys, values, ttls, true);
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                recordWrite(keys.get(i), values.get(i), ttls[i], (Long) stored.get(i));
+            }
+        } catch (RedisConnectionFailureException e) {
+            logger.error("Redis connection failure while caching {} keys. Error: {}", keys.size(), e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error caching {} metrics in Redis for tenant: {}", keys.size(), tenantId, e);
+        }
+    }
+
+    /**
+     * Runs the versioned write of every key in one pipeline. The template gives the pipeline its
+     * own connection and flushes it per the factory's pipelining flush policy, so connections
+     * shared with other callers are never switched to manual flushing.
+     *
+     * @return each key's script reply, in key order
+     */
+    private List<Object> pipelineSetIfNotNewer(List<String> keys, List<VersionedMetric> values, long[] ttls,
+                                               boolean sendScript) {
+        byte[] script = SET_IF_NOT_NEWER.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.size(); i++) {
+                VersionedMetric metric = values.get(i);
+                byte[][] keyAndArgs = {
+                        keys.get(i).getBytes(StandardCharsets.UTF_8),
+                        bytes(metric.value()), bytes(metric.version()), bytes(ttls[i])
+                };
+                if (sendScript) {
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, keyAndArgs);
+                } else {
+                    connection.scriptingCommands().evalSha(SET_IF_NOT_NEWER.getSha1(), ReturnType.INTEGER, 1, keyAndArgs);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isNoScript(RedisPipelineException e) {
+        if (isNoScript((Throwable) e)) {
+            return true;
+        }
+        for (Object result : e.getPipelineResult()) {
+            if (result instanceof Throwable failure && isNoScript(failure)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNoScript(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RedisNoScriptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long ttlMillis(String key, VersionedMetric metric) {
+        return ttlPolicy != null
+                ? ttlPolicy.ttlMillis(key, metric.value(), metric.version(), System.currentTimeMillis())
+                : cacheTtl.toMillis();
+    }
+
+    private void recordWrite(String key, VersionedMetric metric, long ttlMillis, Long stored) {
+        if (stored != null && stored == 1L) {
+            writesStored.increment();
+            ttlSeconds.record(ttlMillis / 1000.0);
+            if (ttlPolicy != null) {
+                // Only a write that landed is a reload; a stale one must not shorten the key's TTL
+                ttlPolicy.recordReload(key, metric.value(), metric.version(), System.currentTimeMillis());
+            }
+            logger.debug("Successfully cached metric in Redis for key: {} with TTL: {} ms", key, ttlMillis);
+        } else {
+            writesStale.increment();
+            logger.debug("Skipped caching version {} for key: {}, a newer version is cached", metric.version(), key);
+        }
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens the Redis connection ahead of the first request. In cluster mode PING goes to every
+     * node, which also loads the slot map and connects to each of them.
+     */
+    @Override
+    public void warmUp() {
+        try {
+            String reply = redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+            logger.info("Redis warm-up completed, PING replied: {}", reply);
+        } catch (Exception e) {
+            logger.warn("Redis warm-up failed, first requests will connect lazily. Error: {}", e.getMessage());
+        }
+    }
+
+    private void recordAccess(String key) {
+        if (ttlPolicy != null) {
+            ttlPolicy.recordAccess(key);
+        }
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    /**
+     * Extracts the metric value from a cached "value:version" entry.
+     */
+    private static long parseValue(String cached) {
+        int separator = cached.indexOf(VERSION_SEPARATOR);
+        return Long.parseLong(separator < 0 ? cached : cached.substring(0, separator));
+    }
+
+    /**
+     * Builds a tenant-aware Redis key in the versioned keyspace.
+     * Format: tenant:{tenantId}:vcampaign:{campaignId}:{metricType}
      *
      * @param tenantId the tenant identifier
      * @param campaignId the campaign identifier
@@ -94,8 +428,8 @@ public class RedisMetricsRepository {
     private String buildTenantAwareKey(String tenantId, String campaignId, String metricType) {
         if (tenantId == null) {
             logger.warn("TenantId is null, using default key format");
-            return RedisKeyConstants.buildKey(campaignId, metricType);
+            return RedisKeyConstants.buildVersionedKey(campaignId, metricType);
         }
-        return "tenant:" + tenantId + ":" + RedisKeyConstants.buildKey(campaignId, metricType);
+        return "tenant:" + tenantId + ":" + RedisKeyConstants.buildVersionedKey(campaignId, metricType);
     }
 }
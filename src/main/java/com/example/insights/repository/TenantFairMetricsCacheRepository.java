@@ -0,0 +1,236 @@
+package com.example.insights.repository;
+
+import com.example.insights.cache.TenantCacheSegment;
+import com.example.insights.config.TenantCacheProperties;
+import com.example.insights.multitenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Tenant-fair cache layer in front of the cache backend.
+ *
+ * Every tenant gets its own bounded {@link TenantCacheSegment} with a configurable quota, so one
+ * tenant's bulk scans can only churn its own segment. The segment's TinyLFU admission decides
+ * which keys the tenant holds locally; every write-back still reaches the shared backend, so other
+ * instances and the next miss find the value there. Local entries keep their version, and a
+ * write-back older than the local entry does not replace it. Per-tenant meters are tagged with the
+ * tenant ID for tenants with a quota override and the first {@code cache.tenant-fair.metered-tenants}
+ * others, and aggregated under {@code tenant=other} beyond that, which bounds their cardinality.
+ * Enabled with {@code cache.tenant-fair.enabled=true}.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "cache.tenant-fair.enabled", havingValue = "true")
+public class TenantFairMetricsCacheRepository implements MetricsCacheRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantFairMetricsCacheRepository.class);
+    private static final String NO_TENANT = "none";
+    private static final String OTHER_TENANTS = "other";
+
+    private final MetricsCacheRepository backend;
+    private final TenantCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicInteger meteredTenants = new AtomicInteger();
+
+    public TenantFairMetricsCacheRepository(@Qualifier(MetricsCacheRepository.BACKEND) MetricsCacheRepository backend,
+                                            TenantCacheProperties properties,
+                                            MeterRegistry meterRegistry) {
+        this.backend = backend;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("insights.cache.tenant.entries", this, repository -> repository.sumOverOtherTenants(TenantCacheSegment::size))
+                .description("Entries held in a tenant's local cache segment")
+                .tag("tenant", OTHER_TENANTS)
+                .register(meterRegistry);
+        Gauge.builder("insights.cache.tenant.quota", this, repository -> repository.sumOverOtherTenants(TenantCacheSegment::capacity))
+                .description("Entry quota of a tenant's local cache segment")
+                .tag("tenant", OTHER_TENANTS)
+                .register(meterRegistry);
+        logger.info("TenantFairMetricsCacheRepository initialized with default quota: {}, local TTL: {}, overrides: {}",
+                properties.getDefaultQuota(), properties.getTtl(), properties.getQuotas().keySet());
+    }
+
+    @Override
+    public Long getMetric(String campaignId, String metricType) {
+        Segment segment = segmentForCurrentTenant();
+        String key = localKey(campaignId, metricType);
+        long now = System.currentTimeMillis();
+
+        long local = segment.cache.get(key, now);
+        if (local != TenantCacheSegment.MISSING) {
+            segment.hits.increment();
+            return local;
+        }
+
+        Long shared = backend.getMetric(campaignId, metricType);
+        if (shared == null) {
+            segment.misses.increment();
+            return null;
+        }
+
+        segment.sharedHits.increment();
+        offer(segment, key, shared, VersionedMetric.UNVERSIONED, now);
+        return shared;
+    }
+
+    @Override
+    public void saveMetric(String campaignId, String metricType, Long value) {
+        offerLocally(campaignId, metricType, value, VersionedMetric.UNVERSIONED);
+        backend.saveMetric(campaignId, metricType, value);
+    }
+
+    @Override
+    public void saveMetric(String campaignId, String metricType, VersionedMetric metric) {
+        offerLocally(campaignId, metricType, metric.value(), metric.version());
+        backend.saveMetric(campaignId, metricType, metric);
+    }
+
+    @Override
+    public void saveMetrics(Map<MetricKey, VersionedMetric> metrics) {
+        metrics.forEach((key, metric) -> offerLocally(key.campaignId(), key.metricType(), metric.value(), metric.version()));
+        backend.saveMetrics(metrics);
+    }
+
+    /**
+     * Offers a write-back to the current tenant's segment. Admission only decides whether the
+     * tenant holds the key locally; the caller writes it to the shared backend either way.
+     */
+    private void offerLocally(String campaignId, String metricType, long value, long version) {
+        Segment segment = segmentForCurrentTenant();
+        String key = localKey(campaignId, metricType);
+
+        if (!offer(segment, key, value, version, System.currentTimeMillis())) {
+            logger.debug("Tenant segment did not take version {} of key {}, writing it to the shared cache only", version, key);
+        }
+    }
+
+    @Override
+    public void warmUp() {
+        backend.warmUp();
+    }
+
+    private boolean offer(Segment segment, String key, long value, long version, long now) {
+        TenantCacheSegment.Admission admission = segment.cache.put(key, value, version, now);
+        switch (admission) {
+            case ADMITTED -> segment.admitted.increment();
+            case ADMITTED_WITH_EVICTION -> {
+                segment.admitted.increment();
+                segment.evicted.increment();
+            }
+            case REJECTED -> segment.rejected.increment();
+            case STALE -> segment.stale.increment();
+        }
+        return admission.isAdmitted();
+    }
+
+    private Segment segmentForCurrentTenant() {
+        String tenantId = TenantContext.getTenantId();
+        return segments.computeIfAbsent(tenantId == null ? NO_TENANT : tenantId, this::createSegment);
+    }
+
+    private Segment createSegment(String tenantId) {
+        int quota = properties.quotaFor(tenantId);
+        String meterTag = meterTag(tenantId);
+        logger.info("Creating cache segment for tenant: {} with quota: {}, metered as: {}", tenantId, quota, meterTag);
+        return new Segment(meterTag, new TenantCacheSegment(quota, properties.getTtl().toMillis()), meterRegistry);
+    }
+
+    /**
+     * The tenant tag of a new segment's meters: its own ID while there is room, otherwise "other".
+     * Called once per tenant, from {@link #segmentForCurrentTenant}.
+     */
+    private String meterTag(String tenantId) {
+        if (properties.getQuotas().containsKey(tenantId)) {
+            return tenantId;
+        }
+        int limit = properties.getMeteredTenants();
+        return meteredTenants.getAndUpdate(count -> count < limit ? count + 1 : count) < limit ? tenantId : OTHER_TENANTS;
+    }
+
+    private double sumOverOtherTenants(ToIntFunction<TenantCacheSegment> value) {
+        long sum = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.sharesMeters) {
+                sum += value.applyAsInt(segment.cache);
+            }
+        }
+        return sum;
+    }
+
+    private static String localKey(String campaignId, String metricType) {
+        return campaignId + ":" + metricType;
+    }
+
+    /**
+     * A tenant's segment together with its meters. Segments metered as "other" share their
+     * counters, and their sizes are summed by the repository's "other" gauges.
+     */
+    private static final class Segment {
+
+        final TenantCacheSegment cache;
+        final boolean sharesMeters;
+        final Counter hits;
+        final Counter sharedHits;
+        final Counter misses;
+        final Counter admitted;
+        final Counter rejected;
+        final Counter stale;
+        final Counter evicted;
+
+        Segment(String meterTag, TenantCacheSegment cache, MeterRegistry registry) {
+            this.cache = cache;
+            this.sharesMeters = OTHER_TENANTS.equals(meterTag);
+            this.hits = lookupCounter(registry, meterTag, "hit");
+            this.sharedHits = lookupCounter(registry, meterTag, "shared-hit");
+            this.misses = lookupCounter(registry, meterTag, "miss");
+            this.admitted = admissionCounter(registry, meterTag, "admitted");
+            this.rejected = admissionCounter(registry, meterTag, "rejected");
+            this.stale = admissionCounter(registry, meterTag, "stale");
+            this.evicted = Counter.builder("insights.cache.tenant.evictions")
+                    .description("Entries evicted from a tenant's segment to admit a more popular key")
+                    .tag("tenant", meterTag)
+                    .register(registry);
+
+            if (!sharesMeters) {
+                Gauge.builder("insights.cache.tenant.entries", cache, TenantCacheSegment::size)
+                        .description("Entries held in a tenant's local cache segment")
+                        .tag("tenant", meterTag)
+                        .register(registry);
+                Gauge.builder("insights.cache.tenant.quota", cache, TenantCacheSegment::capacity)
+                        .description("Entry quota of a tenant's local cache segment")
+                        .tag("tenant", meterTag)
+                        .register(registry);
+            }
+        }
+
+        private static Counter lookupCounter(MeterRegistry registry, String tenantId, String result) {
+            return Counter.builder("insights.cache.tenant.lookups")
+                    .description("Cache lookups per tenant: local hit, shared backend hit or miss")
+                    .tag("tenant", tenantId)
+                    .tag("result", result)
+                    .register(registry);
+        }
+
+        private static Counter admissionCounter(MeterRegistry registry, String tenantId, String outcome) {
+            return Counter.builder("insights.cache.tenant.admissions")
+                    .description("TinyLFU admission decisions per tenant, and writes dropped as older than the local entry")
+                    .tag("tenant", tenantId)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.insights.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Storage SPI for per-campaign, per-day HyperLogLog sketches of distinct users.
+ * Implementations resolve the tenant from the {@link com.example.insights.multitenancy.TenantContext}
+ * and must never throw on infrastructure failures.
+ */
+public interface UniqueReachRepository {
+
+    /**
+     * Estimates the distinct users in the union of the daily sketches of several campaigns.
+     * Sketches are merged register-wise, so the estimate has the same error bound as a single
+     * sketch built over all underlying events.
+     *
+     * @param metricType the unique-reach metric type
+     * @param campaignIds the campaigns to union
+     * @param from the first UTC day, inclusive
+     * @param to the last UTC day, inclusive
+     * @return the estimated distinct count, or null if the sketches are unavailable
+     */
+    Long countUnion(String metricType, Collection<String> campaignIds, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,18 @@
+package com.example.insights.repository;
+
+/**
+ * A metric value together with the version it was read at.
+ *
+ * The version is the ClickHouse row's update time in epoch milliseconds, so a higher version is
+ * always the newer value. Cache write-backs use it to never replace a newer value with an older one.
+ *
+ * @param value the metric value
+ * @param version the row's update time in epoch milliseconds, or {@link #UNVERSIONED}
+ */
+public record VersionedMetric(long value, long version) {
+
+    /**
+     * Version of values whose origin is unknown; any versioned write replaces them.
+     */
+    public static final long UNVERSIONED = 0L;
+}
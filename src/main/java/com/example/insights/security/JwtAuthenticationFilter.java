@@ -1,6 +1,7 @@
 package com.example.insights.security;
 
 import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.observability.RequestTimings;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -16,11 +18,12 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Filter that intercepts HTTP requests to extract and validate JWT tokens.
- * Extracts tenant ID from the JWT and sets it in the TenantContext.
+ * Extracts tenant ID from the JWT and sets it in the TenantContext; the token's roles claim
+ * becomes the request's granted authorities.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -42,32 +45,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         
         try {
-            String jwt = extractJwtFromRequest(request);
-            
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                // Extract tenant ID from JWT
-                String tenantId = jwtUtil.extractTenantId(jwt);
-                String subject = jwtUtil.extractSubject(jwt);
-                
-                if (tenantId != null && subject != null) {
-                    // Set tenant context
-                    TenantContext.setTenantId(tenantId);
-                    logger.debug("Set tenant context for request: tenantId={}, subject={}", tenantId, subject);
-                    
-                    // Set Spring Security context
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(subject, null, new ArrayList<>());
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    logger.debug("Authentication set in SecurityContext for user: {}", subject);
+            // Parsing and validation is the request's "jwt" stage in JFR and Server-Timing
+            RequestTimings.Stage jwtStage = RequestTimings.stage(RequestTimings.STAGE_JWT);
+            try {
+                String jwt = extractJwtFromRequest(request);
+
+                if (jwt != null && jwtUtil.validateToken(jwt)) {
+                    // Extract tenant ID from JWT
+                    String tenantId = jwtUtil.extractTenantId(jwt);
+                    String subject = jwtUtil.extractSubject(jwt);
+
+                    if (tenantId != null && subject != null) {
+                        // Set tenant context
+                        TenantContext.setTenantId(tenantId);
+                        logger.debug("Set tenant context for request: tenantId={}, subject={}", tenantId, subject);
+
+                        // Set Spring Security context
+                        List<SimpleGrantedAuthority> authorities = jwtUtil.extractRoles(jwt).stream()
+                                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                                .toList();
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(subject, null, authorities);
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                        logger.debug("Authentication set in SecurityContext for user: {}", subject);
+                    } else {
+                        logger.warn("Invalid JWT token: missing tenantId or subject");
+                    }
                 } else {
-                    logger.warn("Invalid JWT token: missing tenantId or subject");
+                    logger.debug("No valid JWT token found in request");
                 }
-            } else {
-                logger.debug("No valid JWT token found in request");
+            } finally {
+                jwtStage.close();
             }
-            
+
             filterChain.doFilter(request, response);
             
         } finally {
@@ -10,7 +10,9 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Utility class for JWT token operations.
@@ -21,6 +23,8 @@ public class JwtUtil {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
     private static final String TENANT_ID_CLAIM = "tenantId";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String FORWARDED_BY_CLAIM = "forwardedBy";
 
     private final SecretKey secretKey;
 
@@ -69,6 +73,41 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Extracts the roles granted by the issuer, e.g. {@code ADMIN} for operational endpoints.
+     * Tokens from {@link #generateToken} carry none.
+     *
+     * @param token the JWT token
+     * @return the roles, empty if the token has no roles claim or is invalid
+     */
+    public List<String> extractRoles(String token) {
+        try {
+            Object roles = extractAllClaims(token).get(ROLES_CLAIM);
+            if (!(roles instanceof List<?> list)) {
+                return List.of();
+            }
+            return list.stream().filter(String.class::isInstance).map(String.class::cast).toList();
+        } catch (Exception e) {
+            logger.error("Error extracting roles from JWT token", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Extracts the cluster member that issued a token from {@link #generateForwardToken}.
+     *
+     * @param token the JWT token
+     * @return the member's URL, or null if the token is not a forward token or is invalid
+     */
+    public String extractForwardedBy(String token) {
+        try {
+            return extractAllClaims(token).get(FORWARDED_BY_CLAIM, String.class);
+        } catch (Exception e) {
+            logger.debug("Could not read forwardedBy claim from JWT token: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Validates the JWT token.
      *
@@ -130,5 +169,27 @@ public class JwtUtil {
                 .signWith(secretKey)
                 .compact();
     }
+
+    /**
+     * Generates the short-lived token a cluster member sends with a request it forwards to the
+     * owning instance in place of the caller's token. It grants the tenant's access only and
+     * names the forwarding member, which the owner checks against the cluster members.
+     *
+     * @param tenantId the tenant ID
+     * @param forwardedBy the forwarding member's URL
+     * @param validFor how long the token is accepted
+     * @return the JWT token
+     */
+    public String generateForwardToken(String tenantId, String forwardedBy, Duration validFor) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject("cluster")
+                .claim(TENANT_ID_CLAIM, tenantId)
+                .claim(FORWARDED_BY_CLAIM, forwardedBy)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + validFor.toMillis()))
+                .signWith(secretKey)
+                .compact();
+    }
 }
 
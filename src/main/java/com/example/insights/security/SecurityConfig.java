@@ -1,5 +1,7 @@
 package com.example.insights.security;
 
+import com.example.insights.observability.SlowRequestsEndpoint;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -17,6 +19,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * Role required for operational endpoints that show data across tenants; granted through the
+     * JWT's {@code roles} claim.
+     */
+    public static final String ADMIN_ROLE = "ADMIN";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
@@ -31,6 +39,9 @@ public class SecurityConfig {
             
             // Configure authorization
             .authorizeHttpRequests(auth -> auth
+                // Slow requests expose every tenant's IDs, paths and the JFR recording: admins only
+                .requestMatchers(EndpointRequest.to(SlowRequestsEndpoint.class)).hasRole(ADMIN_ROLE)
+
                 // Allow actuator endpoints without authentication (can be restricted in production)
                 .requestMatchers("/actuator/**").permitAll()
                 
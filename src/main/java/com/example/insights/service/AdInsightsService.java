@@ -2,25 +2,61 @@ package com.example.insights.service;
 
 import com.example.insights.constants.MetricType;
 import com.example.insights.exception.CampaignNotFoundException;
-import com.example.insights.repository.RedisMetricsRepository;
-import com.example.insights.repository.ClickHouseMetricsRepository;
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.observability.RequestTimings;
+import com.example.insights.repository.MetricKey;
+import com.example.insights.repository.MetricsCacheRepository;
+import com.example.insights.repository.MetricsSourceRepository;
+import com.example.insights.repository.VersionedMetric;
+import com.example.insights.streaming.StreamingAggregator;
+import com.example.insights.trace.AccessTraceRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 public class AdInsightsService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdInsightsService.class);
+    private static final String SOURCE_TIER = "clickhouse";
 
-    private final RedisMetricsRepository redisRepo;
-    private final ClickHouseMetricsRepository clickhouseRepo;
+    private final MetricsCacheRepository cacheRepo;
+    private final MetricsSourceRepository sourceRepo;
+    private final LeaderboardService leaderboardService;
+    private final String cacheTier;
+    // Null unless cache.trace.enabled
+    private final AccessTraceRecorder traceRecorder;
+    // Null when cache.write-behind.enabled=false; write-backs are then synchronous
+    private final CacheWriteBehindService writeBehind;
+    // Null unless streaming.enabled
+    private final StreamingAggregator liveCounters;
 
-    public AdInsightsService(RedisMetricsRepository redisRepo,
-                             ClickHouseMetricsRepository clickhouseRepo) {
-        this.redisRepo = redisRepo;
-        this.clickhouseRepo = clickhouseRepo;
+    public AdInsightsService(MetricsCacheRepository cacheRepo,
+                             MetricsSourceRepository sourceRepo,
+                             LeaderboardService leaderboardService,
+                             @Value("${cache.backend:redis}") String cacheTier,
+                             ObjectProvider<AccessTraceRecorder> traceRecorder,
+                             ObjectProvider<CacheWriteBehindService> writeBehind,
+                             ObjectProvider<StreamingAggregator> liveCounters) {
+        this.cacheRepo = cacheRepo;
+        this.sourceRepo = sourceRepo;
+        this.leaderboardService = leaderboardService;
+        this.cacheTier = cacheTier;
+        this.traceRecorder = traceRecorder.getIfAvailable();
+        this.writeBehind = writeBehind.getIfAvailable();
+        this.liveCounters = liveCounters.getIfAvailable();
         logger.info("AdInsightsService initialized");
     }
 
@@ -42,33 +78,264 @@ public class AdInsightsService {
         return fetchMetric(MetricType.ADD_TO_CART, campaignId);
     }
 
+    /**
+     * Fetches any supported metric of one campaign.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @return the metric value
+     * @throws CampaignNotFoundException if the campaign has no such metric
+     */
+    public long getMetric(String campaignId, String metricType) {
+        validateCampaignId(campaignId);
+        validateMetricType(metricType);
+        return fetchMetric(metricType, campaignId);
+    }
+
+    /**
+     * Fetches several metrics of one campaign. Cached metrics are read in a single round trip and
+     * the misses are loaded from ClickHouse with one query.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricTypes the metric types to fetch
+     * @return the values keyed by metric type; metrics the campaign does not have are absent
+     */
+    public Map<String, Long> getMetrics(String campaignId, Collection<String> metricTypes) {
+        validateCampaignId(campaignId);
+        logger.debug("Fetching metrics {} for campaign: {}", metricTypes, campaignId);
+
+        List<MetricKey> keys = new ArrayList<>(metricTypes.size());
+        for (String metricType : metricTypes) {
+            validateMetricType(metricType);
+            keys.add(new MetricKey(campaignId, metricType));
+        }
+
+        Map<String, Long> values = new LinkedHashMap<>();
+        lookupMetrics(keys, campaignId).forEach((key, value) -> values.put(key.metricType(), value));
+        return values;
+    }
+
+    /**
+     * Fetches metrics of any number of campaigns with one cache round trip; the misses are loaded
+     * from ClickHouse with one query.
+     *
+     * @param keys the campaign metrics to fetch
+     * @return the values in request order; metrics that do not exist are absent
+     */
+    public Map<MetricKey, Long> batchGetMetrics(Collection<MetricKey> keys) {
+        logger.debug("Fetching {} metrics in batch", keys.size());
+        for (MetricKey key : keys) {
+            validateCampaignId(key.campaignId());
+            validateMetricType(key.metricType());
+        }
+        return lookupMetrics(keys, null);
+    }
+
+    private Map<MetricKey, Long> lookupMetrics(Collection<MetricKey> keys, String campaignId) {
+        Map<MetricKey, Long> live = new HashMap<>();
+        List<MetricKey> notLive = new ArrayList<>(keys.size());
+        for (MetricKey key : keys) {
+            Long value = liveValue(key.campaignId(), key.metricType());
+            if (value != null) {
+                live.put(key, value);
+            } else {
+                notLive.add(key);
+            }
+        }
+        Map<MetricKey, Long> cached = Map.of();
+        if (!notLive.isEmpty()) {
+            RequestTimings.Stage cacheStage = RequestTimings.stage(RequestTimings.STAGE_CACHE, campaignId, null, cacheTier);
+            try {
+                cached = cacheRepo.getMetrics(notLive);
+            } finally {
+                cacheStage.close();
+            }
+        }
+        Map<MetricKey, Long> found = new HashMap<>();
+        Set<MetricKey> misses = new LinkedHashSet<>();
+        for (MetricKey key : keys) {
+            Long value = live.get(key);
+            if (value == null) {
+                value = cached.get(key);
+            }
+            if (value == null) {
+                value = pendingValue(key.campaignId(), key.metricType());
+            }
+            if (value != null) {
+                trace(key.campaignId(), key.metricType(), value, VersionedMetric.UNVERSIONED, false);
+                found.put(key, value);
+            } else {
+                misses.add(key);
+            }
+        }
+        if (!misses.isEmpty()) {
+            found.putAll(loadMetrics(misses, campaignId));
+        }
+
+        Map<MetricKey, Long> values = new LinkedHashMap<>();
+        for (MetricKey key : keys) {
+            Long value = found.get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Loads cache misses from ClickHouse with one query and writes them back as a batch.
+     *
+     * @return the values found; metrics that do not exist, or all of them if ClickHouse is
+     *         unavailable, are absent
+     */
+    private Map<MetricKey, Long> loadMetrics(Collection<MetricKey> misses, String campaignId) {
+        Map<MetricKey, VersionedMetric> loaded;
+        RequestTimings.Stage sourceStage = RequestTimings.stage(RequestTimings.STAGE_SOURCE, campaignId, null, SOURCE_TIER);
+        try {
+            loaded = sourceRepo.getMetrics(TenantContext.getTenantId(), misses);
+        } finally {
+            sourceStage.close();
+        }
+        if (loaded == null) {
+            // Reads as misses, like the single-metric path
+            logger.warn("Could not load {} metrics from ClickHouse", misses.size());
+            loaded = Map.of();
+        }
+
+        Map<MetricKey, Long> values = new HashMap<>();
+        Map<MetricKey, VersionedMetric> found = new LinkedHashMap<>();
+        for (MetricKey key : misses) {
+            VersionedMetric chValue = loaded.get(key);
+            if (chValue == null) {
+                trace(key.campaignId(), key.metricType(), null, VersionedMetric.UNVERSIONED, true);
+                continue;
+            }
+            trace(key.campaignId(), key.metricType(), chValue.value(), chValue.version(), true);
+            values.put(key, chValue.value());
+            found.put(key, chValue);
+        }
+        logger.debug("Loaded {} of {} missed metrics from ClickHouse", found.size(), misses.size());
+        if (found.isEmpty()) {
+            return values;
+        }
+
+        // The versions keep a slow write-back from replacing newer cached values; the write-behind
+        // flusher also applies the values to the tenant's leaderboard
+        if (writeBehind != null) {
+            found.forEach((key, chValue) -> writeBehind.save(key.campaignId(), key.metricType(), chValue));
+        } else {
+            RequestTimings.Stage cacheStage = RequestTimings.stage(RequestTimings.STAGE_CACHE, campaignId, null, cacheTier);
+            try {
+                cacheRepo.saveMetrics(found);
+            } finally {
+                cacheStage.close();
+            }
+            Map<String, Map<String, Long>> byMetricType = new HashMap<>();
+            found.forEach((key, chValue) -> byMetricType.computeIfAbsent(key.metricType(), type -> new HashMap<>())
+                    .put(key.campaignId(), chValue.value()));
+            byMetricType.forEach(leaderboardService::recordAll);
+        }
+
+        if (liveCounters != null) {
+            found.forEach((key, chValue) -> liveCounters.seed(key.campaignId(), key.metricType(), chValue));
+        }
+        return values;
+    }
+
     private long fetchMetric(String metricType, String campaignId) {
         logger.debug("Fetching metric {} for campaign {}", metricType, campaignId);
         
-        // 1. Check Redis cache first (cache-aside pattern)
-        Long cachedValue = redisRepo.getMetric(campaignId, metricType);
+        // 0. Live counters from the event stream are fresher than either tier
+        Long liveValue = liveValue(campaignId, metricType);
+        if (liveValue != null) {
+            logger.debug("Live hit: metric {} for campaign {}: {}", metricType, campaignId, liveValue);
+            trace(campaignId, metricType, liveValue, VersionedMetric.UNVERSIONED, false);
+            return liveValue;
+        }
+
+        // 1. Check the cache tier first (cache-aside pattern)
+        Long cachedValue;
+        RequestTimings.Stage cacheStage = RequestTimings.stage(RequestTimings.STAGE_CACHE, campaignId, metricType, cacheTier);
+        try {
+            cachedValue = cacheRepo.getMetric(campaignId, metricType);
+        } finally {
+            cacheStage.close();
+        }
+        if (cachedValue == null) {
+            cachedValue = pendingValue(campaignId, metricType);
+        }
         if (cachedValue != null) {
-            logger.debug("Cache hit: Found metric {} in Redis for campaign {}: {}", metricType, campaignId, cachedValue);
+            logger.debug("Cache hit: Found metric {} in cache for campaign {}: {}", metricType, campaignId, cachedValue);
+            trace(campaignId, metricType, cachedValue, VersionedMetric.UNVERSIONED, false);
             return cachedValue;
         }
         
-        logger.debug("Cache miss: Metric {} not found in Redis for campaign {}, querying ClickHouse", metricType, campaignId);
+        logger.debug("Cache miss: Metric {} not found in cache for campaign {}, querying ClickHouse", metricType, campaignId);
+        return loadMetric(metricType, campaignId);
+    }
 
+    private long loadMetric(String metricType, String campaignId) {
         // 2. Cache miss - query ClickHouse (source of truth, written by Apache Flink)
-        Long chValue = clickhouseRepo.getMetric(campaignId, metricType);
+        VersionedMetric chValue;
+        RequestTimings.Stage sourceStage = RequestTimings.stage(RequestTimings.STAGE_SOURCE, campaignId, metricType, SOURCE_TIER);
+        try {
+            chValue = sourceRepo.getMetric(campaignId, metricType);
+        } finally {
+            sourceStage.close();
+        }
         if (chValue == null) {
             logger.warn("Campaign {} not found for metric {} in ClickHouse", campaignId, metricType);
+            trace(campaignId, metricType, null, VersionedMetric.UNVERSIONED, true);
             throw new CampaignNotFoundException("Campaign " + campaignId + " not found.");
         }
 
         logger.debug("Found metric {} in ClickHouse for campaign {}: {}", metricType, campaignId, chValue);
+        trace(campaignId, metricType, chValue.value(), chValue.version(), true);
 
-        // 3. Populate Redis cache with the result for future requests
-        // Cache only the final, most frequently accessed metrics
-        redisRepo.saveMetric(campaignId, metricType, chValue);
-        logger.debug("Cached metric {} for campaign {} in Redis: {}", metricType, campaignId, chValue);
+        // 3. Populate the cache tier and the tenant's leaderboard with the result for future requests
+        // The version keeps a slow write-back from replacing a newer cached value
+        if (writeBehind != null) {
+            writeBehind.save(campaignId, metricType, chValue);
+            logger.debug("Queued write-back of metric {} for campaign {}: {}", metricType, campaignId, chValue);
+        } else {
+            RequestTimings.Stage cacheStage = RequestTimings.stage(RequestTimings.STAGE_CACHE, campaignId, metricType, cacheTier);
+            try {
+                cacheRepo.saveMetric(campaignId, metricType, chValue);
+            } finally {
+                cacheStage.close();
+            }
+            logger.debug("Cached metric {} for campaign {}: {}", metricType, campaignId, chValue);
+            leaderboardService.record(campaignId, metricType, chValue.value());
+        }
 
-        return chValue;
+        if (liveCounters != null) {
+            liveCounters.seed(campaignId, metricType, chValue);
+        }
+
+        return chValue.value();
+    }
+
+    /**
+     * The metric's value from the live counters, if they can answer for it.
+     */
+    private Long liveValue(String campaignId, String metricType) {
+        return liveCounters != null ? liveCounters.currentValue(campaignId, metricType) : null;
+    }
+
+    /**
+     * A value loaded from ClickHouse whose write-back to the cache tier is still queued.
+     */
+    private Long pendingValue(String campaignId, String metricType) {
+        return writeBehind != null ? writeBehind.pendingValue(campaignId, metricType) : null;
+    }
+
+    /**
+     * Records the lookup to the access trace, if one is being captured.
+     */
+    private void trace(String campaignId, String metricType, Long value, long version, boolean fromSource) {
+        if (traceRecorder != null) {
+            traceRecorder.record(TenantContext.getTenantId(), campaignId, metricType, value, version, fromSource);
+        }
     }
 
     private void validateCampaignId(String campaignId) {
@@ -77,4 +344,10 @@ public class AdInsightsService {
             throw new IllegalArgumentException("Campaign ID cannot be null or empty");
         }
     }
+
+    private void validateMetricType(String metricType) {
+        if (!MetricType.isSupported(metricType)) {
+            throw new IllegalArgumentException("Unsupported metric: " + metricType);
+        }
+    }
 }
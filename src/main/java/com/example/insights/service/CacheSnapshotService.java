@@ -0,0 +1,115 @@
+package com.example.insights.service;
+
+import com.example.insights.cache.OffHeapMetricStore;
+import com.example.insights.cache.OffHeapSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists the off-heap cache tier across restarts.
+ *
+ * The snapshot is restored during context initialization, i.e. before the web server starts
+ * accepting traffic, and rewritten periodically and on shutdown. Write cost and restore time are
+ * logged and exported as {@code insights.cache.snapshot.*} metrics.
+ */
+@Service
+@ConditionalOnExpression("'${cache.backend:redis}' == 'offheap' and ${cache.offheap.snapshot.enabled:true}")
+public class CacheSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSnapshotService.class);
+
+    private final OffHeapMetricStore store;
+    private final Path snapshotPath;
+    private final Timer writeTimer;
+    private final Timer restoreTimer;
+    private final AtomicLong lastWrittenEntries = new AtomicLong();
+    private final AtomicLong lastWrittenBytes = new AtomicLong();
+    private final AtomicLong lastRestoredEntries = new AtomicLong();
+
+    public CacheSnapshotService(OffHeapMetricStore store,
+                                @Value("${cache.offheap.snapshot.path:data/offheap-cache.snapshot}") String snapshotPath,
+                                MeterRegistry meterRegistry) {
+        this.store = store;
+        this.snapshotPath = Path.of(snapshotPath);
+        this.writeTimer = Timer.builder("insights.cache.snapshot.write")
+                .description("Time taken to write the off-heap cache snapshot")
+                .register(meterRegistry);
+        this.restoreTimer = Timer.builder("insights.cache.snapshot.restore")
+                .description("Time taken to restore the off-heap cache snapshot at startup")
+                .register(meterRegistry);
+        meterRegistry.gauge("insights.cache.snapshot.written.entries", lastWrittenEntries);
+        meterRegistry.gauge("insights.cache.snapshot.written.bytes", lastWrittenBytes);
+        meterRegistry.gauge("insights.cache.snapshot.restored.entries", lastRestoredEntries);
+        logger.info("CacheSnapshotService initialized with snapshot path: {}", this.snapshotPath);
+    }
+
+    /**
+     * Loads the last snapshot, if any. Failures are logged and the service starts cold.
+     */
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(snapshotPath)) {
+            logger.info("No cache snapshot found at {}, starting with a cold cache", snapshotPath);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            OffHeapSnapshot.RestoreResult result = OffHeapSnapshot.load(store, snapshotPath);
+            long elapsed = System.nanoTime() - start;
+            restoreTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastRestoredEntries.set(result.restored());
+            logger.info("Restored {} cache entries from snapshot {} in {} ms (skipped {} expired, {} rejected; snapshot age {} s)",
+                    result.restored(), snapshotPath, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    result.expired(), result.rejected(),
+                    TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - result.createdAt()));
+        } catch (IOException e) {
+            logger.warn("Could not restore cache snapshot {}, starting with a cold cache. Error: {}",
+                    snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Periodically writes the live cache entries to the snapshot file.
+     */
+    @Scheduled(fixedDelayString = "${cache.offheap.snapshot.interval:PT5M}",
+               initialDelayString = "${cache.offheap.snapshot.interval:PT5M}")
+    public void snapshot() {
+        long start = System.nanoTime();
+        try {
+            long entries = OffHeapSnapshot.write(store, snapshotPath);
+            long elapsed = System.nanoTime() - start;
+            writeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            lastWrittenEntries.set(entries);
+            lastWrittenBytes.set(Files.size(snapshotPath));
+            logger.info("Wrote {} cache entries ({} bytes) to snapshot {} in {} ms",
+                    entries, lastWrittenBytes.get(), snapshotPath, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (IOException e) {
+            // Don't throw - a missed snapshot only costs warm-up time on the next restart
+            logger.error("Failed to write cache snapshot {}. Error: {}", snapshotPath, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Takes a final snapshot so that a rolling restart resumes with everything this instance knew.
+     */
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        logger.info("Writing cache snapshot before shutdown");
+        snapshot();
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.insights.service;
+
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.MetricKey;
+import com.example.insights.repository.MetricsCacheRepository;
+import com.example.insights.repository.VersionedMetric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind for cache population, so a miss returns as soon as ClickHouse answers instead of
+ * also waiting for the cache write.
+ *
+ * Write-backs are queued per tenant and key in arrival order. A key already queued is coalesced
+ * into its existing slot, keeping the newer version, so a hot key that misses repeatedly costs
+ * one write. A single flusher thread takes up to {@code cache.write-behind.batch-size} of the
+ * oldest writes, waiting up to {@code cache.write-behind.linger} for a batch to fill, and hands
+ * each tenant's share to {@link MetricsCacheRepository#saveMetrics} (pipelined in Redis) and then
+ * to the tenant's leaderboard, so neither Redis round trip runs on the request thread. The
+ * queue is bounded: when full, the oldest pending write is dropped; its key simply misses again.
+ * Pending values are visible to lookups through {@link #pendingValue}, so a key waiting to be
+ * written back is not reloaded from ClickHouse in the meantime. On shutdown the queue is drained.
+ * Enabled unless {@code cache.write-behind.enabled=false}.
+ */
+@Service
+@ConditionalOnProperty(name = "cache.write-behind.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWriteBehindService.class);
+
+    private final MetricsCacheRepository cacheRepo;
+    private final LeaderboardService leaderboardService;
+    private final int maxPending;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Duration drainTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition writesQueued = lock.newCondition();
+    // Insertion-ordered, so the first entry is the oldest pending write; guarded by lock
+    private final LinkedHashMap<PendingKey, VersionedMetric> pending = new LinkedHashMap<>();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final Counter queued;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private final DistributionSummary flushSize;
+    private final Timer flushTime;
+
+    public CacheWriteBehindService(MetricsCacheRepository cacheRepo,
+                                   LeaderboardService leaderboardService,
+                                   @Value("${cache.write-behind.max-pending:100000}") int maxPending,
+                                   @Value("${cache.write-behind.batch-size:256}") int batchSize,
+                                   @Value("${cache.write-behind.linger:PT0.002S}") Duration linger,
+                                   @Value("${cache.write-behind.drain-timeout:PT5S}") Duration drainTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.cacheRepo = cacheRepo;
+        this.leaderboardService = leaderboardService;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.drainTimeout = drainTimeout;
+
+        this.queued = writeCounter(meterRegistry, "queued");
+        this.coalesced = writeCounter(meterRegistry, "coalesced");
+        this.dropped = writeCounter(meterRegistry, "dropped");
+        Gauge.builder("insights.cache.writebehind.depth", this, CacheWriteBehindService::depth)
+                .description("Cache write-backs waiting to be flushed")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("insights.cache.writebehind.flush.size")
+                .description("Cache write-backs per flush")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTime = Timer.builder("insights.cache.writebehind.flush")
+                .description("Time to write one flush to the cache tier")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::flushLoop, "cache-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("CacheWriteBehindService initialized with max pending: {}, batch size: {}, linger: {}",
+                maxPending, batchSize, linger);
+    }
+
+    /**
+     * Queues a write-back for the current tenant.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param metric the metric value and the version it was read at
+     */
+    public void save(String campaignId, String metricType, VersionedMetric metric) {
+        PendingKey key = new PendingKey(TenantContext.getTenantId(), new MetricKey(campaignId, metricType));
+        lock.lock();
+        try {
+            VersionedMetric existing = pending.get(key);
+            if (existing != null) {
+                // Keeps its place in the queue; only a version at least as new replaces it
+                if (metric.version() >= existing.version()) {
+                    pending.put(key, metric);
+                }
+                coalesced.increment();
+                return;
+            }
+            if (pending.size() >= maxPending) {
+                Iterator<PendingKey> oldest = pending.keySet().iterator();
+                PendingKey evicted = oldest.next();
+                oldest.remove();
+                dropped.increment();
+                logger.debug("Write-behind queue full, dropped write-back of {} for tenant: {}", evicted.key, evicted.tenantId);
+            }
+            pending.put(key, metric);
+            queued.increment();
+            if (pending.size() == 1 || pending.size() == batchSize) {
+                writesQueued.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The value queued for a key of the current tenant, if its write-back has not been flushed yet.
+     *
+     * @return the pending value, or null
+     */
+    public Long pendingValue(String campaignId, String metricType) {
+        PendingKey key = new PendingKey(TenantContext.getTenantId(), new MetricKey(campaignId, metricType));
+        lock.lock();
+        try {
+            VersionedMetric metric = pending.get(key);
+            return metric != null ? metric.value() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            writesQueued.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        // Not interrupted, so a flush in progress completes; the flusher then drains the rest
+        flusher.join(drainTimeout.toMillis());
+        int left = depth();
+        if (left > 0) {
+            logger.warn("Write-behind queue not drained within {}, {} write-backs lost", drainTimeout, left);
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                List<Map.Entry<PendingKey, VersionedMetric>> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error flushing cache write-backs", e);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Waits for pending writes, then up to the linger time for a full batch, and takes the oldest.
+     */
+    private List<Map.Entry<PendingKey, VersionedMetric>> nextBatch() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pending.isEmpty() && running) {
+                writesQueued.await();
+            }
+            long remaining = lingerNanos;
+            while (pending.size() < batchSize && remaining > 0 && running) {
+                remaining = writesQueued.awaitNanos(remaining);
+            }
+            return take();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<Map.Entry<PendingKey, VersionedMetric>> batch;
+            lock.lock();
+            try {
+                batch = take();
+            } finally {
+                lock.unlock();
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error draining cache write-backs", e);
+                return;
+            }
+        }
+    }
+
+    // Called with the lock held
+    private List<Map.Entry<PendingKey, VersionedMetric>> take() {
+        List<Map.Entry<PendingKey, VersionedMetric>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Map.Entry<PendingKey, VersionedMetric>> oldest = pending.entrySet().iterator();
+        while (oldest.hasNext() && batch.size() < batchSize) {
+            Map.Entry<PendingKey, VersionedMetric> entry = oldest.next();
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            oldest.remove();
+        }
+        return batch;
+    }
+
+    /**
+     * Writes a batch, one {@link MetricsCacheRepository#saveMetrics} call per tenant in it, then
+     * applies each tenant's values to its leaderboards.
+     */
+    private void flush(List<Map.Entry<PendingKey, VersionedMetric>> batch) {
+        long start = System.nanoTime();
+        Map<String, Map<MetricKey, VersionedMetric>> byTenant = new LinkedHashMap<>();
+        for (Map.Entry<PendingKey, VersionedMetric> entry : batch) {
+            byTenant.computeIfAbsent(entry.getKey().tenantId, tenant -> new LinkedHashMap<>())
+                    .put(entry.getKey().key, entry.getValue());
+        }
+        for (Map.Entry<String, Map<MetricKey, VersionedMetric>> tenant : byTenant.entrySet()) {
+            TenantContext.setTenantId(tenant.getKey());
+            try {
+                cacheRepo.saveMetrics(tenant.getValue());
+                recordLeaderboards(tenant.getValue());
+            } finally {
+                TenantContext.clear();
+            }
+        }
+        flushSize.record(batch.size());
+        flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.debug("Flushed {} cache write-backs for {} tenants", batch.size(), byTenant.size());
+    }
+
+    // Called with the tenant's context set
+    private void recordLeaderboards(Map<MetricKey, VersionedMetric> written) {
+        Map<String, Map<String, Long>> byMetricType = new HashMap<>();
+        written.forEach((key, metric) -> byMetricType.computeIfAbsent(key.metricType(), type -> new HashMap<>())
+                .put(key.campaignId(), metric.value()));
+        byMetricType.forEach(leaderboardService::recordAll);
+    }
+
+    private int depth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Counter writeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("insights.cache.writebehind.writes")
+                .description("Cache write-backs handed to the write-behind queue by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * A tenant's metric; the tenant may be null, as in {@link TenantContext}.
+     */
+    private record PendingKey(String tenantId, MetricKey key) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.insights.service;
+
+import com.example.insights.constants.MetricType;
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.exception.TenantNotFoundException;
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.LeaderboardRepository;
+import com.example.insights.repository.MetricsSourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves per-tenant top-K campaign leaderboards.
+ *
+ * A leaderboard is seeded from ClickHouse with the top {@code leaderboard.max-k} campaigns the first
+ * time it is requested and again every {@code leaderboard.refresh-interval}; in between it is kept
+ * current incrementally from cache write-backs. Reads never scan a tenant's campaigns. Concurrent
+ * requests for a leaderboard being seeded wait for that one seeding query instead of each issuing
+ * their own.
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final LeaderboardRepository leaderboardRepo;
+    private final MetricsSourceRepository sourceRepo;
+    private final int maxK;
+    private final Duration refreshInterval;
+    // Seedings in progress by tenant and metric type
+    private final Map<String, CompletableFuture<List<AdMetricResponse>>> seeding = new ConcurrentHashMap<>();
+
+    public LeaderboardService(LeaderboardRepository leaderboardRepo,
+                              MetricsSourceRepository sourceRepo,
+                              @Value("${leaderboard.max-k:100}") int maxK,
+                              @Value("${leaderboard.refresh-interval:PT5M}") Duration refreshInterval) {
+        this.leaderboardRepo = leaderboardRepo;
+        this.sourceRepo = sourceRepo;
+        this.maxK = maxK;
+        this.refreshInterval = refreshInterval;
+        logger.info("LeaderboardService initialized with max k: {}, refresh interval: {}", maxK, refreshInterval);
+    }
+
+    /**
+     * Returns the caller's top campaigns by a metric.
+     *
+     * @param metricType the metric type
+     * @param k the number of campaigns to return
+     * @return up to k campaigns, highest value first
+     */
+    public List<AdMetricResponse> getTopCampaigns(String metricType, int k) {
+        if (!TenantContext.isSet()) {
+            throw new TenantNotFoundException("Tenant context is required for leaderboards");
+        }
+        if (!MetricType.isSupported(metricType)) {
+            throw new IllegalArgumentException("Unsupported metric: " + metricType);
+        }
+        if (k < 1 || k > maxK) {
+            throw new IllegalArgumentException("k must be between 1 and " + maxK);
+        }
+
+        List<AdMetricResponse> top = leaderboardRepo.getTop(metricType, k);
+        if (top != null) {
+            logger.debug("Leaderboard hit for metric {}: {} entries", metricType, top.size());
+            return top;
+        }
+
+        List<AdMetricResponse> fresh = seed(metricType);
+        if (fresh == null) {
+            return List.of();
+        }
+        return fresh.subList(0, Math.min(k, fresh.size()));
+    }
+
+    /**
+     * Seeds the caller's leaderboard from ClickHouse, or waits for the seeding already in progress.
+     *
+     * @return the loaded top list, or null if ClickHouse could not be queried
+     */
+    private List<AdMetricResponse> seed(String metricType) {
+        String seedKey = TenantContext.getTenantId() + ":" + metricType;
+        CompletableFuture<List<AdMetricResponse>> mine = new CompletableFuture<>();
+        CompletableFuture<List<AdMetricResponse>> inProgress = seeding.putIfAbsent(seedKey, mine);
+        if (inProgress != null) {
+            logger.debug("Waiting for leaderboard {} being seeded by another request", seedKey);
+            return inProgress.join();
+        }
+
+        List<AdMetricResponse> fresh = null;
+        try {
+            logger.debug("Leaderboard for metric {} missing or stale, seeding from ClickHouse", metricType);
+            fresh = sourceRepo.getTopCampaigns(metricType, maxK);
+            if (fresh == null) {
+                logger.warn("Could not load top campaigns for metric {} from ClickHouse", metricType);
+            } else {
+                leaderboardRepo.seed(metricType, fresh, refreshInterval, maxK);
+            }
+        } finally {
+            seeding.remove(seedKey, mine);
+            mine.complete(fresh);
+        }
+        return fresh;
+    }
+
+    /**
+     * Applies a freshly observed metric value to the caller's leaderboard, if one exists.
+     */
+    public void record(String campaignId, String metricType, long value) {
+        leaderboardRepo.record(campaignId, metricType, value, maxK);
+    }
+
+    /**
+     * Applies several freshly observed values of one metric to the caller's leaderboard, if one
+     * exists.
+     *
+     * @param metricType the metric type
+     * @param values the values, keyed by campaign
+     */
+    public void recordAll(String metricType, Map<String, Long> values) {
+        leaderboardRepo.recordAll(metricType, values, maxK);
+    }
+}
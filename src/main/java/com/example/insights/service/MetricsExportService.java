@@ -0,0 +1,172 @@
+package com.example.insights.service;
+
+import com.example.insights.constants.ExportFormat;
+import com.example.insights.constants.MetricType;
+import com.example.insights.exception.ExportLimitExceededException;
+import com.example.insights.exception.TenantNotFoundException;
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.MetricsExportRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulk export of every campaign metric of the caller's tenant, replacing thousands of
+ * per-campaign lookups with one streamed response.
+ *
+ * An export is prepared on the request thread, where the tenant is known and a concurrency slot
+ * is taken so a rejected export can still be answered with 429, and written later, typically on
+ * an async thread while the response streams. Exports bypass the cache tier entirely.
+ */
+@Service
+public class MetricsExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsExportService.class);
+
+    private final MetricsExportRepository exportRepo;
+    private final Semaphore slots;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary exportedBytes;
+
+    public MetricsExportService(MetricsExportRepository exportRepo,
+                                @Value("${export.max-concurrent:4}") int maxConcurrent,
+                                MeterRegistry meterRegistry) {
+        this.exportRepo = exportRepo;
+        this.slots = new Semaphore(maxConcurrent);
+        this.meterRegistry = meterRegistry;
+        this.exportedBytes = DistributionSummary.builder("insights.export.bytes")
+                .description("Bytes written per export")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("insights.export.active", slots, s -> maxConcurrent - s.availablePermits())
+                .description("Exports currently streaming")
+                .register(meterRegistry);
+        logger.info("MetricsExportService initialized with max concurrent exports: {}", maxConcurrent);
+    }
+
+    /**
+     * Validates an export for the current tenant and reserves a slot for it. The slot is released
+     * when {@link Export#writeTo} returns, or by {@link Export#release}; a caller handing the export
+     * to async processing must also release it when that processing ends without running it, e.g.
+     * on an async timeout.
+     *
+     * @param format the output format name, e.g. {@code csv} or {@code arrow}
+     * @param metricTypes the metric types to export; null or empty exports all of them
+     * @param gzip whether to gzip the output
+     * @return the export, ready to be written
+     * @throws ExportLimitExceededException if the maximum number of exports is already running
+     */
+    public Export prepare(String format, List<String> metricTypes, boolean gzip) {
+        String tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            throw new TenantNotFoundException("Tenant context is required for exports");
+        }
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        Set<String> metrics = new LinkedHashSet<>();
+        if (metricTypes != null) {
+            for (String metricType : metricTypes) {
+                if (!MetricType.isSupported(metricType)) {
+                    throw new IllegalArgumentException("Unsupported metric: " + metricType);
+                }
+                metrics.add(metricType);
+            }
+        }
+
+        if (!slots.tryAcquire()) {
+            logger.warn("Rejected export for tenant: {}, all export slots are in use", tenantId);
+            throw new ExportLimitExceededException("Too many exports in progress, please retry later");
+        }
+        return new Export(tenantId, exportFormat, metrics, gzip);
+    }
+
+    /**
+     * A validated export holding a concurrency slot.
+     */
+    public final class Export {
+
+        private final String tenantId;
+        private final ExportFormat format;
+        private final Set<String> metricTypes;
+        private final boolean gzip;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Export(String tenantId, ExportFormat format, Set<String> metricTypes, boolean gzip) {
+            this.tenantId = tenantId;
+            this.format = format;
+            this.metricTypes = metricTypes;
+            this.gzip = gzip;
+        }
+
+        public String tenantId() {
+            return tenantId;
+        }
+
+        public ExportFormat format() {
+            return format;
+        }
+
+        public boolean gzip() {
+            return gzip;
+        }
+
+        /**
+         * Streams the export to the output and releases its slot. A client that disconnects
+         * mid-stream cancels the export; that is logged, not rethrown as an error.
+         *
+         * @param out the response body
+         * @throws IOException if the export failed for any other reason
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "completed";
+            logger.info("Starting {} export for tenant: {}, metrics: {}, gzip: {}",
+                    format, tenantId, metricTypes.isEmpty() ? "all" : metricTypes, gzip);
+            try {
+                long bytes = exportRepo.export(tenantId, metricTypes, format, gzip, out);
+                exportedBytes.record(bytes);
+                logger.info("Completed {} export for tenant: {}, {} bytes", format, tenantId, bytes);
+            } catch (IOException e) {
+                if (DisconnectedClientHelper.isClientDisconnectedException(e)) {
+                    outcome = "cancelled";
+                    logger.info("Client disconnected during {} export for tenant: {}", format, tenantId);
+                    return;
+                }
+                outcome = "failed";
+                logger.error("Export failed for tenant: {}. Error: {}", tenantId, e.getMessage());
+                throw e;
+            } finally {
+                release();
+                sample.stop(Timer.builder("insights.export")
+                        .description("Duration of bulk metric exports")
+                        .tag("format", format.name().toLowerCase(Locale.ROOT))
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            }
+        }
+
+        /**
+         * Gives the slot back without exporting, e.g. when the response cannot be started or async
+         * processing timed out before the export ran. Idempotent.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        }
+    }
+}
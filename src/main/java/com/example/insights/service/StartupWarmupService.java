@@ -0,0 +1,68 @@
+package com.example.insights.service;
+
+import com.example.insights.repository.MetricsCacheRepository;
+import com.example.insights.repository.MetricsSourceRepository;
+import com.example.insights.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Initializes the request hot path before the service reports ready.
+ *
+ * Application runners complete before Spring Boot publishes the readiness state
+ * {@code ACCEPTING_TRAFFIC}, so a new pod only receives traffic once the JWT parser has been
+ * exercised and the cache and source connections are open. Failures are logged and never block
+ * startup. Disabled with {@code startup.warmup.enabled=false}.
+ */
+@Service
+@ConditionalOnProperty(name = "startup.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmupService implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmupService.class);
+    private static final String WARM_UP_TENANT = "warm-up";
+
+    private final JwtUtil jwtUtil;
+    private final MetricsCacheRepository cacheRepo;
+    private final MetricsSourceRepository sourceRepo;
+    private final MeterRegistry meterRegistry;
+
+    public StartupWarmupService(JwtUtil jwtUtil,
+                                MetricsCacheRepository cacheRepo,
+                                MetricsSourceRepository sourceRepo,
+                                MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.cacheRepo = cacheRepo;
+        this.sourceRepo = sourceRepo;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        // Signing and parsing once loads jjwt, its Jackson deserializer and the HMAC provider
+        time("jwt", () -> jwtUtil.validateToken(jwtUtil.generateToken(WARM_UP_TENANT, WARM_UP_TENANT)));
+        time("cache", cacheRepo::warmUp);
+        time("source", sourceRepo::warmUp);
+        logger.info("Hot path warm-up completed in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void time(String component, Runnable warmUp) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            warmUp.run();
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up of {} failed. Error: {}", component, e.getMessage());
+        } finally {
+            sample.stop(Timer.builder("insights.startup.warmup")
+                    .description("Time spent warming up a hot-path component before readiness")
+                    .tag("component", component)
+                    .register(meterRegistry));
+        }
+    }
+}
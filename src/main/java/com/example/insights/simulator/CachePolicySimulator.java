@@ -0,0 +1,280 @@
+package com.example.insights.simulator;
+
+import com.example.insights.trace.AccessTraceFormat;
+import com.example.insights.trace.AccessTraceReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Replays an access trace recorded with {@code cache.trace.enabled=true} against cache policies
+ * and sizes offline, to choose the cache configuration from real traffic instead of guesses.
+ *
+ * <pre>
+ * java -cp target/classes com.example.insights.simulator.CachePolicySimulator TRACE [options]
+ *   --policies lru,lfu,wtinylfu   bounded policies to compare with the unbounded baseline
+ *   --sizes 100k,1m               entry capacities of the bounded policies
+ *   --ttls PT6H,adaptive          fixed TTLs and/or adaptive[:tolerance]
+ *   --negative-ttls 0,PT1M        how long "not found" is cached, 0 for not at all
+ *   --entry-bytes 128             memory per cached entry, including the store's overhead
+ *
+ * java -cp target/classes com.example.insights.simulator.CachePolicySimulator generate TRACE
+ *   [--events 10m] [--keys 1m] [--skew 0.9] [--rate 2000] [--missing 0.02] [--change-interval PT1H] [--seed 1]
+ * </pre>
+ *
+ * Every combination replays the whole trace single-threaded over primitive arrays, at several
+ * million events per second with fixed TTLs; adaptive TTLs run the production
+ * {@link com.example.insights.cache.AdaptiveTtlPolicy} on every event and are slower. For each it reports the hit ratio; stale hits, as far as the
+ * trace can tell (hits on events the recorded run loaded from ClickHouse, whose value differs from
+ * the simulated cached one); the resulting ClickHouse query rate, average and peak second; and
+ * peak memory as peak entries times {@code --entry-bytes}. The simulator needs only the JDK and
+ * the compiled classes, not the application's dependencies.
+ */
+public final class CachePolicySimulator {
+
+    private static final int LFU_SAMPLES = 5;
+    private static final int LFU_LOG_FACTOR = 10;
+    private static final long LFU_DECAY_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final double WINDOW_FRACTION = 0.01;
+
+    private CachePolicySimulator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        try {
+            if (args.length >= 2 && args[0].equals("generate")) {
+                generate(Path.of(args[1]), options(args, 2));
+            } else if (args.length >= 1 && !args[0].startsWith("--")) {
+                simulate(Path.of(args[0]), options(args, 1));
+            } else {
+                usage();
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+        }
+    }
+
+    private static void simulate(Path path, Map<String, String> options) throws IOException {
+        List<String> policies = List.of(options.getOrDefault("policies", "lru,lfu,wtinylfu").split(","));
+        List<Long> sizes = new ArrayList<>();
+        for (String size : options.getOrDefault("sizes", "100k,1m").split(",")) {
+            sizes.add(parseCount(size));
+        }
+        List<String> ttls = List.of(options.getOrDefault("ttls", "PT6H,adaptive").split(","));
+        List<Long> negativeTtls = new ArrayList<>();
+        for (String ttl : options.getOrDefault("negative-ttls", "0,PT1M").split(",")) {
+            negativeTtls.add(ttl.equals("0") ? 0 : Duration.parse(ttl).toMillis());
+        }
+        long entryBytes = Long.parseLong(options.getOrDefault("entry-bytes", "128"));
+        for (String policy : policies) {
+            newCache(policy, 1);
+        }
+        for (String ttl : ttls) {
+            TtlPolicy.parse(ttl);
+        }
+
+        try (AccessTraceReader reader = new AccessTraceReader(path)) {
+            describe(reader);
+            System.out.printf(Locale.ROOT, "%n%-10s %9s %-14s %7s %8s %8s %10s %10s %10s %8s%n",
+                    "policy", "size", "ttl", "neg-ttl", "hit%", "stale%", "ch-qps", "ch-peak", "peak-mem", "Mev/s");
+            for (String ttl : ttls) {
+                for (long negativeTtl : negativeTtls) {
+                    print(replay(reader, new UnboundedCache(), TtlPolicy.parse(ttl), negativeTtl), entryBytes);
+                    for (String policy : policies) {
+                        for (long size : sizes) {
+                            print(replay(reader, newCache(policy, size), TtlPolicy.parse(ttl), negativeTtl), entryBytes);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static SimulatedCache newCache(String policy, long size) {
+        return switch (policy) {
+            case "lru" -> new LruCache(size);
+            case "lfu" -> new SampledLfuCache(size, LFU_SAMPLES, LFU_LOG_FACTOR, LFU_DECAY_MILLIS);
+            case "wtinylfu" -> new WindowTinyLfuCache(size, WINDOW_FRACTION);
+            default -> throw new IllegalArgumentException("Unknown policy: " + policy);
+        };
+    }
+
+    /**
+     * The trace's own span, rate and the hit ratio of the run that recorded it.
+     */
+    private static void describe(AccessTraceReader reader) throws IOException {
+        long events = 0;
+        long fromSource = 0;
+        long first = 0;
+        long last = 0;
+        reader.rewind();
+        while (reader.next()) {
+            if (events++ == 0) {
+                first = reader.timeMillis();
+            }
+            last = reader.timeMillis();
+            if ((reader.flags() & AccessTraceFormat.FROM_SOURCE) != 0) {
+                fromSource++;
+            }
+        }
+        double seconds = Math.max(1, last - first) / 1000.0;
+        System.out.printf(Locale.ROOT, "%d events over %s, %.0f lookups/s; recorded hit ratio %.2f%%%n",
+                events, Duration.ofMillis(last - first), events / seconds,
+                events == 0 ? 0 : 100.0 * (events - fromSource) / events);
+    }
+
+    private static Result replay(AccessTraceReader reader, SimulatedCache cache, TtlPolicy ttl, long negativeTtl)
+            throws IOException {
+        Result result = new Result(cache, ttl.name(), negativeTtl);
+        long started = System.nanoTime();
+        long second = Long.MIN_VALUE;
+        long queriesThisSecond = 0;
+        reader.rewind();
+
+        while (reader.next()) {
+            long key = reader.keyHash();
+            long now = reader.timeMillis();
+            int flags = reader.flags();
+            if (result.events++ == 0) {
+                result.firstMillis = now;
+            }
+            result.lastMillis = now;
+            ttl.recordAccess(key);
+
+            int node = cache.get(key, now);
+            if (node != SimulatedCache.NONE) {
+                result.hits++;
+                if ((flags & AccessTraceFormat.FROM_SOURCE) != 0) {
+                    result.checkedHits++;
+                    if (cache.payload(node) != (flags & ~AccessTraceFormat.FROM_SOURCE)) {
+                        result.staleHits++;
+                    }
+                }
+                continue;
+            }
+
+            if (now / 1000 != second) {
+                second = now / 1000;
+                queriesThisSecond = 0;
+            }
+            result.peakQueriesPerSecond = Math.max(result.peakQueriesPerSecond, ++queriesThisSecond);
+            int payload = flags & ~AccessTraceFormat.FROM_SOURCE;
+            if ((flags & AccessTraceFormat.FOUND) != 0) {
+                long version = reader.versionAgeSeconds() > 0 ? now - reader.versionAgeSeconds() * 1000L : 0;
+                long ttlMillis = ttl.ttlMillis(key, flags & AccessTraceFormat.VALUE_HASH_MASK, version, now);
+                cache.put(key, now, now + ttlMillis, payload);
+            } else if (negativeTtl > 0) {
+                cache.put(key, now, now + negativeTtl, payload);
+            }
+        }
+        result.peakEntries = cache.peakSize();
+        result.elapsedNanos = System.nanoTime() - started;
+        return result;
+    }
+
+    private static void print(Result result, long entryBytes) {
+        long misses = result.events - result.hits;
+        double seconds = Math.max(1, result.lastMillis - result.firstMillis) / 1000.0;
+        System.out.printf(Locale.ROOT, "%-10s %9s %-14s %7s %7.2f%% %7.3f%% %10.1f %10d %10s %8.1f%n",
+                result.policy,
+                result.capacity == 0 ? "-" : formatCount(result.capacity),
+                result.ttl,
+                result.negativeTtl == 0 ? "off" : Duration.ofMillis(result.negativeTtl).toString().substring(2),
+                result.events == 0 ? 0 : 100.0 * result.hits / result.events,
+                result.checkedHits == 0 ? 0 : 100.0 * result.staleHits / result.checkedHits,
+                misses / seconds,
+                result.peakQueriesPerSecond,
+                formatBytes(result.peakEntries * entryBytes),
+                result.events / (result.elapsedNanos / 1e3));
+    }
+
+    private static void generate(Path path, Map<String, String> options) throws IOException {
+        long events = parseCount(options.getOrDefault("events", "10m"));
+        long started = System.nanoTime();
+        SyntheticTrace.write(path, events,
+                (int) parseCount(options.getOrDefault("keys", "1m")),
+                Double.parseDouble(options.getOrDefault("skew", "0.9")),
+                Double.parseDouble(options.getOrDefault("rate", "2000")),
+                Double.parseDouble(options.getOrDefault("missing", "0.02")),
+                Duration.parse(options.getOrDefault("change-interval", "PT1H")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        System.out.printf(Locale.ROOT, "Wrote %d events to %s in %.1f s%n", events, path, (System.nanoTime() - started) / 1e9);
+    }
+
+    private static Map<String, String> options(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value at: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Parses counts such as {@code 250000}, {@code 100k} or {@code 1m}.
+     */
+    private static long parseCount(String value) {
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        long multiplier = lower.endsWith("k") ? 1_000 : lower.endsWith("m") ? 1_000_000 : 1;
+        String digits = multiplier == 1 ? lower : lower.substring(0, lower.length() - 1);
+        try {
+            return Long.parseLong(digits) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid count: " + value);
+        }
+    }
+
+    private static String formatCount(long count) {
+        if (count % 1_000_000 == 0) {
+            return count / 1_000_000 + "m";
+        }
+        return count % 1_000 == 0 ? count / 1_000 + "k" : Long.toString(count);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) {
+            return String.format(Locale.ROOT, "%.1f GiB", bytes / (double) (1L << 30));
+        }
+        return String.format(Locale.ROOT, "%.1f MiB", bytes / (double) (1L << 20));
+    }
+
+    private static void usage() {
+        System.err.println("Usage: CachePolicySimulator TRACE [--policies lru,lfu,wtinylfu] [--sizes 100k,1m]"
+                + " [--ttls PT6H,adaptive] [--negative-ttls 0,PT1M] [--entry-bytes 128]");
+        System.err.println("       CachePolicySimulator generate TRACE [--events 10m] [--keys 1m] [--skew 0.9]"
+                + " [--rate 2000] [--missing 0.02] [--change-interval PT1H] [--seed 1]");
+        System.exit(2);
+    }
+
+    private static final class Result {
+        final String policy;
+        final long capacity;
+        final String ttl;
+        final long negativeTtl;
+        long events;
+        long hits;
+        long checkedHits;
+        long staleHits;
+        long peakQueriesPerSecond;
+        long peakEntries;
+        long firstMillis;
+        long lastMillis;
+        long elapsedNanos;
+
+        Result(SimulatedCache cache, String ttl, long negativeTtl) {
+            this.policy = cache.name();
+            this.capacity = cache.capacity;
+            this.ttl = ttl;
+            this.negativeTtl = negativeTtl;
+        }
+    }
+}
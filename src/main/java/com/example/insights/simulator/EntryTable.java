@@ -0,0 +1,211 @@
+package com.example.insights.simulator;
+
+import java.util.Arrays;
+
+/**
+ * Entries of a simulated cache held in primitive arrays, so replays allocate nothing per event.
+ *
+ * Keys (already well-mixed trace hashes) are indexed by linear probing with backward-shift
+ * deletion, which needs no tombstones. Each entry is a node number into parallel field arrays,
+ * with two pairs of intrusive links: one for the eviction policy's queues and one for the expiry
+ * wheel. Removed nodes are reused through a free list.
+ */
+final class EntryTable {
+
+    static final int NONE = -1;
+    // expiresAt of a node that is not in use
+    private static final long FREE = Long.MIN_VALUE;
+
+    long[] keys;
+    long[] expiresAt;
+    int[] payloads;
+    // Policy-specific per-entry state, e.g. a frequency counter or queue id, and a timestamp
+    int[] counters;
+    int[] stamps;
+    int[] prev;
+    int[] next;
+    int[] wheelPrev;
+    int[] wheelNext;
+
+    private int[] index;
+    private int indexShift;
+    private int size;
+    private int highWater;
+    private int freeHead = NONE;
+
+    EntryTable(int initialNodes) {
+        int nodes = Math.max(16, initialNodes);
+        keys = new long[nodes];
+        expiresAt = new long[nodes];
+        Arrays.fill(expiresAt, FREE);
+        payloads = new int[nodes];
+        counters = new int[nodes];
+        stamps = new int[nodes];
+        prev = new int[nodes];
+        next = new int[nodes];
+        wheelPrev = new int[nodes];
+        wheelNext = new int[nodes];
+        resizeIndex(Integer.highestOneBit(nodes - 1) << 2);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Nodes ever allocated; live nodes are all below this.
+     */
+    int highWater() {
+        return highWater;
+    }
+
+    boolean isLive(int node) {
+        return expiresAt[node] != FREE;
+    }
+
+    int find(long key) {
+        int mask = index.length - 1;
+        for (int i = home(key); ; i = (i + 1) & mask) {
+            int slot = index[i];
+            if (slot == 0) {
+                return NONE;
+            }
+            if (keys[slot - 1] == key) {
+                return slot - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds an absent key and returns its node; the caller sets its expiry right away.
+     */
+    int insert(long key) {
+        if ((size + 1) * 2 > index.length) {
+            resizeIndex(index.length << 1);
+        }
+        int node = allocate();
+        keys[node] = key;
+        place(node);
+        size++;
+        return node;
+    }
+
+    void remove(int node) {
+        int mask = index.length - 1;
+        int i = home(keys[node]);
+        while (index[i] != node + 1) {
+            i = (i + 1) & mask;
+        }
+        // Shift back later entries of the probe run that would otherwise become unreachable
+        for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = home(keys[index[j] - 1]);
+            boolean reachable = i <= j ? i < home && home <= j : i < home || home <= j;
+            if (!reachable) {
+                index[i] = index[j];
+                i = j;
+            }
+        }
+        index[i] = 0;
+        expiresAt[node] = FREE;
+        next[node] = freeHead;
+        freeHead = node;
+        size--;
+    }
+
+    void linkLast(NodeList list, int node) {
+        prev[node] = list.tail;
+        next[node] = NONE;
+        if (list.tail == NONE) {
+            list.head = node;
+        } else {
+            next[list.tail] = node;
+        }
+        list.tail = node;
+        list.size++;
+    }
+
+    void unlink(NodeList list, int node) {
+        int before = prev[node];
+        int after = next[node];
+        if (before == NONE) {
+            list.head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            list.tail = before;
+        } else {
+            prev[after] = before;
+        }
+        list.size--;
+    }
+
+    void moveToLast(NodeList list, int node) {
+        if (list.tail != node) {
+            unlink(list, node);
+            linkLast(list, node);
+        }
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int node = freeHead;
+            freeHead = next[node];
+            return node;
+        }
+        if (highWater == keys.length) {
+            grow();
+        }
+        return highWater++;
+    }
+
+    private void grow() {
+        int nodes = keys.length + (keys.length >> 1);
+        keys = Arrays.copyOf(keys, nodes);
+        int old = expiresAt.length;
+        expiresAt = Arrays.copyOf(expiresAt, nodes);
+        Arrays.fill(expiresAt, old, nodes, FREE);
+        payloads = Arrays.copyOf(payloads, nodes);
+        counters = Arrays.copyOf(counters, nodes);
+        stamps = Arrays.copyOf(stamps, nodes);
+        prev = Arrays.copyOf(prev, nodes);
+        next = Arrays.copyOf(next, nodes);
+        wheelPrev = Arrays.copyOf(wheelPrev, nodes);
+        wheelNext = Arrays.copyOf(wheelNext, nodes);
+    }
+
+    private void resizeIndex(int length) {
+        int[] old = index;
+        index = new int[length];
+        indexShift = 64 - Integer.numberOfTrailingZeros(length);
+        if (old != null) {
+            for (int slot : old) {
+                if (slot != 0) {
+                    place(slot - 1);
+                }
+            }
+        }
+    }
+
+    private void place(int node) {
+        int mask = index.length - 1;
+        int i = home(keys[node]);
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = node + 1;
+    }
+
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> indexShift);
+    }
+
+    /**
+     * Head, tail and length of one intrusive queue over the policy links.
+     */
+    static final class NodeList {
+        int head = NONE;
+        int tail = NONE;
+        int size;
+    }
+}
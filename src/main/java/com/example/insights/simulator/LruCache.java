@@ -0,0 +1,37 @@
+package com.example.insights.simulator;
+
+/**
+ * Exact least-recently-used eviction. Redis's {@code allkeys-lru} samples candidates instead,
+ * which with its eviction pool comes close to this.
+ */
+final class LruCache extends SimulatedCache {
+
+    private final EntryTable.NodeList queue = new EntryTable.NodeList();
+
+    LruCache(long capacity) {
+        super(capacity);
+    }
+
+    @Override
+    String name() {
+        return "lru";
+    }
+
+    @Override
+    void onHit(int node, long now) {
+        table.moveToLast(queue, node);
+    }
+
+    @Override
+    void onInsert(int node, long now) {
+        table.linkLast(queue, node);
+        if (queue.size > capacity) {
+            evict(queue.head);
+        }
+    }
+
+    @Override
+    void onRemove(int node) {
+        table.unlink(queue, node);
+    }
+}
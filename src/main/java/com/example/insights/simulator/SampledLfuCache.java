@@ -0,0 +1,104 @@
+package com.example.insights.simulator;
+
+/**
+ * Least-frequently-used eviction as Redis implements {@code allkeys-lfu}: an 8-bit logarithmic
+ * access counter per key that starts at 5, is incremented with probability
+ * {@code 1 / ((counter - 5) * logFactor + 1)} and loses one point per idle decay period, and a
+ * victim chosen as the lowest counter among a few randomly sampled keys. Modeling Redis rather
+ * than textbook LFU makes the result directly applicable to a {@code maxmemory-policy} change.
+ */
+final class SampledLfuCache extends SimulatedCache {
+
+    private static final int INITIAL_COUNTER = 5;
+    private static final int MAX_COUNTER = 255;
+
+    private final int samples;
+    private final int logFactor;
+    private final long decayMillis;
+    private long random = 0x2545F4914F6CDD1DL;
+
+    /**
+     * @param samples keys sampled per eviction, Redis's {@code maxmemory-samples}
+     * @param logFactor Redis's {@code lfu-log-factor}
+     * @param decayMillis Redis's {@code lfu-decay-time}, in millis
+     */
+    SampledLfuCache(long capacity, int samples, int logFactor, long decayMillis) {
+        super(capacity);
+        this.samples = samples;
+        this.logFactor = logFactor;
+        this.decayMillis = decayMillis;
+    }
+
+    @Override
+    String name() {
+        return "lfu";
+    }
+
+    @Override
+    void onHit(int node, long now) {
+        int counter = decayed(node, now);
+        if (counter < MAX_COUNTER) {
+            double p = 1.0 / (Math.max(0, counter - INITIAL_COUNTER) * logFactor + 1);
+            if (nextDouble() < p) {
+                counter++;
+            }
+        }
+        table.counters[node] = counter;
+        table.stamps[node] = periods(now);
+    }
+
+    @Override
+    void onInsert(int node, long now) {
+        table.counters[node] = INITIAL_COUNTER;
+        table.stamps[node] = periods(now);
+        if (table.size() > capacity) {
+            evict(victim(node, now));
+        }
+    }
+
+    @Override
+    void onRemove(int node) {
+    }
+
+    private int victim(int inserted, long now) {
+        int victim = NONE;
+        int lowest = Integer.MAX_VALUE;
+        int sampled = 0;
+        int highWater = table.highWater();
+        while (sampled < samples) {
+            int node = (int) ((nextLong() >>> 33) % highWater);
+            // Redis samples among existing keys; the one just added is not yet one of them
+            if (!table.isLive(node) || node == inserted) {
+                continue;
+            }
+            sampled++;
+            int counter = decayed(node, now);
+            if (counter < lowest) {
+                lowest = counter;
+                victim = node;
+            }
+        }
+        return victim;
+    }
+
+    private int decayed(int node, long now) {
+        int elapsed = periods(now) - table.stamps[node];
+        return Math.max(0, table.counters[node] - elapsed);
+    }
+
+    private int periods(long now) {
+        return (int) (now / decayMillis);
+    }
+
+    private long nextLong() {
+        // xorshift64*, deterministic so runs are repeatable
+        random ^= random >>> 12;
+        random ^= random << 25;
+        random ^= random >>> 27;
+        return random * 0x2545F4914F6CDD1DL;
+    }
+
+    private double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
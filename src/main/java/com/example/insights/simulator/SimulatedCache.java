@@ -0,0 +1,184 @@
+package com.example.insights.simulator;
+
+import java.util.Arrays;
+
+/**
+ * A cache replayed against an access trace: entries with per-entry expiry and a bounded number of
+ * slots, with eviction left to the subclass.
+ *
+ * Expired entries are removed by a timer wheel of one-second buckets as simulated time advances,
+ * the way Redis reclaims expired keys in the background, so the entry count (and the memory
+ * estimate built on it) reflects live entries rather than everything ever loaded. Entries due
+ * beyond the wheel's span wait in its last bucket and are rescheduled when it comes round.
+ * Not thread-safe.
+ */
+abstract class SimulatedCache {
+
+    static final int NONE = EntryTable.NONE;
+
+    private static final int WHEEL_BITS = 17; // ~36 hours of one-second buckets
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    protected final EntryTable table;
+    protected final long capacity;
+    private final int[] buckets = new int[WHEEL_SIZE];
+    private long tick = Long.MIN_VALUE;
+    private long peakSize;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param capacity maximum number of entries, or 0 for no bound
+     */
+    SimulatedCache(long capacity) {
+        if (capacity < 0 || capacity >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity must be in [0, " + Integer.MAX_VALUE + ")");
+        }
+        this.capacity = capacity;
+        this.table = new EntryTable(capacity > 0 ? (int) capacity + 1 : 1 << 16);
+        Arrays.fill(buckets, NONE);
+    }
+
+    abstract String name();
+
+    /**
+     * Looks a key up at the given time, counting the access toward the policy's statistics.
+     *
+     * @return the key's node, or {@link #NONE} on a miss
+     */
+    final int get(long key, long now) {
+        advance(now);
+        recordAccess(key);
+        int node = table.find(key);
+        if (node == NONE) {
+            return NONE;
+        }
+        if (table.expiresAt[node] <= now) {
+            // Expired within the current second, before the wheel got to it
+            expirations++;
+            unschedule(node);
+            remove(node);
+            return NONE;
+        }
+        onHit(node, now);
+        return node;
+    }
+
+    /**
+     * Adds a key that just missed, possibly evicting others (or the key itself, if not admitted).
+     */
+    final void put(long key, long now, long expiresAt, int payload) {
+        int node = table.insert(key);
+        table.expiresAt[node] = expiresAt;
+        table.payloads[node] = payload;
+        schedule(node);
+        onInsert(node, now);
+        peakSize = Math.max(peakSize, table.size());
+    }
+
+    final int payload(int node) {
+        return table.payloads[node];
+    }
+
+    final long size() {
+        return table.size();
+    }
+
+    final long peakSize() {
+        return peakSize;
+    }
+
+    final long evictions() {
+        return evictions;
+    }
+
+    final long expirations() {
+        return expirations;
+    }
+
+    /**
+     * Called for every lookup, hit or miss, before the key is looked up.
+     */
+    void recordAccess(long key) {
+    }
+
+    abstract void onHit(int node, long now);
+
+    /**
+     * Called after a node is added; evicts with {@link #evict(int)} while over capacity.
+     */
+    abstract void onInsert(int node, long now);
+
+    /**
+     * Called before a node is removed for any reason, to unlink it from the policy's queues.
+     */
+    abstract void onRemove(int node);
+
+    final void evict(int node) {
+        evictions++;
+        unschedule(node);
+        remove(node);
+    }
+
+    private void remove(int node) {
+        onRemove(node);
+        table.remove(node);
+    }
+
+    private void advance(long now) {
+        long nowTick = now / 1000;
+        if (tick == Long.MIN_VALUE) {
+            tick = nowTick;
+            return;
+        }
+        if (nowTick <= tick) {
+            return;
+        }
+        // Drain the buckets of the seconds that have fully passed
+        long from = tick;
+        long steps = Math.min(nowTick - from, WHEEL_SIZE);
+        tick = nowTick;
+        for (long t = from; t < from + steps; t++) {
+            int bucket = (int) t & WHEEL_MASK;
+            int node = buckets[bucket];
+            buckets[bucket] = NONE;
+            while (node != NONE) {
+                int following = table.wheelNext[node];
+                if (table.expiresAt[node] <= now) {
+                    expirations++;
+                    remove(node);
+                } else {
+                    schedule(node);
+                }
+                node = following;
+            }
+        }
+    }
+
+    private void schedule(int node) {
+        long due = Math.max(tick, Math.min(table.expiresAt[node] / 1000, tick + WHEEL_SIZE - 1));
+        int bucket = (int) due & WHEEL_MASK;
+        int head = buckets[bucket];
+        // A bucket's first node points back at the bucket, encoded below NONE
+        table.wheelPrev[node] = -(bucket + 2);
+        table.wheelNext[node] = head;
+        if (head != NONE) {
+            table.wheelPrev[head] = node;
+        }
+        buckets[bucket] = node;
+    }
+
+    private void unschedule(int node) {
+        int before = table.wheelPrev[node];
+        int after = table.wheelNext[node];
+        if (before >= 0) {
+            table.wheelNext[before] = after;
+        } else {
+            buckets[-(before + 2)] = after;
+        }
+        if (after != NONE) {
+            table.wheelPrev[after] = before;
+        }
+    }
+}
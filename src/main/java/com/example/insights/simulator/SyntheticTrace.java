@@ -0,0 +1,90 @@
+package com.example.insights.simulator;
+
+import com.example.insights.trace.AccessTraceFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic access trace, for trying the simulator without production traffic and for
+ * measuring its replay speed.
+ *
+ * Keys are drawn from a Zipf distribution and arrive as a Poisson process. Each key's value
+ * changes every {@code changeInterval} times a per-key factor between 1/8 and 8, and a fraction of
+ * keys never exists. Every event carries the true value, as if each lookup had gone to the source,
+ * so staleness is checked on every hit.
+ */
+final class SyntheticTrace {
+
+    private static final int TENANTS = 50;
+
+    private SyntheticTrace() {
+    }
+
+    static void write(Path path, long events, int keys, double skew, double ratePerSecond, double missing,
+                      Duration changeInterval, long seed) throws IOException {
+        if (events / ratePerSecond * 1000 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trace would span more than the format's ~24 days; raise the rate");
+        }
+        double[] cdf = zipfCdf(keys, skew);
+        SplittableRandom random = new SplittableRandom(seed);
+        long startMillis = System.currentTimeMillis();
+        double offset = 0;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 20))) {
+            out.writeInt(AccessTraceFormat.MAGIC);
+            out.writeInt(AccessTraceFormat.VERSION);
+            out.writeLong(startMillis);
+            out.writeInt(AccessTraceFormat.RECORD_BYTES);
+            out.writeInt(0);
+
+            for (long i = 0; i < events; i++) {
+                offset += -Math.log(1 - random.nextDouble()) * 1000 / ratePerSecond;
+                int rank = Arrays.binarySearch(cdf, random.nextDouble());
+                rank = Math.min(keys - 1, rank >= 0 ? rank : -rank - 1);
+                long key = mix(rank ^ seed);
+
+                int flags = AccessTraceFormat.FROM_SOURCE;
+                int versionAge = 0;
+                if ((key >>> 11) * 0x1.0p-53 >= missing) {
+                    // Per-key change interval between 1/8 and 8 times the base, with a per-key phase
+                    double interval = changeInterval.toMillis() * Math.pow(2, (int) (key & 7) - 3.5);
+                    double phased = offset + (key >>> 40);
+                    long epoch = (long) (phased / interval);
+                    flags |= AccessTraceFormat.FOUND | AccessTraceFormat.valueHash(mix(key + epoch));
+                    versionAge = (int) Math.max(1, (phased - epoch * interval) / 1000);
+                }
+                out.writeLong(key);
+                out.writeInt((int) mix(rank % TENANTS));
+                out.writeInt((int) offset);
+                out.writeInt(flags);
+                out.writeInt(versionAge);
+            }
+        }
+    }
+
+    private static double[] zipfCdf(int keys, double skew) {
+        double[] cdf = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < keys; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
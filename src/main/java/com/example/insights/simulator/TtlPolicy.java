@@ -0,0 +1,73 @@
+package com.example.insights.simulator;
+
+import com.example.insights.cache.AdaptiveTtlPolicy;
+
+import java.time.Duration;
+
+/**
+ * How long a loaded value is cached.
+ */
+interface TtlPolicy {
+
+    String name();
+
+    /**
+     * Called for every lookup, hit or miss.
+     */
+    default void recordAccess(long key) {
+    }
+
+    /**
+     * TTL for a value just loaded from the source.
+     *
+     * @param version the value's row update time in epoch millis, or 0 when unknown
+     */
+    long ttlMillis(long key, int valueHash, long version, long now);
+
+    /**
+     * Creates a fresh policy from {@code PT6H}-style fixed TTLs or {@code adaptive[:tolerance]},
+     * which runs {@link AdaptiveTtlPolicy} with the Redis tier's default settings.
+     */
+    static TtlPolicy parse(String spec) {
+        if (spec.equals("adaptive") || spec.startsWith("adaptive:")) {
+            double tolerance = spec.equals("adaptive") ? 0.1 : Double.parseDouble(spec.substring("adaptive:".length()));
+            AdaptiveTtlPolicy policy = new AdaptiveTtlPolicy(Duration.ofMinutes(1).toMillis(), Duration.ofHours(1).toMillis(),
+                    Duration.ofHours(6).toMillis(), tolerance, 4, 0.8, 100_000);
+            return new TtlPolicy() {
+                @Override
+                public String name() {
+                    return spec;
+                }
+
+                @Override
+                public void recordAccess(long key) {
+                    policy.recordAccess(Long.toString(key));
+                }
+
+                @Override
+                public long ttlMillis(long key, int valueHash, long version, long now) {
+                    // The simulated cache has no compare-and-set, so every load is written
+                    String cacheKey = Long.toString(key);
+                    long ttlMillis = policy.ttlMillis(cacheKey, valueHash, version, now);
+                    policy.recordReload(cacheKey, valueHash, version, now);
+                    return ttlMillis;
+                }
+            };
+        }
+        long ttl = Duration.parse(spec).toMillis();
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("TTL must be positive: " + spec);
+        }
+        return new TtlPolicy() {
+            @Override
+            public String name() {
+                return spec;
+            }
+
+            @Override
+            public long ttlMillis(long key, int valueHash, long version, long now) {
+                return ttl;
+            }
+        };
+    }
+}
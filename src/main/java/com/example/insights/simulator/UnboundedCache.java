@@ -0,0 +1,29 @@
+package com.example.insights.simulator;
+
+/**
+ * No capacity bound: entries leave only by expiring. This is how the Redis tier runs today, with
+ * no maxmemory eviction, so it is the baseline the bounded policies are compared against.
+ */
+final class UnboundedCache extends SimulatedCache {
+
+    UnboundedCache() {
+        super(0);
+    }
+
+    @Override
+    String name() {
+        return "unbounded";
+    }
+
+    @Override
+    void onHit(int node, long now) {
+    }
+
+    @Override
+    void onInsert(int node, long now) {
+    }
+
+    @Override
+    void onRemove(int node) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.insights.simulator;
+
+import com.example.insights.cache.FrequencySketch;
+
+/**
+ * W-TinyLFU: new entries enter a small LRU window; entries leaving it compete for the main
+ * segmented LRU with its probation victim, and the one the {@link FrequencySketch} estimates as
+ * more popular stays. The window absorbs bursts of new keys, the sketch keeps one-hit wonders
+ * from displacing the working set. The tenant-fair local tier uses the same admission test
+ * without the window.
+ */
+final class WindowTinyLfuCache extends SimulatedCache {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final FrequencySketch sketch;
+    private final EntryTable.NodeList window = new EntryTable.NodeList();
+    private final EntryTable.NodeList probation = new EntryTable.NodeList();
+    private final EntryTable.NodeList protectedQueue = new EntryTable.NodeList();
+    private final long windowCapacity;
+    private final long mainCapacity;
+    private final long protectedCapacity;
+
+    /**
+     * @param windowFraction share of the capacity given to the admission window, e.g. 0.01
+     */
+    WindowTinyLfuCache(long capacity, double windowFraction) {
+        super(capacity);
+        this.sketch = new FrequencySketch(capacity);
+        this.windowCapacity = Math.max(1, (long) (capacity * windowFraction));
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = (long) (mainCapacity * 0.8);
+    }
+
+    @Override
+    String name() {
+        return "wtinylfu";
+    }
+
+    @Override
+    void recordAccess(long key) {
+        sketch.increment(key);
+    }
+
+    @Override
+    void onHit(int node, long now) {
+        switch (table.counters[node]) {
+            case WINDOW -> table.moveToLast(window, node);
+            case PROBATION -> {
+                table.unlink(probation, node);
+                enqueue(protectedQueue, PROTECTED, node);
+                if (protectedQueue.size > protectedCapacity) {
+                    int demoted = protectedQueue.head;
+                    table.unlink(protectedQueue, demoted);
+                    enqueue(probation, PROBATION, demoted);
+                }
+            }
+            default -> table.moveToLast(protectedQueue, node);
+        }
+    }
+
+    @Override
+    void onInsert(int node, long now) {
+        enqueue(window, WINDOW, node);
+        if (window.size <= windowCapacity) {
+            return;
+        }
+        int candidate = window.head;
+        table.unlink(window, candidate);
+        enqueue(probation, PROBATION, candidate);
+        if (probation.size + protectedQueue.size <= mainCapacity) {
+            return;
+        }
+        int victim = probation.head;
+        if (victim != candidate
+                && sketch.frequency(table.keys[candidate]) > sketch.frequency(table.keys[victim])) {
+            evict(victim);
+        } else {
+            evict(candidate);
+        }
+    }
+
+    @Override
+    void onRemove(int node) {
+        switch (table.counters[node]) {
+            case WINDOW -> table.unlink(window, node);
+            case PROBATION -> table.unlink(probation, node);
+            default -> table.unlink(protectedQueue, node);
+        }
+    }
+
+    private void enqueue(EntryTable.NodeList queue, int queueId, int node) {
+        table.counters[node] = queueId;
+        table.linkLast(queue, node);
+    }
+}
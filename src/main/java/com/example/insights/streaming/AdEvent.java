@@ -0,0 +1,55 @@
+package com.example.insights.streaming;
+
+import com.example.insights.constants.MetricType;
+import org.springframework.util.StringUtils;
+
+/**
+ * One raw ad event, or several of the same kind.
+ *
+ * @param tenantId the tenant, or null for deployments without tenants
+ * @param campaignId the campaign identifier
+ * @param metricType the metric the event counts towards
+ * @param count how many events this is, at least 1
+ */
+public record AdEvent(String tenantId, String campaignId, String metricType, long count) {
+
+    /**
+     * Parses a line {@code tenantId,campaignId,eventType[,count]}. The event type is {@code click},
+     * {@code impression} or {@code add_to_cart}, or the metric type itself; an empty tenant means
+     * none.
+     *
+     * @return the event, or null if the line is malformed
+     */
+    public static AdEvent parse(String line) {
+        String[] fields = line.trim().split(",", -1);
+        if (fields.length < 3 || fields.length > 4 || !StringUtils.hasText(fields[1])) {
+            return null;
+        }
+        String metricType = metricType(fields[2].trim());
+        if (metricType == null) {
+            return null;
+        }
+        long count = 1;
+        if (fields.length == 4) {
+            try {
+                count = Long.parseLong(fields[3].trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (count < 1) {
+                return null;
+            }
+        }
+        String tenantId = fields[0].trim();
+        return new AdEvent(tenantId.isEmpty() ? null : tenantId, fields[1].trim(), metricType, count);
+    }
+
+    private static String metricType(String eventType) {
+        return switch (eventType) {
+            case "click", MetricType.CLICKS -> MetricType.CLICKS;
+            case "impression", MetricType.IMPRESSIONS -> MetricType.IMPRESSIONS;
+            case "add_to_cart", MetricType.ADD_TO_CART -> MetricType.ADD_TO_CART;
+            default -> null;
+        };
+    }
+}
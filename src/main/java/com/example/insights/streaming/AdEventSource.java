@@ -0,0 +1,42 @@
+package com.example.insights.streaming;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A stream of raw ad events feeding the {@link StreamingAggregator}.
+ *
+ * Events are text lines {@code tenantId,campaignId,eventType[,count]} (see {@link AdEvent#parse}),
+ * delivered to the sink from the source's own threads, possibly several at once.
+ */
+public interface AdEventSource extends Closeable {
+
+    /**
+     * Position of a source that cannot resume, so every start begins with new events.
+     */
+    long NO_POSITION = -1;
+
+    /**
+     * Starts delivering events.
+     *
+     * @param sink receives every line read, parsed or not
+     * @param resumeFrom a position earlier returned by {@link #position()}, or {@link #NO_POSITION}
+     */
+    void start(Sink sink, long resumeFrom) throws IOException;
+
+    /**
+     * The position after the last line handed to the sink, for checkpoints.
+     *
+     * @return the position, or {@link #NO_POSITION} if this source cannot resume
+     */
+    long position();
+
+    /**
+     * Receives the source's lines.
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        void accept(String line);
+    }
+}
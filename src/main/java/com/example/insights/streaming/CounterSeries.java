@@ -0,0 +1,170 @@
+package com.example.insights.streaming;
+
+import com.example.insights.repository.VersionedMetric;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The live counter of one tenant's campaign metric.
+ *
+ * Events are added to a {@link LongAdder}, whose striped cells keep concurrent producers off a
+ * shared cache line. At the end of every tumbling window the running total is recorded against
+ * the window's end, but only if it changed, so idle keys cost nothing. That makes the number of
+ * events since any retained window boundary a subtraction, which is how the counter is combined
+ * with a ClickHouse baseline: the baseline's value plus the events since the boundary at or before
+ * the baseline's version.
+ */
+final class CounterSeries {
+
+    private static final int INITIAL_WINDOWS = 4;
+
+    private final LongAdder total = new LongAdder();
+    // Window ends and the running total at each, oldest first; guarded by this
+    private long[] boundaries = new long[INITIAL_WINDOWS];
+    private long[] totals = new long[INITIAL_WINDOWS];
+    private int windows;
+    // Whether older windows were dropped; the first retained one then stands in for them
+    private boolean pruned;
+
+    private volatile Baseline baseline;
+    private volatile long lastReadMillis;
+    private volatile long lastEventMillis;
+    // Whether a lookup found no usable baseline, so the next refresh should load one
+    private volatile boolean wanted;
+
+    void add(long count, long now) {
+        total.add(count);
+        if (now - lastEventMillis >= 1000) {
+            lastEventMillis = now;
+        }
+    }
+
+    /**
+     * Closes the window ending at {@code boundary} and drops windows ending before {@code cutoff},
+     * keeping the newest of those as the total at the start of the retained range.
+     */
+    synchronized void seal(long boundary, long cutoff) {
+        long current = total.sum();
+        if (windows == 0 ? current != 0 : current != totals[windows - 1]) {
+            if (windows == boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, windows * 2);
+                totals = Arrays.copyOf(totals, windows * 2);
+            }
+            boundaries[windows] = boundary;
+            totals[windows] = current;
+            windows++;
+        }
+        int drop = 0;
+        while (drop + 1 < windows && boundaries[drop + 1] <= cutoff) {
+            drop++;
+        }
+        if (drop > 0) {
+            System.arraycopy(boundaries, drop, boundaries, 0, windows - drop);
+            System.arraycopy(totals, drop, totals, 0, windows - drop);
+            windows -= drop;
+            pruned = true;
+        }
+    }
+
+    /**
+     * The current value: the baseline plus the events since the window boundary at or before its
+     * version. Events in that window before the version are counted twice, at most one window's
+     * worth. Events older than the retained windows are taken to be in the baseline already.
+     *
+     * @param windowMillis the window length
+     * @param maxBaselineAge how long after loading a baseline may be used, in millis
+     * @return the value, or null if there is no usable baseline
+     */
+    Long value(long now, long windowMillis, long maxBaselineAge) {
+        if (now - lastReadMillis >= 1000) {
+            lastReadMillis = now;
+        }
+        Baseline current = baseline;
+        if (current == null || now - current.loadedAtMillis() > maxBaselineAge) {
+            wanted = true;
+            return null;
+        }
+        if (current.version() == VersionedMetric.UNVERSIONED) {
+            // Unknown to the source at the last load; reloaded by the periodic refresh, not on every read
+            return null;
+        }
+        long since;
+        synchronized (this) {
+            since = total.sum() - totalAt(current.version() - Math.floorMod(current.version(), windowMillis));
+        }
+        return current.value() + Math.max(0, since);
+    }
+
+    /**
+     * The running total at a window boundary; before the retained windows, that of the first.
+     */
+    private long totalAt(long boundary) {
+        int i = windows - 1;
+        while (i >= 0 && boundaries[i] > boundary) {
+            i--;
+        }
+        if (i >= 0) {
+            return totals[i];
+        }
+        return pruned ? totals[0] : 0;
+    }
+
+    void setBaseline(long value, long version, long now) {
+        Baseline current = baseline;
+        // A reload may answer with an older replica's row; never move the baseline backwards
+        if (current == null || version >= current.version()) {
+            baseline = new Baseline(value, version, now);
+        }
+        wanted = false;
+    }
+
+    Baseline baseline() {
+        return baseline;
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    long lastReadMillis() {
+        return lastReadMillis;
+    }
+
+    long lastEventMillis() {
+        return lastEventMillis;
+    }
+
+    boolean wanted() {
+        return wanted;
+    }
+
+    synchronized Windows windows() {
+        return new Windows(Arrays.copyOf(boundaries, windows), Arrays.copyOf(totals, windows), pruned);
+    }
+
+    /**
+     * Restores a checkpointed counter into this new, unused one.
+     */
+    synchronized void restore(long restoredTotal, Baseline restoredBaseline, Windows restoredWindows, long now) {
+        total.add(restoredTotal);
+        baseline = restoredBaseline;
+        boundaries = Arrays.copyOf(restoredWindows.boundaries(), Math.max(INITIAL_WINDOWS, restoredWindows.boundaries().length));
+        totals = Arrays.copyOf(restoredWindows.totals(), boundaries.length);
+        windows = restoredWindows.boundaries().length;
+        pruned = restoredWindows.pruned();
+        lastEventMillis = now;
+    }
+
+    /**
+     * A ClickHouse value, the version it was read at and when it was loaded.
+     */
+    record Baseline(long value, long version, long loadedAtMillis) {
+    }
+
+    /**
+     * A copy of the retained windows.
+     */
+    record Windows(long[] boundaries, long[] totals, boolean pruned) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.insights.streaming;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+
+/**
+ * Follows a file of event lines as it grows, like {@code tail -F}, for tests and local setups.
+ *
+ * Complete lines are handed over as they are appended; a partial last line waits for its newline.
+ * The position is the byte offset after the last complete line, so a restart resumes where the
+ * checkpoint left off. A file that shrinks was truncated or replaced and is read from the start.
+ */
+public class FileTailAdEventSource implements AdEventSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileTailAdEventSource.class);
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final Duration pollInterval;
+    private volatile long position;
+    private volatile boolean running;
+    private Thread reader;
+
+    public FileTailAdEventSource(Path path, Duration pollInterval) {
+        this.path = path;
+        this.pollInterval = pollInterval;
+    }
+
+    @Override
+    public void start(Sink sink, long resumeFrom) {
+        position = Math.max(0, resumeFrom);
+        running = true;
+        reader = new Thread(() -> follow(sink), "ad-events-tail");
+        reader.setDaemon(true);
+        reader.start();
+        logger.info("Tailing ad events from {} at offset {}", path, position);
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    private void follow(Sink sink) {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        // Bytes of the partial line after position
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        while (running) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                Object fileKey = fileKey();
+                while (running) {
+                    if (channel.size() < position + line.size()) {
+                        logger.info("{} shrank below offset {}, reading it from the start", path, position);
+                        position = 0;
+                        line.reset();
+                    }
+                    if (channel.read(buffer.clear(), position + line.size()) <= 0) {
+                        Thread.sleep(pollInterval.toMillis());
+                        Object current = fileKey();
+                        if (current != null && !current.equals(fileKey)) {
+                            logger.info("{} was replaced, reading the new file from the start", path);
+                            position = 0;
+                            line.reset();
+                            break;
+                        }
+                        continue;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        byte b = buffer.get();
+                        if (b != '\n') {
+                            line.write(b);
+                            continue;
+                        }
+                        long next = position + line.size() + 1;
+                        sink.accept(line.toString(StandardCharsets.UTF_8));
+                        line.reset();
+                        position = next;
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                sleepQuietly();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Failed to read ad events from {}. Error: {}", path, e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
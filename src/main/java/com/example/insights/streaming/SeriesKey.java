@@ -0,0 +1,8 @@
+package com.example.insights.streaming;
+
+/**
+ * Identifies a tenant's campaign metric; the tenant may be null, as in
+ * {@link com.example.insights.multitenancy.TenantContext}.
+ */
+record SeriesKey(String tenantId, String campaignId, String metricType) {
+}
@@ -0,0 +1,123 @@
+package com.example.insights.streaming;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads event lines from TCP connections on a local port, one reader thread per connection, so
+ * producers can push events without a broker. Events sent while the service is down are lost;
+ * the source cannot resume.
+ */
+public class SocketAdEventSource implements AdEventSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(SocketAdEventSource.class);
+
+    private final String bindAddress;
+    private final int port;
+    private final int maxConnections;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public SocketAdEventSource(String bindAddress, int port, int maxConnections) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public void start(Sink sink, long resumeFrom) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port));
+        running = true;
+        Thread acceptor = new Thread(() -> accept(sink), "ad-events-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Listening for ad events on {}:{}", bindAddress, serverSocket.getLocalPort());
+    }
+
+    @Override
+    public long position() {
+        return NO_POSITION;
+    }
+
+    /**
+     * The port actually bound, which differs from the configured one when that is 0.
+     */
+    public int localPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Socket connection : connections) {
+            connection.close();
+        }
+    }
+
+    private void accept(Sink sink) {
+        while (running) {
+            Socket connection;
+            try {
+                connection = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    logger.error("Failed to accept ad event connection. Error: {}", e.getMessage());
+                }
+                continue;
+            }
+            if (connections.size() >= maxConnections) {
+                logger.warn("Rejecting ad event connection from {}, {} connections open",
+                        connection.getRemoteSocketAddress(), connections.size());
+                closeQuietly(connection);
+                continue;
+            }
+            connections.add(connection);
+            Thread reader = new Thread(() -> read(connection, sink), "ad-events-" + connection.getPort());
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void read(Socket connection, Sink sink) {
+        logger.info("Ad event producer connected from {}", connection.getRemoteSocketAddress());
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sink.accept(line);
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.warn("Ad event connection from {} failed. Error: {}", connection.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            connections.remove(connection);
+            closeQuietly(connection);
+        }
+        logger.info("Ad event producer disconnected from {}", connection.getRemoteSocketAddress());
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+}
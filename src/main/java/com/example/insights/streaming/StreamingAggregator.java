@@ -0,0 +1,370 @@
+package com.example.insights.streaming;
+
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.MetricKey;
+import com.example.insights.repository.MetricsSourceRepository;
+import com.example.insights.repository.VersionedMetric;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time metric counters aggregated in the service from raw ad events, so reads see events
+ * within a window of their arrival instead of after the upstream pipeline's ClickHouse write and
+ * the cache TTL.
+ *
+ * Events come from an {@link AdEventSource} and are counted per tenant, campaign and metric in a
+ * {@link CounterSeries}, at their arrival time. A counter alone only knows the events since the
+ * service started, so it is answered together with a baseline: the metric's ClickHouse value and
+ * version, plus the events counted since that version. Baselines come from the service's own
+ * ClickHouse loads and from a background refresh, which loads them for counted keys that were
+ * read without one and reloads the baselines of keys still being read every
+ * {@code streaming.baseline-refresh}; each reload also corrects any drift, such as events this
+ * instance missed. Counters are only created by events and by those loads, never by lookups.
+ * A baseline older than {@code streaming.baseline-max-age} is not used, and keys without a
+ * usable one are answered by the cache tier as before. Counted events are kept for
+ * {@code streaming.retention}; older ones are assumed to have reached ClickHouse, so the
+ * retention has to exceed the pipeline's lag.
+ *
+ * Counters are checkpointed every {@code streaming.checkpoint.interval} and on shutdown, together
+ * with the source position when the source can resume, and restored at startup. Enabled with
+ * {@code streaming.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "streaming.enabled", havingValue = "true")
+public class StreamingAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingAggregator.class);
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final AdEventSource source;
+    private final MetricsSourceRepository sourceRepo;
+    private final long windowMillis;
+    private final long retentionMillis;
+    private final long baselineMaxAgeMillis;
+    private final long baselineRefreshMillis;
+    private final long idleTimeoutMillis;
+    private final int maxSeries;
+    private final boolean checkpointEnabled;
+    private final Path checkpointPath;
+    private final Map<SeriesKey, CounterSeries> series = new ConcurrentHashMap<>();
+    // Closes windows on its own thread, so a slow refresh or checkpoint never delays a boundary
+    private final ScheduledExecutorService windowTimer;
+
+    private final Counter eventsCounted;
+    private final Counter eventsRejected;
+    private final Counter eventsUntracked;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer refreshTimer;
+    private final Timer checkpointTimer;
+
+    public StreamingAggregator(AdEventSource source,
+                               MetricsSourceRepository sourceRepo,
+                               @Value("${streaming.window:PT1S}") Duration window,
+                               @Value("${streaming.retention:PT15M}") Duration retention,
+                               @Value("${streaming.baseline-max-age:PT5M}") Duration baselineMaxAge,
+                               @Value("${streaming.baseline-refresh:PT1M}") Duration baselineRefresh,
+                               @Value("${streaming.idle-timeout:PT1H}") Duration idleTimeout,
+                               @Value("${streaming.max-series:1000000}") int maxSeries,
+                               @Value("${streaming.checkpoint.enabled:true}") boolean checkpointEnabled,
+                               @Value("${streaming.checkpoint.path:data/streaming-checkpoint.bin}") String checkpointPath,
+                               MeterRegistry meterRegistry) {
+        this.source = source;
+        this.sourceRepo = sourceRepo;
+        this.windowMillis = window.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.baselineMaxAgeMillis = baselineMaxAge.toMillis();
+        this.baselineRefreshMillis = baselineRefresh.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.maxSeries = maxSeries;
+        this.checkpointEnabled = checkpointEnabled;
+        this.checkpointPath = Path.of(checkpointPath);
+        this.windowTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "streaming-windows");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.eventsCounted = eventCounter(meterRegistry, "counted");
+        this.eventsRejected = eventCounter(meterRegistry, "rejected");
+        this.eventsUntracked = eventCounter(meterRegistry, "untracked");
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("insights.streaming.series", series, Map::size)
+                .description("Tenant campaign metrics with a live counter")
+                .register(meterRegistry);
+        this.refreshTimer = Timer.builder("insights.streaming.baseline.refresh")
+                .description("Time to load baselines for live counters from the source")
+                .register(meterRegistry);
+        this.checkpointTimer = Timer.builder("insights.streaming.checkpoint.write")
+                .description("Time to write the live counter checkpoint")
+                .register(meterRegistry);
+        logger.info("StreamingAggregator initialized with window: {}, retention: {}, baseline max age: {}, refresh: {}",
+                window, retention, baselineMaxAge, baselineRefresh);
+    }
+
+    /**
+     * Restores the last checkpoint, then starts consuming events where it left off.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        long position = checkpointEnabled ? restore() : AdEventSource.NO_POSITION;
+        source.start(this::accept, position);
+        long untilBoundary = windowMillis - Math.floorMod(System.currentTimeMillis(), windowMillis);
+        windowTimer.scheduleAtFixedRate(this::closeWindow, untilBoundary, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The live value of a metric of the current tenant. Only reads counters that events or a seed
+     * created, so lookups of arbitrary keys cannot fill {@code streaming.max-series}.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @return the value, or null if the key has no counter or no usable baseline yet
+     */
+    public Long currentValue(String campaignId, String metricType) {
+        CounterSeries counter = series.get(new SeriesKey(TenantContext.getTenantId(), campaignId, metricType));
+        Long value = counter != null ? counter.value(System.currentTimeMillis(), windowMillis, baselineMaxAgeMillis) : null;
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Sets the baseline of a metric of the current tenant from a value just loaded from the source,
+     * creating its counter if there is room.
+     *
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param metric the value and the version it was read at
+     */
+    public void seed(String campaignId, String metricType, VersionedMetric metric) {
+        if (metric.version() == VersionedMetric.UNVERSIONED) {
+            return;
+        }
+        CounterSeries counter = seriesFor(new SeriesKey(TenantContext.getTenantId(), campaignId, metricType));
+        if (counter != null) {
+            counter.setBaseline(metric.value(), metric.version(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Counts one event line from the source.
+     */
+    void accept(String line) {
+        AdEvent event = AdEvent.parse(line);
+        if (event == null) {
+            eventsRejected.increment();
+            logger.debug("Rejected malformed ad event: {}", line);
+            return;
+        }
+        CounterSeries counter = seriesFor(new SeriesKey(event.tenantId(), event.campaignId(), event.metricType()));
+        if (counter == null) {
+            eventsUntracked.increment();
+            return;
+        }
+        counter.add(event.count(), System.currentTimeMillis());
+        eventsCounted.increment(event.count());
+    }
+
+    private CounterSeries seriesFor(SeriesKey key) {
+        CounterSeries counter = series.get(key);
+        if (counter != null || series.size() >= maxSeries) {
+            return counter;
+        }
+        return series.computeIfAbsent(key, k -> new CounterSeries());
+    }
+
+    /**
+     * Records the running totals at the window boundary that just passed and drops counters that
+     * have been neither updated nor read for {@code streaming.idle-timeout}.
+     */
+    private void closeWindow() {
+        try {
+            long now = System.currentTimeMillis();
+            long boundary = now - Math.floorMod(now, windowMillis);
+            long cutoff = boundary - retentionMillis;
+            Iterator<CounterSeries> counters = series.values().iterator();
+            while (counters.hasNext()) {
+                CounterSeries counter = counters.next();
+                counter.seal(boundary, cutoff);
+                if (now - Math.max(counter.lastEventMillis(), counter.lastReadMillis()) > idleTimeoutMillis) {
+                    counters.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keeps the timer scheduled, which would stop at the first exception
+            logger.error("Unexpected error closing streaming window", e);
+        }
+    }
+
+    /**
+     * Loads baselines for counters read without a usable one, and reloads those of counters read
+     * since their baseline was loaded once it is {@code streaming.baseline-refresh} old. Keys that
+     * were only looked up have no counter and are never loaded here.
+     */
+    @Scheduled(fixedDelayString = "${streaming.refresh-interval:PT2S}")
+    public void refreshBaselines() {
+        long now = System.currentTimeMillis();
+        Map<String, List<SeriesKey>> due = new HashMap<>();
+        series.forEach((key, counter) -> {
+            CounterSeries.Baseline baseline = counter.baseline();
+            boolean stale = baseline != null && now - baseline.loadedAtMillis() >= baselineRefreshMillis
+                    && counter.lastReadMillis() >= baseline.loadedAtMillis();
+            if (counter.wanted() || stale) {
+                due.computeIfAbsent(key.tenantId() == null ? "" : key.tenantId(), tenant -> new ArrayList<>()).add(key);
+            }
+        });
+        if (due.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int loaded = 0;
+        for (Map.Entry<String, List<SeriesKey>> tenant : due.entrySet()) {
+            List<SeriesKey> keys = tenant.getValue();
+            String tenantId = keys.get(0).tenantId();
+            for (int from = 0; from < keys.size(); from += REFRESH_BATCH_SIZE) {
+                loaded += refresh(tenantId, keys.subList(from, Math.min(keys.size(), from + REFRESH_BATCH_SIZE)));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        refreshTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        logger.debug("Loaded {} baselines for live counters in {} ms", loaded, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private int refresh(String tenantId, List<SeriesKey> keys) {
+        List<MetricKey> metricKeys = new ArrayList<>(keys.size());
+        for (SeriesKey key : keys) {
+            metricKeys.add(new MetricKey(key.campaignId(), key.metricType()));
+        }
+        Map<MetricKey, VersionedMetric> values = sourceRepo.getMetrics(tenantId, metricKeys);
+        if (values == null) {
+            logger.warn("Source unavailable, {} live counter baselines not loaded for tenant: {}", keys.size(), tenantId);
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            CounterSeries counter = series.get(keys.get(i));
+            VersionedMetric value = values.get(metricKeys.get(i));
+            if (counter == null) {
+                continue;
+            }
+            if (value != null && value.version() != VersionedMetric.UNVERSIONED) {
+                counter.setBaseline(value.value(), value.version(), now);
+                loaded++;
+            } else {
+                // Unknown to the source: leave it to the request path until it is read again
+                counter.setBaseline(0, VersionedMetric.UNVERSIONED, now);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Periodically writes the counters to the checkpoint file.
+     */
+    @Scheduled(fixedDelayString = "${streaming.checkpoint.interval:PT10S}",
+               initialDelayString = "${streaming.checkpoint.interval:PT10S}")
+    public void checkpoint() {
+        if (!checkpointEnabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            // Read before the counters, so a restart may recount a few events but never skips any
+            long position = source.position();
+            StreamingCheckpoint.write(series, position, checkpointPath);
+            long elapsed = System.nanoTime() - start;
+            checkpointTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.debug("Checkpointed {} live counters at source position {} in {} ms",
+                    series.size(), position, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (IOException e) {
+            // Don't throw - a missed checkpoint only costs the events since the previous one on a restart
+            logger.error("Failed to write streaming checkpoint {}. Error: {}", checkpointPath, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops consuming events and takes a final checkpoint at the source's last position.
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close ad event source. Error: {}", e.getMessage());
+        }
+        windowTimer.shutdownNow();
+        checkpoint();
+    }
+
+    /**
+     * @return the source position recorded with the checkpoint, or {@link AdEventSource#NO_POSITION}
+     */
+    private long restore() {
+        if (!Files.exists(checkpointPath)) {
+            logger.info("No streaming checkpoint found at {}, starting with empty counters", checkpointPath);
+            return AdEventSource.NO_POSITION;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            StreamingCheckpoint.Header header = StreamingCheckpoint.read(checkpointPath, (key, restored) -> {
+                CounterSeries counter = new CounterSeries();
+                counter.restore(restored.total(), restored.baseline(), restored.windows(), now);
+                series.put(key, counter);
+            });
+            logger.info("Restored {} live counters from checkpoint {} (age {} s, source position {})",
+                    header.seriesCount(), checkpointPath,
+                    TimeUnit.MILLISECONDS.toSeconds(now - header.createdAt()), header.sourcePosition());
+            return header.sourcePosition();
+        } catch (IOException e) {
+            series.clear();
+            logger.warn("Could not restore streaming checkpoint {}, starting with empty counters. Error: {}",
+                    checkpointPath, e.getMessage());
+            return AdEventSource.NO_POSITION;
+        }
+    }
+
+    private static Counter eventCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("insights.streaming.events")
+                .description("Ad events consumed by the streaming aggregator by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String result) {
+        return Counter.builder("insights.streaming.lookups")
+                .description("Metric lookups answered by live counters (hit) or left to the cache tier (miss)")
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.insights.streaming;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Checkpoint format of the {@link StreamingAggregator}.
+ *
+ * Layout (big-endian, {@link DataOutputStream}):
+ * <pre>
+ *   header: magic "IAGG" | version | created-at millis | source position | series count
+ *   series: tenant present | tenant | campaign | metric | total
+ *           | baseline present | baseline value | version | loaded-at millis
+ *           | pruned | window count | (window end | running total) per window
+ * </pre>
+ * Bump {@link #VERSION} whenever the layout changes; files with another version are ignored
+ * rather than misread.
+ */
+final class StreamingCheckpoint {
+
+    static final int MAGIC = 0x49414747;
+    static final int VERSION = 1;
+
+    private StreamingCheckpoint() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Writes the counters to {@code target}. The file is written next to the target and atomically
+     * moved into place, so a crash mid-write never leaves a truncated checkpoint behind.
+     */
+    static void write(Map<SeriesKey, CounterSeries> series, long sourcePosition, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            // The map may change while it is written, so the count is that of a copy
+            Map<SeriesKey, CounterSeries> snapshot = Map.copyOf(series);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(sourcePosition);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<SeriesKey, CounterSeries> entry : snapshot.entrySet()) {
+                SeriesKey key = entry.getKey();
+                CounterSeries counter = entry.getValue();
+                out.writeBoolean(key.tenantId() != null);
+                out.writeUTF(key.tenantId() != null ? key.tenantId() : "");
+                out.writeUTF(key.campaignId());
+                out.writeUTF(key.metricType());
+                CounterSeries.Windows windows = counter.windows();
+                out.writeLong(counter.total());
+                CounterSeries.Baseline baseline = counter.baseline();
+                out.writeBoolean(baseline != null);
+                out.writeLong(baseline != null ? baseline.value() : 0);
+                out.writeLong(baseline != null ? baseline.version() : 0);
+                out.writeLong(baseline != null ? baseline.loadedAtMillis() : 0);
+                out.writeBoolean(windows.pruned());
+                out.writeInt(windows.boundaries().length);
+                for (int i = 0; i < windows.boundaries().length; i++) {
+                    out.writeLong(windows.boundaries()[i]);
+                    out.writeLong(windows.totals()[i]);
+                }
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint, handing every counter to {@code restore}.
+     *
+     * @return when the checkpoint was written and the source position it recorded
+     * @throws IOException if the file cannot be read or is not a compatible checkpoint
+     */
+    static Header read(Path source, BiConsumer<SeriesKey, Restored> restore) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Checkpoint " + source + " has an unknown format");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Checkpoint " + source + " has unsupported version " + version);
+            }
+            Header header = new Header(in.readLong(), in.readLong(), in.readInt());
+            for (int s = 0; s < header.seriesCount(); s++) {
+                boolean hasTenant = in.readBoolean();
+                String tenantId = in.readUTF();
+                SeriesKey key = new SeriesKey(hasTenant ? tenantId : null, in.readUTF(), in.readUTF());
+                long total = in.readLong();
+                boolean hasBaseline = in.readBoolean();
+                CounterSeries.Baseline baseline = new CounterSeries.Baseline(in.readLong(), in.readLong(), in.readLong());
+                boolean pruned = in.readBoolean();
+                int windowCount = in.readInt();
+                long[] boundaries = new long[windowCount];
+                long[] totals = new long[windowCount];
+                for (int i = 0; i < windowCount; i++) {
+                    boundaries[i] = in.readLong();
+                    totals[i] = in.readLong();
+                }
+                restore.accept(key, new Restored(total, hasBaseline ? baseline : null,
+                        new CounterSeries.Windows(boundaries, totals, pruned)));
+            }
+            return header;
+        }
+    }
+
+    /**
+     * @param createdAt when the checkpoint was written, in epoch millis
+     * @param sourcePosition the event source's position at that time
+     * @param seriesCount the counters it holds
+     */
+    record Header(long createdAt, long sourcePosition, int seriesCount) {
+    }
+
+    record Restored(long total, CounterSeries.Baseline baseline, CounterSeries.Windows windows) {
+    }
+}
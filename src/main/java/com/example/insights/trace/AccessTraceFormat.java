@@ -0,0 +1,83 @@
+package com.example.insights.trace;
+
+/**
+ * Binary layout of metric access traces.
+ *
+ * <pre>
+ * header (24 bytes): magic "ISTR" | int version | long start epoch millis | int record size | int reserved
+ * record (24 bytes): long key hash | int tenant hash | int millis since start | int flags and value hash
+ *                    | int version age in seconds
+ * </pre>
+ * All values are big-endian. The flags word carries {@link #FOUND} and {@link #FROM_SOURCE} in its
+ * two high bits and a 30-bit hash of the returned value in the rest, so a replay can tell when a
+ * value changed without the trace revealing it. Values loaded from ClickHouse also carry how long
+ * ago their row was updated, which seeds adaptive TTLs as in production; 0 when unknown.
+ *
+ * Tenant, campaign and metric are hashed with a random salt that is never written out, so traces
+ * from different runs cannot be joined and identifiers cannot be recovered by hashing candidates.
+ * The 64-bit key hash keeps collisions negligible at millions of distinct keys.
+ */
+public final class AccessTraceFormat {
+
+    public static final int MAGIC = 0x49535452; // "ISTR"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 24;
+    public static final int RECORD_BYTES = 24;
+
+    /**
+     * The metric existed: served from the cache or loaded from the source.
+     */
+    public static final int FOUND = 1 << 31;
+
+    /**
+     * The lookup missed the cache and went to ClickHouse, so the value hash is the source's.
+     */
+    public static final int FROM_SOURCE = 1 << 30;
+
+    public static final int VALUE_HASH_MASK = FROM_SOURCE - 1;
+
+    private AccessTraceFormat() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Salted 64-bit hash of a tenant's campaign metric.
+     */
+    public static long keyHash(long salt, String tenantId, String campaignId, String metricType) {
+        long h = salt ^ 0xCBF29CE484222325L;
+        h = fnv(h, tenantId);
+        h = fnv(h, campaignId);
+        h = fnv(h, metricType);
+        return mix(h);
+    }
+
+    /**
+     * Salted 32-bit hash of a tenant.
+     */
+    public static int tenantHash(long salt, String tenantId) {
+        return (int) mix(fnv(salt ^ 0x84222325CBF29CE4L, tenantId));
+    }
+
+    /**
+     * 30-bit hash of a metric value, stored with the flags.
+     */
+    public static int valueHash(long value) {
+        return (int) mix(value) & VALUE_HASH_MASK;
+    }
+
+    private static long fnv(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * 0x100000001B3L;
+            }
+        }
+        // Field separator, so ("ab", "c") and ("a", "bc") differ
+        return (h ^ 0xFF) * 0x100000001B3L;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
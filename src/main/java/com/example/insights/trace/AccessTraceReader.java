@@ -0,0 +1,134 @@
+package com.example.insights.trace;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sequential reader of an access trace, memory-mapped so replays run at memory speed and the
+ * trace can be read many times without being held on the heap.
+ *
+ * Use as a cursor: {@link #next()} advances to the next record and the accessors return its
+ * fields, with no per-record allocation. Traces larger than one mapping are read in windows.
+ */
+public final class AccessTraceReader implements AutoCloseable {
+
+    // Whole records per window, so none straddles two mappings
+    private static final long WINDOW_BYTES = (Integer.MAX_VALUE / AccessTraceFormat.RECORD_BYTES) * (long) AccessTraceFormat.RECORD_BYTES;
+
+    private final FileChannel channel;
+    private final long startMillis;
+    private final long records;
+    private MappedByteBuffer window;
+    private long position;
+    private long keyHash;
+    private int tenantHash;
+    private long timeMillis;
+    private int flags;
+    private int versionAgeSeconds;
+
+    public AccessTraceReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(channel.size(), AccessTraceFormat.HEADER_BYTES));
+        if (header.remaining() < AccessTraceFormat.HEADER_BYTES || header.getInt() != AccessTraceFormat.MAGIC) {
+            channel.close();
+            throw new IOException(path + " is not an access trace");
+        }
+        int version = header.getInt();
+        this.startMillis = header.getLong();
+        int recordBytes = header.getInt();
+        if (version != AccessTraceFormat.VERSION || recordBytes != AccessTraceFormat.RECORD_BYTES) {
+            channel.close();
+            throw new IOException("Unsupported access trace version " + version + " in " + path);
+        }
+        // A trace cut short by a crash ends with a partial record; it is ignored
+        this.records = (channel.size() - AccessTraceFormat.HEADER_BYTES) / AccessTraceFormat.RECORD_BYTES;
+        rewind();
+    }
+
+    /**
+     * Epoch millis at which recording started.
+     */
+    public long startMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Number of complete records in the trace.
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * Moves back before the first record.
+     */
+    public void rewind() throws IOException {
+        position = 0;
+        map(0);
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false at the end of the trace
+     */
+    public boolean next() throws IOException {
+        if (position == records) {
+            return false;
+        }
+        if (!window.hasRemaining()) {
+            map(position);
+        }
+        keyHash = window.getLong();
+        tenantHash = window.getInt();
+        timeMillis = startMillis + (window.getInt() & 0xFFFFFFFFL);
+        flags = window.getInt();
+        versionAgeSeconds = window.getInt();
+        position++;
+        return true;
+    }
+
+    public long keyHash() {
+        return keyHash;
+    }
+
+    public int tenantHash() {
+        return tenantHash;
+    }
+
+    /**
+     * Epoch millis of the lookup.
+     */
+    public long timeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * {@link AccessTraceFormat#FOUND}, {@link AccessTraceFormat#FROM_SOURCE} and the value hash.
+     */
+    public int flags() {
+        return flags;
+    }
+
+    /**
+     * Seconds between the value's row update and the lookup, or 0 when unknown.
+     */
+    public int versionAgeSeconds() {
+        return versionAgeSeconds;
+    }
+
+    private void map(long record) throws IOException {
+        long offset = AccessTraceFormat.HEADER_BYTES + record * AccessTraceFormat.RECORD_BYTES;
+        long length = Math.min(WINDOW_BYTES, (records - record) * AccessTraceFormat.RECORD_BYTES);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
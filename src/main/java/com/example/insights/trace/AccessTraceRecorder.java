@@ -0,0 +1,191 @@
+package com.example.insights.trace;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records anonymized metric lookups to a binary trace (see {@link AccessTraceFormat}) for offline
+ * replay with {@link com.example.insights.simulator.CachePolicySimulator}.
+ *
+ * Lookups append a 24-byte record to an in-memory block under a short lock; full blocks are
+ * written by a background thread. If the writer falls behind and both spare blocks are in use,
+ * records are dropped and counted rather than blocking requests. Recording stops after
+ * {@code cache.trace.max-events} records or about 24 days, the range of the time offset; the
+ * writer thread then flushes the last block and closes the file, so requests never wait on it.
+ * Enabled with {@code cache.trace.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.trace.enabled", havingValue = "true")
+public class AccessTraceRecorder implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTraceRecorder.class);
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final int BLOCKS = 3;
+
+    private final Path path;
+    private final long maxEvents;
+    private final long salt = new SecureRandom().nextLong();
+    private final long startMillis = System.currentTimeMillis();
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> freeBlocks = new ArrayBlockingQueue<>(BLOCKS);
+    private final ExecutorService writer;
+    private ByteBuffer block;
+    private long recorded;
+    private long dropped;
+    private boolean closed;
+
+    public AccessTraceRecorder(@Value("${cache.trace.path:data/access-trace.bin}") Path path,
+                               @Value("${cache.trace.max-events:100000000}") long maxEvents) throws IOException {
+        this.path = path;
+        this.maxEvents = maxEvents;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(AccessTraceFormat.HEADER_BYTES)
+                .putInt(AccessTraceFormat.MAGIC)
+                .putInt(AccessTraceFormat.VERSION)
+                .putLong(startMillis)
+                .putInt(AccessTraceFormat.RECORD_BYTES)
+                .putInt(0)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        for (int i = 1; i < BLOCKS; i++) {
+            freeBlocks.add(ByteBuffer.allocateDirect(BLOCK_BYTES));
+        }
+        this.block = ByteBuffer.allocateDirect(BLOCK_BYTES);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "access-trace-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Recording metric access trace to {} (max {} events)", path.toAbsolutePath(), maxEvents);
+    }
+
+    /**
+     * Records one lookup.
+     *
+     * @param tenantId the tenant, may be null
+     * @param campaignId the campaign identifier
+     * @param metricType the metric type
+     * @param value the value returned, or null if the metric does not exist
+     * @param version the value's version in epoch millis, or 0 when unknown
+     * @param fromSource whether the lookup missed the cache and went to ClickHouse
+     */
+    public void record(String tenantId, String campaignId, String metricType, Long value, long version,
+                       boolean fromSource) {
+        long keyHash = AccessTraceFormat.keyHash(salt, tenantId, campaignId, metricType);
+        int tenantHash = AccessTraceFormat.tenantHash(salt, tenantId);
+        int flags = (value != null ? AccessTraceFormat.FOUND | AccessTraceFormat.valueHash(value) : 0)
+                | (fromSource ? AccessTraceFormat.FROM_SOURCE : 0);
+        long now = System.currentTimeMillis();
+        long offset = now - startMillis;
+        int versionAge = version > 0 ? (int) Math.min(Integer.MAX_VALUE, Math.max(1, (now - version) / 1000)) : 0;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (recorded >= maxEvents || offset > Integer.MAX_VALUE) {
+                logger.info("Access trace limit reached after {} events, {} dropped", recorded, dropped);
+                stop();
+                return;
+            }
+            if (block.remaining() < AccessTraceFormat.RECORD_BYTES && !rotate()) {
+                dropped++;
+                return;
+            }
+            block.putLong(keyHash).putInt(tenantHash).putInt((int) offset).putInt(flags).putInt(versionAge);
+            recorded++;
+        }
+    }
+
+    /**
+     * Hands the current block to the writer and continues in a free one.
+     *
+     * @return false if no free block is available
+     */
+    private boolean rotate() {
+        ByteBuffer next = freeBlocks.poll();
+        if (next == null) {
+            return false;
+        }
+        ByteBuffer full = block.flip();
+        writer.execute(() -> write(full));
+        block = next;
+        return true;
+    }
+
+    private void write(ByteBuffer full) {
+        try {
+            while (full.hasRemaining()) {
+                channel.write(full);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write access trace block to {}. Error: {}", path, e.getMessage());
+        } finally {
+            full.clear();
+            freeBlocks.offer(full);
+        }
+    }
+
+    /**
+     * Stops recording and leaves flushing the last block and closing the file to the writer thread,
+     * after the blocks already queued. Does not wait. Called with the lock held.
+     */
+    private void stop() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ByteBuffer last = block.flip();
+        long events = recorded;
+        long droppedEvents = dropped;
+        writer.execute(() -> {
+            write(last);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close access trace {}. Error: {}", path, e.getMessage());
+            }
+            logger.info("Access trace {} closed with {} events, {} dropped", path.toAbsolutePath(), events, droppedEvents);
+        });
+        writer.shutdown();
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            stop();
+        }
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Access trace {} was not flushed within 10 seconds", path.toAbsolutePath());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
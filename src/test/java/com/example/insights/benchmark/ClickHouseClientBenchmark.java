@@ -0,0 +1,281 @@
+package com.example.insights.benchmark;
+
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.constants.MetricType;
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import com.example.insights.repository.ClickHouseHttpMetricsRepository;
+import com.example.insights.repository.ClickHouseMetricsRepository;
+import com.example.insights.repository.MetricKey;
+import com.example.insights.repository.MetricsSourceRepository;
+import com.example.insights.repository.VersionedMetric;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the JDBC and HTTP (RowBinary, optionally LZ4) ClickHouse repositories, built exactly
+ * as the service builds them, under concurrent single-key and batched lookups.
+ *
+ * <pre>
+ * scripts/clickhouse-client-benchmark.sh [options]
+ *   --url jdbc:clickhouse://localhost:8123/shopstream
+ *   --username default --password ''                    for the HTTP client; JDBC takes them from the URL
+ *   --clients jdbc,http,http-lz4  repositories to compare
+ *   --tenant t1                   tenant whose campaigns are read
+ *   --keys 1k                     campaigns sampled from the tenant's leaderboard, read uniformly
+ *   --batch-sizes 1,100           keys per call: 1 is getMetric, more is one getMetrics call
+ *   --threads 1,16,64             concurrent callers, like request threads
+ *   --duration PT10S             measured time per run, after --warmup PT3S
+ * </pre>
+ *
+ * Before measuring, the HTTP repositories must return exactly what the JDBC driver returns for a
+ * sample of keys, so the numbers compare clients that agree; the process exits with status 1 if
+ * they do not. The decoding itself is covered by the tests against {@code FakeClickHouseServer}.
+ */
+public final class ClickHouseClientBenchmark {
+
+    private static final String[] METRIC_TYPES = {MetricType.CLICKS, MetricType.IMPRESSIONS, MetricType.ADD_TO_CART};
+    private static final int CHECK_KEYS = 200;
+    private static final Duration HTTP_TIMEOUT = Duration.ofSeconds(10);
+
+    private ClickHouseClientBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options;
+        try {
+            options = CommandLineOptions.parse(args, 0);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        String url = options.getOrDefault("url", "jdbc:clickhouse://localhost:8123/shopstream");
+        String username = options.getOrDefault("username", "default");
+        String password = options.getOrDefault("password", "");
+        String tenantId = options.getOrDefault("tenant", "t1");
+        int keyCount = (int) CommandLineOptions.parseCount(options.getOrDefault("keys", "1k"));
+        int[] batchSizes = CommandLineOptions.parseCounts(options.getOrDefault("batch-sizes", "1,100"));
+        int[] threads = CommandLineOptions.parseCounts(options.getOrDefault("threads", "1,16,64"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT10S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT3S"));
+
+        List<String> clients = List.of(options.getOrDefault("clients", "jdbc,http,http-lz4").split(","));
+        ClickHouseReplicaRouter router = new ClickHouseReplicaRouter(List.of(url), 0.2, 3, false, 0.95,
+                Duration.ofMillis(5), HTTP_TIMEOUT, 1, new SimpleMeterRegistry());
+        try {
+            Map<String, MetricsSourceRepository> repositories = new LinkedHashMap<>();
+            for (String client : clients) {
+                repositories.put(client, repository(client, router, username, password));
+            }
+
+            TenantContext.setTenantId(tenantId);
+            List<MetricKey> keys = sampleKeys(repositories.values().iterator().next(), keyCount);
+            System.out.printf(Locale.ROOT, "ClickHouse %s, tenant %s, %d keys, %s per run%n",
+                    url, tenantId, keys.size(), duration);
+
+            if (!checkAgainstJdbc(repositories, keys, tenantId)) {
+                System.exit(1);
+            }
+
+            System.out.printf(Locale.ROOT, "%n%-9s %5s %7s %10s %10s %9s %9s %9s %8s%n",
+                    "client", "batch", "threads", "calls/s", "keys/s", "p50 us", "p99 us", "max us", "errors");
+            for (int threadCount : threads) {
+                for (int batchSize : batchSizes) {
+                    for (Map.Entry<String, MetricsSourceRepository> entry : repositories.entrySet()) {
+                        run(entry.getValue(), tenantId, keys, batchSize, threadCount, warmup);
+                        print(entry.getKey(), batchSize, threadCount,
+                                run(entry.getValue(), tenantId, keys, batchSize, threadCount, duration));
+                    }
+                }
+            }
+        } finally {
+            router.shutdown();
+        }
+    }
+
+    private static MetricsSourceRepository repository(String client, ClickHouseReplicaRouter router,
+                                                      String username, String password) {
+        return switch (client) {
+            case "jdbc" -> new ClickHouseMetricsRepository(router);
+            case "http" -> new ClickHouseHttpMetricsRepository(router, username, password, HTTP_TIMEOUT, false,
+                    new SimpleMeterRegistry());
+            case "http-lz4" -> new ClickHouseHttpMetricsRepository(router, username, password, HTTP_TIMEOUT, true,
+                    new SimpleMeterRegistry());
+            default -> throw new IllegalArgumentException("Unknown client: " + client + ", expected jdbc, http or http-lz4");
+        };
+    }
+
+    /**
+     * Takes the tenant's top campaigns by clicks as the keyspace, so a real server is read on rows
+     * that exist; campaigns missing from a small dataset are made up.
+     */
+    private static List<MetricKey> sampleKeys(MetricsSourceRepository repository, int keyCount) {
+        List<AdMetricResponse> top = repository.getTopCampaigns(MetricType.CLICKS, keyCount);
+        List<MetricKey> keys = new ArrayList<>(keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            String campaignId = top != null && i < top.size() ? top.get(i).getCampaignId() : "campaign-" + i;
+            keys.add(new MetricKey(campaignId, METRIC_TYPES[i % METRIC_TYPES.length]));
+        }
+        return keys;
+    }
+
+    private static boolean checkAgainstJdbc(Map<String, MetricsSourceRepository> repositories,
+                                            List<MetricKey> keys, String tenantId) {
+        List<MetricKey> sample = keys.subList(0, Math.min(CHECK_KEYS, keys.size()));
+        MetricsSourceRepository jdbc = repositories.get("jdbc");
+        if (jdbc == null) {
+            System.out.println("check skipped: include the jdbc client to compare the HTTP decoding with the driver");
+            return true;
+        }
+        Map<MetricKey, VersionedMetric> expected = jdbc.getMetrics(tenantId, sample);
+        if (expected == null) {
+            System.out.println("check FAILED: the JDBC repository could not read the sample keys");
+            return false;
+        }
+        boolean passed = true;
+        for (Map.Entry<String, MetricsSourceRepository> entry : repositories.entrySet()) {
+            if (entry.getValue() != jdbc) {
+                passed &= report(entry.getKey() + " getMetrics vs jdbc", expected, entry.getValue().getMetrics(tenantId, sample));
+            }
+        }
+        return passed;
+    }
+
+    private static boolean report(String check, Map<MetricKey, VersionedMetric> expected,
+                                  Map<MetricKey, VersionedMetric> actual) {
+        if (actual == null) {
+            System.out.println("check FAILED: " + check + " returned no result (see the logged error)");
+            return false;
+        }
+        int mismatches = 0;
+        for (Map.Entry<MetricKey, VersionedMetric> entry : expected.entrySet()) {
+            VersionedMetric value = actual.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), value)) {
+                if (mismatches++ < 5) {
+                    System.out.println("  " + entry.getKey() + ": expected " + entry.getValue() + ", got " + value);
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "check %s: %s, %d keys%n", mismatches == 0 ? "passed" : "FAILED", check, expected.size());
+        return mismatches == 0;
+    }
+
+    private static Result run(MetricsSourceRepository repository, String tenantId, List<MetricKey> keys,
+                              int batchSize, int threadCount, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(threadCount);
+        Caller[] callers = new Caller[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            callers[t] = new Caller(repository, tenantId, keys, batchSize, deadline, done);
+            Thread thread = new Thread(callers[t], "bench-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = 0;
+        long errors = 0;
+        for (Caller caller : callers) {
+            total += caller.count;
+            errors += caller.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Caller caller : callers) {
+            System.arraycopy(caller.latencies, 0, latencies, offset, caller.count);
+            offset += caller.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, batchSize, duration);
+    }
+
+    private static void print(String client, int batchSize, int threads, Result result) {
+        double calls = result.latencies.length / (result.duration.toNanos() / 1e9);
+        System.out.printf(Locale.ROOT, "%-9s %5d %7d %10.0f %10.0f %9.0f %9.0f %9.0f %8d%n",
+                client, batchSize, threads, calls, calls * result.batchSize,
+                result.percentileMicros(0.5), result.percentileMicros(0.99), result.percentileMicros(1.0), result.errors);
+    }
+
+    /**
+     * One caller issuing lookups back to back until the deadline, recording each call's latency
+     * in nanoseconds. A batch answered with null counts as an error, as the repositories return
+     * null on failures.
+     */
+    private static final class Caller implements Runnable {
+
+        private final MetricsSourceRepository repository;
+        private final String tenantId;
+        private final List<MetricKey> keys;
+        private final int batchSize;
+        private final long deadline;
+        private final CountDownLatch done;
+        long[] latencies = new long[1 << 12];
+        int count;
+        long errors;
+
+        Caller(MetricsSourceRepository repository, String tenantId, List<MetricKey> keys, int batchSize,
+               long deadline, CountDownLatch done) {
+            this.repository = repository;
+            this.tenantId = tenantId;
+            this.keys = keys;
+            this.batchSize = batchSize;
+            this.deadline = deadline;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            TenantContext.setTenantId(tenantId);
+            List<MetricKey> batch = new ArrayList<>(batchSize);
+            try {
+                long now = System.nanoTime();
+                while (now < deadline) {
+                    if (batchSize == 1) {
+                        MetricKey key = keys.get(random.nextInt(keys.size()));
+                        repository.getMetric(key.campaignId(), key.metricType());
+                    } else {
+                        batch.clear();
+                        for (int i = 0; i < batchSize; i++) {
+                            batch.add(keys.get(random.nextInt(keys.size())));
+                        }
+                        if (repository.getMetrics(tenantId, batch) == null) {
+                            errors++;
+                        }
+                    }
+                    long end = System.nanoTime();
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = end - now;
+                    now = end;
+                }
+            } finally {
+                TenantContext.clear();
+                done.countDown();
+            }
+        }
+    }
+
+    private record Result(long[] latencies, long errors, int batchSize, Duration duration) {
+
+        double percentileMicros(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e3;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.insights.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Argument parsing shared by the command-line benchmarks.
+ */
+public final class CommandLineOptions {
+
+    private CommandLineOptions() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Parses {@code --name value} pairs starting at {@code from}.
+     *
+     * @throws IllegalArgumentException if an argument is not a {@code --name} followed by a value
+     */
+    public static Map<String, String> parse(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value at: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Parses counts such as {@code 250000}, {@code 100k} or {@code 1m}.
+     *
+     * @throws IllegalArgumentException if the value is not a count
+     */
+    public static long parseCount(String value) {
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        long multiplier = lower.endsWith("k") ? 1_000 : lower.endsWith("m") ? 1_000_000 : 1;
+        String digits = multiplier == 1 ? lower : lower.substring(0, lower.length() - 1);
+        try {
+            return Long.parseLong(digits) * multiplier;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid count: " + value);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of counts, such as {@code 1,16,64} or {@code 1,1k}.
+     */
+    public static int[] parseCounts(String values) {
+        return Arrays.stream(values.split(",")).mapToInt(value -> Math.toIntExact(parseCount(value))).toArray();
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.insights.benchmark;
+
+import com.example.insights.config.RedisConfig;
+import com.example.insights.config.RedisConfig.ConnectionMode;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection.PipeliningFlushPolicy;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the multiplexed and pooled Redis connection modes of {@link RedisConfig} under
+ * concurrent load, with connection factories built exactly as the service builds them.
+ *
+ * <pre>
+ * scripts/redis-connection-benchmark.sh [options]
+ *   --host localhost --port 6379
+ *   --modes multiplexed,pooled   connection modes to compare
+ *   --threads 8,64,256           concurrent callers, like request threads
+ *   --pool-sizes 8,32            pool max-active in pooled mode
+ *   --duration PT10S             measured time per run, after --warmup PT3S
+ *   --keys 100k                  keyspace, read uniformly
+ *   --write-ratio 0.1            share of SETs with a TTL; the rest are GETs
+ * </pre>
+ *
+ * Every caller issues one blocking command at a time through a {@link StringRedisTemplate}, as
+ * the repositories do, so pooled mode pays for borrowing a connection and waits when the pool
+ * is exhausted, while multiplexed mode queues every caller's commands on one connection. Each
+ * run reports throughput, latency percentiles and failed commands (such as pool wait timeouts).
+ * Keys are written under {@code bench:} in the selected database, with a one-hour TTL, and
+ * deleted again when each run ends.
+ */
+public final class RedisConnectionBenchmark {
+
+    private static final String KEY_PREFIX = "bench:";
+    // Bounds how long keys outlive a benchmark that was killed before it could delete them
+    private static final Duration KEY_TTL = Duration.ofHours(1);
+    private static final int BATCH_KEYS = 1000;
+    private static final Duration COMMAND_TIMEOUT = Duration.ofSeconds(3);
+    private static final Duration POOL_MAX_WAIT = Duration.ofSeconds(1);
+
+    private RedisConnectionBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options;
+        try {
+            options = CommandLineOptions.parse(args, 0);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        String host = options.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(options.getOrDefault("port", "6379"));
+        List<ConnectionMode> modes = new ArrayList<>();
+        for (String mode : options.getOrDefault("modes", "multiplexed,pooled").split(",")) {
+            modes.add(ConnectionMode.parse(mode));
+        }
+        int[] threads = CommandLineOptions.parseCounts(options.getOrDefault("threads", "8,64,256"));
+        int[] poolSizes = CommandLineOptions.parseCounts(options.getOrDefault("pool-sizes", "8,32"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT10S"));
+        Duration warmup = Duration.parse(options.getOrDefault("warmup", "PT3S"));
+        int keys = (int) CommandLineOptions.parseCount(options.getOrDefault("keys", "100k"));
+        double writeRatio = Double.parseDouble(options.getOrDefault("write-ratio", "0.1"));
+
+        System.out.printf(Locale.ROOT, "Redis %s:%d, %d keys, %.0f%% writes, %s per run%n",
+                host, port, keys, writeRatio * 100, duration);
+        System.out.printf(Locale.ROOT, "%n%-12s %5s %7s %10s %9s %9s %9s %9s %8s%n",
+                "mode", "pool", "threads", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us", "errors");
+        for (int threadCount : threads) {
+            for (ConnectionMode mode : modes) {
+                int[] pools = mode == ConnectionMode.POOLED ? poolSizes : new int[]{0};
+                for (int poolSize : pools) {
+                    LettuceConnectionFactory factory = factory(host, port, mode, poolSize);
+                    StringRedisTemplate template = new StringRedisTemplate(factory);
+                    try {
+                        populate(template, keys);
+                        run(template, threadCount, warmup, keys, writeRatio);
+                        print(mode, poolSize, threadCount, run(template, threadCount, duration, keys, writeRatio));
+                    } finally {
+                        try {
+                            cleanUp(template, keys);
+                        } finally {
+                            factory.destroy();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static LettuceConnectionFactory factory(String host, int port, ConnectionMode mode, int poolSize) {
+        LettuceClientConfiguration client = RedisConfig.clientBuilder(mode,
+                        RedisConfig.poolConfig(Math.max(1, poolSize), Math.max(1, poolSize), 0, POOL_MAX_WAIT))
+                .commandTimeout(COMMAND_TIMEOUT)
+                .build();
+        LettuceConnectionFactory factory = RedisConfig.connectionFactory(new RedisStandaloneConfiguration(host, port),
+                client, mode, PipeliningFlushPolicy.flushEachCommand());
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    private static void populate(StringRedisTemplate template, int keys) {
+        for (int from = 0; from < keys; from += BATCH_KEYS) {
+            int to = Math.min(keys, from + BATCH_KEYS);
+            int first = from;
+            template.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = first; i < to; i++) {
+                    connection.stringCommands().set(key(i), Long.toString(i).getBytes(StandardCharsets.UTF_8),
+                            Expiration.from(KEY_TTL), SetOption.upsert());
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Deletes the keyspace, including keys first written during the run.
+     */
+    private static void cleanUp(StringRedisTemplate template, int keys) {
+        List<String> batch = new ArrayList<>(BATCH_KEYS);
+        for (int i = 0; i < keys; i++) {
+            batch.add(KEY_PREFIX + i);
+            if (batch.size() == BATCH_KEYS || i == keys - 1) {
+                template.delete(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static byte[] key(int index) {
+        return (KEY_PREFIX + index).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Result run(StringRedisTemplate template, int threadCount, Duration duration,
+                              int keys, double writeRatio) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        CountDownLatch done = new CountDownLatch(threadCount);
+        Caller[] callers = new Caller[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            callers[t] = new Caller(template, deadline, keys, writeRatio, done);
+            Thread thread = new Thread(callers[t], "bench-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        int total = 0;
+        long errors = 0;
+        for (Caller caller : callers) {
+            total += caller.count;
+            errors += caller.errors;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Caller caller : callers) {
+            System.arraycopy(caller.latencies, 0, latencies, offset, caller.count);
+            offset += caller.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(latencies, errors, duration);
+    }
+
+    private static void print(ConnectionMode mode, int poolSize, int threads, Result result) {
+        System.out.printf(Locale.ROOT, "%-12s %5s %7d %10.0f %9.0f %9.0f %9.0f %9.0f %8d%n",
+                mode.name().toLowerCase(Locale.ROOT), poolSize == 0 ? "-" : Integer.toString(poolSize), threads,
+                result.latencies.length / (result.duration.toNanos() / 1e9),
+                result.percentileMicros(0.5), result.percentileMicros(0.99), result.percentileMicros(0.999),
+                result.percentileMicros(1.0), result.errors);
+    }
+
+    /**
+     * One caller issuing blocking commands back to back until the deadline, recording each
+     * command's latency in nanoseconds.
+     */
+    private static final class Caller implements Runnable {
+
+        private final StringRedisTemplate template;
+        private final long deadline;
+        private final int keys;
+        private final double writeRatio;
+        private final CountDownLatch done;
+        long[] latencies = new long[1 << 16];
+        int count;
+        long errors;
+
+        Caller(StringRedisTemplate template, long deadline, int keys, double writeRatio, CountDownLatch done) {
+            this.template = template;
+            this.deadline = deadline;
+            this.keys = keys;
+            this.writeRatio = writeRatio;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                long now = System.nanoTime();
+                while (now < deadline) {
+                    String key = KEY_PREFIX + random.nextInt(keys);
+                    try {
+                        if (random.nextDouble() < writeRatio) {
+                            template.opsForValue().set(key, Long.toString(now), 1, TimeUnit.HOURS);
+                        } else {
+                            template.opsForValue().get(key);
+                        }
+                    } catch (RuntimeException e) {
+                        errors++;
+                    }
+                    long end = System.nanoTime();
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = end - now;
+                    now = end;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private record Result(long[] latencies, long errors, Duration duration) {
+
+        double percentileMicros(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e3;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.insights.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveTtlPolicyTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long NOW = 1_700_000_000_000L;
+    private static final String KEY = "c1:clicks";
+
+    @Test
+    void unversionedKeyWithoutHistoryGetsInitialTtl() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, HOUR, 30 * MINUTE, 0.1, 4, 0.8);
+
+        assertThat(policy.ttlMillis(KEY, 10, 0, NOW)).isEqualTo(30 * MINUTE);
+        // A version from the future is not a usable age either
+        assertThat(policy.ttlMillis(KEY, 10, NOW + MINUTE, NOW)).isEqualTo(30 * MINUTE);
+    }
+
+    @Test
+    void initialTtlIsClampedToBounds() {
+        assertThat(policy(MINUTE, HOUR, 6 * HOUR, 0.1, 4, 0.8).ttlMillis(KEY, 10, 0, NOW)).isEqualTo(HOUR);
+        assertThat(policy(MINUTE, HOUR, 1_000, 0.1, 4, 0.8).ttlMillis(KEY, 10, 0, NOW)).isEqualTo(MINUTE);
+    }
+
+    @Test
+    void versionStandsInForOneChangeOverItsAge() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, 24 * HOUR, 30 * MINUTE, 0.1, 4, 0.8);
+
+        // -ln(1 - 0.1) x 1h: changing once an hour, the value changes before expiry with probability 0.1
+        assertThat(policy.ttlMillis(KEY, 10, NOW - HOUR, NOW)).isCloseTo(379_298L, within(1L));
+        assertThat(policy.ttlMillis(KEY, 10, NOW - 2 * HOUR, NOW)).isEqualTo(expectedTtl(0.1, 1, 2 * HOUR));
+    }
+
+    @Test
+    void formulaResultIsClampedToBounds() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, HOUR, 30 * MINUTE, 0.1, 4, 0.8);
+
+        // Untouched for 30 days, as for a dormant campaign: capped at max
+        assertThat(policy.ttlMillis(KEY, 10, NOW - 30 * 24 * HOUR, NOW)).isEqualTo(HOUR);
+        // Updated a second ago: raised to min
+        assertThat(policy.ttlMillis(KEY, 10, NOW - 1_000, NOW)).isEqualTo(MINUTE);
+    }
+
+    @Test
+    void hotKeysGetASmallerTolerance() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, 24 * HOUR, 30 * MINUTE, 0.1, 4, 0.8);
+        for (int i = 0; i < 20; i++) {
+            policy.recordAccess(KEY);
+        }
+
+        // At the sketch's maximum frequency the tolerance is divided by the full hot key factor
+        assertThat(policy.ttlMillis(KEY, 10, NOW - 4 * HOUR, NOW)).isEqualTo(expectedTtl(0.1 / 4, 1, 4 * HOUR));
+        assertThat(policy.ttlMillis("cold", 10, NOW - 4 * HOUR, NOW)).isEqualTo(expectedTtl(0.1, 1, 4 * HOUR));
+    }
+
+    @Test
+    void reloadsUpdateTheDecayedChangeRate() {
+        double decay = 0.5;
+        AdaptiveTtlPolicy policy = policy(MINUTE, 24 * HOUR, 30 * MINUTE, 0.1, 4, decay);
+        policy.recordReload(KEY, 10, NOW - 2 * HOUR, NOW);
+
+        // Changed value: 1 x decay + 1 changes over 2h x decay + 1h elapsed
+        assertThat(policy.ttlMillis(KEY, 11, NOW, NOW + HOUR))
+                .isEqualTo(expectedTtl(0.1, 1 * decay + 1, 2 * HOUR * decay + HOUR));
+        // Unchanged value: only the decayed earlier change remains
+        assertThat(policy.ttlMillis(KEY, 10, NOW, NOW + HOUR))
+                .isEqualTo(expectedTtl(0.1, 1 * decay, 2 * HOUR * decay + HOUR));
+    }
+
+    @Test
+    void ttlMillisDoesNotRecordAReload() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, 24 * HOUR, 30 * MINUTE, 0.1, 4, 0.5);
+
+        long first = policy.ttlMillis(KEY, 10, NOW - HOUR, NOW);
+        assertThat(policy.ttlMillis(KEY, 10, NOW - HOUR, NOW)).isEqualTo(first);
+        assertThat(policy.trackedKeys()).isZero();
+
+        policy.recordReload(KEY, 10, NOW - HOUR, NOW);
+        assertThat(policy.trackedKeys()).isEqualTo(1);
+    }
+
+    @Test
+    void stableValuesDriftToMax() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, HOUR, 30 * MINUTE, 0.1, 4, 0.5);
+        long now = NOW;
+        policy.recordReload(KEY, 10, now - 10 * MINUTE, now);
+
+        long previous = 0;
+        for (int i = 0; i < 10; i++) {
+            now += 5 * MINUTE;
+            long ttl = policy.ttlMillis(KEY, 10, now - 10 * MINUTE, now);
+            assertThat(ttl).isGreaterThanOrEqualTo(previous).isLessThanOrEqualTo(HOUR);
+            policy.recordReload(KEY, 10, now - 10 * MINUTE, now);
+            previous = ttl;
+        }
+        assertThat(previous).isEqualTo(HOUR);
+    }
+
+    @Test
+    void noObservedChangeGivesMax() {
+        AdaptiveTtlPolicy policy = policy(MINUTE, HOUR, 30 * MINUTE, 0.1, 4, 0);
+        policy.recordReload(KEY, 10, NOW - MINUTE, NOW);
+
+        // Without decayed history, an unchanged reload leaves no changes at all
+        assertThat(policy.ttlMillis(KEY, 10, NOW - MINUTE, NOW + MINUTE)).isEqualTo(HOUR);
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> policy(0, HOUR, HOUR, 0.1, 4, 0.8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy(HOUR, MINUTE, HOUR, 0.1, 4, 0.8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy(MINUTE, HOUR, HOUR, 0, 4, 0.8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy(MINUTE, HOUR, HOUR, 1, 4, 0.8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy(MINUTE, HOUR, HOUR, 0.1, 0.5, 0.8)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> policy(MINUTE, HOUR, HOUR, 0.1, 4, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static AdaptiveTtlPolicy policy(long min, long max, long initial, double tolerance, double hotKeyFactor,
+                                            double decay) {
+        return new AdaptiveTtlPolicy(min, max, initial, tolerance, hotKeyFactor, decay, 16_000);
+    }
+
+    /**
+     * ttl = -ln(1 - p) / rate, with rate = changes / observed time.
+     */
+    private static long expectedTtl(double tolerance, double changes, double observedMillis) {
+        return (long) (-Math.log1p(-tolerance) / (changes / observedMillis));
+    }
+}
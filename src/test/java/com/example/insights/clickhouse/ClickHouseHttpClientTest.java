@@ -0,0 +1,71 @@
+package com.example.insights.clickhouse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseHttpClientTest {
+
+    private static final ClickHouseQuery TOP_CAMPAIGNS = new ClickHouseQuery("top-campaigns-check",
+            "SELECT campaign_id, toInt64(1) FROM ad_metrics GROUP BY campaign_id LIMIT {limit:UInt32}");
+
+    private FakeClickHouseServer server;
+    private ClickHouseEndpoint endpoint;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new FakeClickHouseServer();
+        endpoint = ClickHouseEndpoint.fromJdbcUrl(server.jdbcUrl());
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void decodesPlainResponse() throws IOException {
+        assertThat(topCampaigns(new ClickHouseHttpClient("default", "", Duration.ofSeconds(5), false)))
+                .hasSize(100)
+                .startsWith("campaign-0")
+                .endsWith("campaign-99");
+    }
+
+    @Test
+    void decodesCompressedResponseWithRowsAcrossBlocks() throws IOException {
+        assertThat(topCampaigns(new ClickHouseHttpClient("default", "", Duration.ofSeconds(5), true)))
+                .hasSize(100)
+                .startsWith("campaign-0")
+                .endsWith("campaign-99");
+    }
+
+    @Test
+    void rejectsCorruptedCompressedBlock() {
+        ClickHouseHttpClient client = new ClickHouseHttpClient("default", "", Duration.ofSeconds(5), true);
+        server.corruptNextResponse();
+
+        assertThatThrownBy(() -> topCampaigns(client))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum mismatch");
+    }
+
+    private List<String> topCampaigns(ClickHouseHttpClient client) throws IOException {
+        return client.execute(endpoint, TOP_CAMPAIGNS, Map.of("limit", "100"), input -> {
+            List<String> campaigns = new ArrayList<>();
+            while (input.hasMore()) {
+                campaigns.add(input.readString());
+                assertThat(input.readInt64()).isEqualTo(100 - campaigns.size() + 1);
+            }
+            return campaigns;
+        });
+    }
+}
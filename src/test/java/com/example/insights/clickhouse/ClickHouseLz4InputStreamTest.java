@@ -0,0 +1,101 @@
+package com.example.insights.clickhouse;
+
+import com.clickhouse.data.stream.Lz4OutputStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the decoder against blocks written by the JDBC driver's independent encoder.
+ */
+class ClickHouseLz4InputStreamTest {
+
+    private static final int BLOCK_BYTES = 256;
+
+    @Test
+    void decodesDataSpanningManyBlocks() throws IOException {
+        byte[] raw = sample(10_000);
+
+        try (InputStream in = new ClickHouseLz4InputStream(new ByteArrayInputStream(compress(raw)))) {
+            assertThat(in.readAllBytes()).isEqualTo(raw);
+        }
+    }
+
+    @Test
+    void decodesSingleByteReads() throws IOException {
+        byte[] raw = sample(BLOCK_BYTES * 3 + 7);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+
+        try (InputStream in = new ClickHouseLz4InputStream(new ByteArrayInputStream(compress(raw)))) {
+            for (int b = in.read(); b >= 0; b = in.read()) {
+                decoded.write(b);
+            }
+        }
+        assertThat(decoded.toByteArray()).isEqualTo(raw);
+    }
+
+    @Test
+    void rejectsBlockWithBadChecksum() throws IOException {
+        byte[] compressed = compress(sample(1_000));
+        // Past the 16-byte checksum and the 9-byte header, inside the first block's data
+        compressed[30] ^= 0x5A;
+
+        try (InputStream in = new ClickHouseLz4InputStream(new ByteArrayInputStream(compressed))) {
+            assertThatThrownBy(in::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("checksum mismatch");
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedCompressionMethod() throws IOException {
+        byte[] compressed = compress(sample(100));
+        compressed[16] = 0x02;
+
+        try (InputStream in = new ClickHouseLz4InputStream(new ByteArrayInputStream(compressed))) {
+            assertThatThrownBy(in::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Unsupported ClickHouse compression method");
+        }
+    }
+
+    @Test
+    void rejectsTruncatedBlock() throws IOException {
+        byte[] compressed = compress(sample(1_000));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length - 3);
+
+        try (InputStream in = new ClickHouseLz4InputStream(new ByteArrayInputStream(truncated))) {
+            assertThatThrownBy(in::readAllBytes).isInstanceOf(EOFException.class);
+        }
+    }
+
+    private static byte[] compress(byte[] raw) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new Lz4OutputStream(compressed, BLOCK_BYTES, null)) {
+            out.write(raw);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Half repetitive, half random, so blocks both compress and do not.
+     */
+    private static byte[] sample(int length) {
+        byte[] bytes = new byte[length];
+        Random random = new Random(42);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (i / 512) % 2 == 0 ? (byte) (i % 13) : (byte) random.nextInt();
+        }
+        return bytes;
+    }
+}
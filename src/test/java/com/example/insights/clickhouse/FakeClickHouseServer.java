@@ -0,0 +1,179 @@
+package com.example.insights.clickhouse;
+
+import com.clickhouse.data.stream.Lz4OutputStream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * A local stand-in for ClickHouse's HTTP interface answering the metric queries of
+ * {@link com.example.insights.repository.ClickHouseHttpMetricsRepository} with deterministic
+ * values ({@link #value}, {@link #version}) for every requested key.
+ *
+ * Responses are RowBinary. With {@code compress=1} they are compressed by the JDBC driver's own
+ * encoder of ClickHouse's native block format, in small blocks so that rows straddle block
+ * boundaries, which checks the service's decoder against an independent implementation.
+ * {@link #corruptNextResponse} flips a byte inside the next compressed block.
+ */
+public final class FakeClickHouseServer implements AutoCloseable {
+
+    private static final int BLOCK_BYTES = 256;
+    private static final int CORRUPTED_BYTE = 30;
+
+    private final HttpServer server;
+    private volatile boolean corruptNext;
+
+    public FakeClickHouseServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-clickhouse");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    /**
+     * The JDBC-style URL the repositories are configured with.
+     */
+    public String jdbcUrl() {
+        return "jdbc:clickhouse://127.0.0.1:" + server.getAddress().getPort() + "/shopstream";
+    }
+
+    public void corruptNextResponse() {
+        corruptNext = true;
+    }
+
+    public static long value(String tenantId, String campaignId, String metricType) {
+        return (tenantId + '/' + campaignId + '/' + metricType).hashCode() & 0xFFFFFFL;
+    }
+
+    public static long version(String tenantId, String campaignId, String metricType) {
+        return 1_700_000_000_000L + value(tenantId, campaignId, metricType);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String sql = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String tenantId = query.get("param_tenantId");
+
+            ByteArrayOutputStream rows = new ByteArrayOutputStream();
+            if (sql.contains("LIMIT 1 BY")) {
+                for (String campaignId : arrayParameter(query.get("param_campaignIds"))) {
+                    for (String metricType : arrayParameter(query.get("param_metricTypes"))) {
+                        writeString(rows, campaignId);
+                        writeString(rows, metricType);
+                        writeInt64(rows, value(tenantId, campaignId, metricType));
+                        writeInt64(rows, version(tenantId, campaignId, metricType));
+                    }
+                }
+            } else if (sql.contains("LIMIT 1")) {
+                String campaignId = query.get("param_campaignId");
+                String metricType = query.get("param_metricType");
+                writeInt64(rows, value(tenantId, campaignId, metricType));
+                writeInt64(rows, version(tenantId, campaignId, metricType));
+            } else if (sql.contains("GROUP BY campaign_id")) {
+                int limit = Integer.parseInt(query.get("param_limit"));
+                for (int i = 0; i < limit; i++) {
+                    writeString(rows, "campaign-" + i);
+                    writeInt64(rows, limit - i);
+                }
+            } else if (sql.contains("toInt64(1)")) {
+                writeInt64(rows, 1);
+            } else {
+                byte[] error = ("Code: 62. Unsupported query in fake server: " + sql).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(400, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+
+            byte[] body = rows.toByteArray();
+            if ("1".equals(query.get("compress"))) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (OutputStream out = new Lz4OutputStream(compressed, BLOCK_BYTES, null)) {
+                    out.write(body);
+                }
+                body = compressed.toByteArray();
+                if (corruptNext && body.length > CORRUPTED_BYTE) {
+                    corruptNext = false;
+                    body[CORRUPTED_BYTE] ^= 0x5A;
+                }
+            }
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Parses an array parameter as the HTTP repository writes it: single-quoted strings with backslash escapes.
+     */
+    private static List<String> arrayParameter(String literal) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = null;
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (current == null) {
+                if (c == '\'') {
+                    current = new StringBuilder();
+                }
+            } else if (c == '\\') {
+                current.append(literal.charAt(++i));
+            } else if (c == '\'') {
+                values.add(current.toString());
+                current = null;
+            } else {
+                current.append(c);
+            }
+        }
+        return values;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt64(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+}
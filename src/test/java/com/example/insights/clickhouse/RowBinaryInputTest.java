@@ -0,0 +1,82 @@
+package com.example.insights.clickhouse;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowBinaryInputTest {
+
+    @Test
+    void readsRowsOfStringsAndInt64s() throws IOException {
+        String longId = "campaign-" + "x".repeat(300);
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        writeString(rows, "c1");
+        writeInt64(rows, 42);
+        writeString(rows, longId);
+        writeInt64(rows, -1);
+        writeString(rows, "");
+        writeInt64(rows, Long.MAX_VALUE);
+
+        RowBinaryInput input = new RowBinaryInput(new ByteArrayInputStream(rows.toByteArray()));
+
+        assertThat(input.hasMore()).isTrue();
+        assertThat(input.readString()).isEqualTo("c1");
+        assertThat(input.readInt64()).isEqualTo(42);
+        assertThat(input.hasMore()).isTrue();
+        assertThat(input.readString()).isEqualTo(longId);
+        assertThat(input.readInt64()).isEqualTo(-1);
+        assertThat(input.hasMore()).isTrue();
+        assertThat(input.readString()).isEmpty();
+        assertThat(input.readInt64()).isEqualTo(Long.MAX_VALUE);
+        assertThat(input.hasMore()).isFalse();
+    }
+
+    @Test
+    void readsUtf8Strings() throws IOException {
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        writeString(rows, "kampagne-ä-€");
+
+        RowBinaryInput input = new RowBinaryInput(new ByteArrayInputStream(rows.toByteArray()));
+
+        assertThat(input.readString()).isEqualTo("kampagne-ä-€");
+    }
+
+    @Test
+    void rejectsTruncatedRow() throws IOException {
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        writeString(rows, "c1");
+        writeInt64(rows, 42);
+        byte[] truncated = Arrays.copyOf(rows.toByteArray(), rows.size() - 1);
+
+        RowBinaryInput input = new RowBinaryInput(new ByteArrayInputStream(truncated));
+
+        assertThat(input.hasMore()).isTrue();
+        assertThat(input.readString()).isEqualTo("c1");
+        assertThatThrownBy(input::readInt64).isInstanceOf(EOFException.class);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            out.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.write(length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt64(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.insights.repository;
+
+import com.example.insights.clickhouse.ClickHouseReplicaRouter;
+import com.example.insights.clickhouse.FakeClickHouseServer;
+import com.example.insights.constants.MetricType;
+import com.example.insights.dto.AdMetricResponse;
+import com.example.insights.multitenancy.TenantContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reads through the HTTP repository from {@link FakeClickHouseServer}, whose compressed responses
+ * come from the JDBC driver's encoder, and compares every value with the expected one.
+ */
+class ClickHouseHttpMetricsRepositoryTest {
+
+    private static final String TENANT = "t1";
+    private static final String[] METRIC_TYPES = {MetricType.CLICKS, MetricType.IMPRESSIONS, MetricType.ADD_TO_CART};
+
+    private FakeClickHouseServer server;
+    private ClickHouseReplicaRouter router;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeClickHouseServer();
+        router = new ClickHouseReplicaRouter(List.of(server.jdbcUrl()), 0.2, 3, false, 0.95,
+                Duration.ofMillis(5), Duration.ofSeconds(5), 1, new SimpleMeterRegistry());
+        TenantContext.setTenantId(TENANT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        router.shutdown();
+        server.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getMetricReturnsValueAndVersion(boolean compress) {
+        MetricsSourceRepository repository = repository(compress);
+
+        for (MetricKey key : keys(50)) {
+            assertThat(repository.getMetric(key.campaignId(), key.metricType())).isEqualTo(expected(key));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getMetricsReturnsEveryRequestedKey(boolean compress) {
+        List<MetricKey> keys = keys(200);
+        Map<MetricKey, VersionedMetric> expected = new LinkedHashMap<>();
+        keys.forEach(key -> expected.put(key, expected(key)));
+
+        assertThat(repository(compress).getMetrics(TENANT, keys)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getMetricsDropsRowsForKeysNotRequested(boolean compress) {
+        // The fake answers the cross product of campaigns and metric types, as has() does
+        List<MetricKey> keys = List.of(new MetricKey("c1", MetricType.CLICKS), new MetricKey("c2", MetricType.IMPRESSIONS));
+
+        assertThat(repository(compress).getMetrics(TENANT, keys)).containsOnlyKeys(keys);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void getTopCampaignsReadsEveryRow(boolean compress) {
+        // Enough rows to span several compressed blocks
+        List<AdMetricResponse> top = repository(compress).getTopCampaigns(MetricType.CLICKS, 100);
+
+        assertThat(top).hasSize(100);
+        for (int i = 0; i < top.size(); i++) {
+            assertThat(top.get(i).getCampaignId()).isEqualTo("campaign-" + i);
+            assertThat(top.get(i).getValue()).isEqualTo(100 - i);
+        }
+    }
+
+    private ClickHouseHttpMetricsRepository repository(boolean compress) {
+        return new ClickHouseHttpMetricsRepository(router, "default", "", Duration.ofSeconds(5), compress,
+                new SimpleMeterRegistry());
+    }
+
+    private static List<MetricKey> keys(int count) {
+        List<MetricKey> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(new MetricKey("campaign-" + i, METRIC_TYPES[i % METRIC_TYPES.length]));
+        }
+        return keys;
+    }
+
+    private static VersionedMetric expected(MetricKey key) {
+        return new VersionedMetric(FakeClickHouseServer.value(TENANT, key.campaignId(), key.metricType()),
+                FakeClickHouseServer.version(TENANT, key.campaignId(), key.metricType()));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.insights.streaming;
+
+import com.example.insights.repository.VersionedMetric;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CounterSeriesTest {
+
+    private static final long WINDOW = 1_000;
+    private static final long MAX_AGE = 60_000;
+    private static final long NOW = 10_000;
+
+    @Test
+    void noBaselineMeansNoValueAndAsksForOne() {
+        CounterSeries series = new CounterSeries();
+        series.add(5, NOW);
+
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isNull();
+        assertThat(series.wanted()).isTrue();
+
+        series.setBaseline(100, 3_000, NOW);
+        assertThat(series.wanted()).isFalse();
+    }
+
+    @Test
+    void addsEventsSinceTheBoundaryAtOrBeforeTheBaselineVersion() {
+        CounterSeries series = new CounterSeries();
+        series.add(5, 500);
+        series.seal(1_000, 0);
+        series.add(3, 1_200);
+        series.seal(2_000, 0);
+        series.add(2, 2_100);
+
+        // Version on a boundary: the events after it
+        series.setBaseline(100, 1_000, NOW);
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isEqualTo(105);
+
+        // Version inside a window: counted from that window's start
+        series.setBaseline(200, 2_500, NOW);
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isEqualTo(202);
+    }
+
+    @Test
+    void baselineBeforeAnyWindowCountsEverything() {
+        CounterSeries series = new CounterSeries();
+        series.setBaseline(100, 500, NOW);
+        series.add(4, 700);
+        series.seal(1_000, 0);
+        series.add(1, 1_100);
+
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isEqualTo(105);
+    }
+
+    @Test
+    void unchangedTotalsDoNotRecordAWindow() {
+        CounterSeries series = new CounterSeries();
+        series.seal(1_000, 0);
+        series.add(1, 1_500);
+        series.seal(2_000, 0);
+        series.seal(3_000, 0);
+        series.seal(4_000, 0);
+
+        CounterSeries.Windows windows = series.windows();
+        assertThat(windows.boundaries()).containsExactly(2_000);
+        assertThat(windows.totals()).containsExactly(1);
+        assertThat(windows.pruned()).isFalse();
+    }
+
+    @Test
+    void prunedWindowsLeaveTheFirstRetainedTotalAsTheStart() {
+        CounterSeries series = new CounterSeries();
+        for (long boundary = 1_000; boundary <= 5_000; boundary += WINDOW) {
+            series.add(10, boundary - 1);
+            series.seal(boundary, 2_500);
+        }
+
+        CounterSeries.Windows windows = series.windows();
+        assertThat(windows.boundaries()).containsExactly(2_000, 3_000, 4_000, 5_000);
+        assertThat(windows.totals()).containsExactly(20, 30, 40, 50);
+        assertThat(windows.pruned()).isTrue();
+
+        // Older than the retained windows: events before 2000 are taken to be in the baseline
+        series.setBaseline(100, 500, NOW);
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isEqualTo(130);
+    }
+
+    @Test
+    void windowsGrowPastTheInitialCapacity() {
+        CounterSeries series = new CounterSeries();
+        for (long boundary = 1_000; boundary <= 10_000; boundary += WINDOW) {
+            series.add(1, boundary - 1);
+            series.seal(boundary, 0);
+        }
+
+        assertThat(series.windows().boundaries()).hasSize(10);
+        series.setBaseline(0, 7_000, NOW);
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isEqualTo(3);
+    }
+
+    @Test
+    void staleOrUnversionedBaselinesAreNotUsed() {
+        CounterSeries series = new CounterSeries();
+        series.add(1, 500);
+        series.setBaseline(100, VersionedMetric.UNVERSIONED, NOW);
+        assertThat(series.value(NOW, WINDOW, MAX_AGE)).isNull();
+        // Left to the periodic refresh rather than reloaded on the next read
+        assertThat(series.wanted()).isFalse();
+
+        series.setBaseline(100, 1_000, NOW);
+        assertThat(series.value(NOW + MAX_AGE, WINDOW, MAX_AGE)).isEqualTo(101);
+        assertThat(series.value(NOW + MAX_AGE + 1, WINDOW, MAX_AGE)).isNull();
+        assertThat(series.wanted()).isTrue();
+    }
+
+    @Test
+    void olderBaselineDoesNotReplaceANewerOne() {
+        CounterSeries series = new CounterSeries();
+        series.setBaseline(100, 2_000, NOW);
+        series.setBaseline(90, 1_000, NOW + 1);
+
+        assertThat(series.baseline()).isEqualTo(new CounterSeries.Baseline(100, 2_000, NOW));
+    }
+
+    @Test
+    void restoredCounterCarriesOnFromTheCheckpoint() {
+        CounterSeries series = new CounterSeries();
+        series.add(5, 500);
+        series.seal(1_000, 0);
+        series.add(2, 1_500);
+        series.setBaseline(100, 1_000, NOW);
+
+        CounterSeries restored = new CounterSeries();
+        restored.restore(series.total(), series.baseline(), series.windows(), NOW);
+        restored.add(3, NOW);
+
+        assertThat(restored.value(NOW, WINDOW, MAX_AGE)).isEqualTo(105);
+        restored.seal(2_000, 0);
+        assertThat(restored.windows().totals()).containsExactly(5, 10);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.insights.streaming;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileTailAdEventSourceTest {
+
+    private static final Duration POLL = Duration.ofMillis(10);
+    private static final long WAIT_MILLIS = 5_000;
+
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    private FileTailAdEventSource source;
+
+    @AfterEach
+    void close() {
+        if (source != null) {
+            source.close();
+        }
+    }
+
+    @Test
+    void handsOverCompleteLinesAsTheyAreAppended() throws Exception {
+        Path file = dir.resolve("events.log");
+        write(file, "t1,c1,click\n");
+        start(file, AdEventSource.NO_POSITION);
+
+        assertThat(next()).isEqualTo("t1,c1,click");
+        assertThat(positionOnceAt(12)).isEqualTo(12);
+
+        append(file, "t1,c2,impression,3\n");
+        assertThat(next()).isEqualTo("t1,c2,impression,3");
+        assertThat(positionOnceAt(31)).isEqualTo(31);
+    }
+
+    @Test
+    void partialLineWaitsForItsNewline() throws Exception {
+        Path file = dir.resolve("events.log");
+        write(file, "t1,c1,cl");
+        start(file, AdEventSource.NO_POSITION);
+
+        assertThat(lines.poll(100, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(source.position()).isZero();
+
+        append(file, "ick\n");
+        assertThat(next()).isEqualTo("t1,c1,click");
+        assertThat(positionOnceAt(12)).isEqualTo(12);
+    }
+
+    @Test
+    void resumesFromACheckpointedPosition() throws Exception {
+        Path file = dir.resolve("events.log");
+        write(file, "t1,c1,click\nt1,c2,click\n");
+        start(file, 12);
+
+        assertThat(next()).isEqualTo("t1,c2,click");
+        assertThat(lines.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void waitsForAFileThatDoesNotExistYet() throws Exception {
+        Path file = dir.resolve("events.log");
+        start(file, AdEventSource.NO_POSITION);
+        assertThat(lines.poll(50, TimeUnit.MILLISECONDS)).isNull();
+
+        write(file, "t1,c1,click\n");
+        assertThat(next()).isEqualTo("t1,c1,click");
+    }
+
+    @Test
+    void truncatedFileIsReadFromTheStart() throws Exception {
+        Path file = dir.resolve("events.log");
+        write(file, "t1,c1,click\nt1,c2,click\n");
+        start(file, AdEventSource.NO_POSITION);
+        assertThat(next()).isEqualTo("t1,c1,click");
+        assertThat(next()).isEqualTo("t1,c2,click");
+
+        write(file, "t2,c3,click\n");
+        assertThat(next()).isEqualTo("t2,c3,click");
+        assertThat(positionOnceAt(12)).isEqualTo(12);
+    }
+
+    @Test
+    void replacedFileIsReadFromTheStart() throws Exception {
+        Path file = dir.resolve("events.log");
+        write(file, "t1,c1,click\nt1,c2,click\n");
+        start(file, AdEventSource.NO_POSITION);
+        assertThat(next()).isEqualTo("t1,c1,click");
+        assertThat(next()).isEqualTo("t1,c2,click");
+
+        // Rotated to a new file that is already longer than the old one
+        Path rotated = dir.resolve("events.log.new");
+        write(rotated, "t2,c3,click\nt2,c4,click\nt2,c5,click\n");
+        Files.move(rotated, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        assertThat(next()).isEqualTo("t2,c3,click");
+        assertThat(next()).isEqualTo("t2,c4,click");
+        assertThat(next()).isEqualTo("t2,c5,click");
+    }
+
+    private void start(Path file, long resumeFrom) {
+        source = new FileTailAdEventSource(file, POLL);
+        source.start(lines::add, resumeFrom);
+    }
+
+    private String next() throws InterruptedException {
+        return lines.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The source's position, once it reaches {@code expected} or the wait runs out; the position
+     * moves on just after the line is handed over.
+     */
+    private long positionOnceAt(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (source.position() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return source.position();
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}